@@ -4,6 +4,7 @@
 
 plugins {
     id("org.springframework.boot")
+    alias(libs.plugins.jmh)
 }
 
 dependencies {
@@ -29,6 +30,7 @@ dependencies {
     testImplementation(libs.junitJupiterParams)
     testImplementation(libs.mockitoJunitJupiter)
     testImplementation(libs.assertJ)
+    testImplementation("org.springframework:spring-test")
 
     testRuntimeOnly(libs.junitPlatformLauncher)
 
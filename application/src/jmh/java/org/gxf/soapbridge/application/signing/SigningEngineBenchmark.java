@@ -0,0 +1,105 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.signing;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the cost per message of signing and verifying with each supported key type, both with
+ * the {@link PooledSigningEngine} and with a {@link Signature} created for every message, as was
+ * done before the engine existed. Run with {@code ./gradlew :application:jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class SigningEngineBenchmark {
+
+  @Param({"RSA", "EC", "Ed25519"})
+  private String keyType;
+
+  /** Size of a typical SOAP message. */
+  @Param({"2048"})
+  private int messageSize;
+
+  private String algorithm;
+  private String provider;
+  private KeyPair keyPair;
+  private PooledSigningEngine engine;
+  private List<ByteBuffer> content;
+  private byte[] signature;
+
+  @Setup
+  public void setUp() throws GeneralSecurityException {
+    switch (keyType) {
+      case "RSA" -> {
+        algorithm = "SHA256withRSA";
+        provider = "SunRsaSign";
+      }
+      case "EC" -> {
+        algorithm = "SHA256withECDSA";
+        provider = "SunEC";
+      }
+      default -> {
+        algorithm = "Ed25519";
+        provider = "SunEC";
+      }
+    }
+    keyPair = KeyPairGenerator.getInstance(keyType).generateKeyPair();
+    engine =
+        new PooledSigningEngine(algorithm, provider, keyPair.getPrivate(), keyPair.getPublic(), 8);
+    final byte[] message = new byte[messageSize];
+    new Random(42).nextBytes(message);
+    content = List.of(ByteBuffer.wrap(message));
+    signature = engine.sign(content);
+  }
+
+  @Benchmark
+  public byte[] signPooled() throws GeneralSecurityException {
+    return engine.sign(content);
+  }
+
+  @Benchmark
+  public boolean verifyPooled() throws GeneralSecurityException {
+    return engine.verify(content, signature);
+  }
+
+  @Benchmark
+  public byte[] signPerMessage() throws GeneralSecurityException {
+    final Signature signer = Signature.getInstance(algorithm, provider);
+    signer.initSign(keyPair.getPrivate());
+    signer.update(content.getFirst().duplicate());
+    return signer.sign();
+  }
+
+  @Benchmark
+  public boolean verifyPerMessage() throws GeneralSecurityException {
+    final Signature verifier = Signature.getInstance(algorithm, provider);
+    verifier.initVerify(keyPair.getPublic());
+    verifier.update(content.getFirst().duplicate());
+    return verifier.verify(signature);
+  }
+}
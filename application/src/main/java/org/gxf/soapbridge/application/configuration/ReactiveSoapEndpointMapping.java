@@ -0,0 +1,35 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+
+package org.gxf.soapbridge.application.configuration;
+
+import org.gxf.soapbridge.soap.endpoints.ReactiveSoapEndpoint;
+import org.jetbrains.annotations.NotNull;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.handler.AbstractHandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/** Reactive counterpart of {@link SoapEndpointMapping}, used when running on WebFlux. */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSoapEndpointMapping extends AbstractHandlerMapping {
+  private final ReactiveSoapEndpoint soapEndpoint;
+
+  public ReactiveSoapEndpointMapping(final ReactiveSoapEndpoint soapEndpoint) {
+    this.soapEndpoint = soapEndpoint;
+  }
+
+  @NotNull
+  @Override
+  protected Mono<?> getHandlerInternal(@NotNull final ServerWebExchange exchange) {
+    if (exchange.getRequest().getPath().pathWithinApplication().value().startsWith("/actuator")) {
+      // Let Spring handle this routing
+      return Mono.empty();
+    } else {
+      return Mono.just(soapEndpoint);
+    }
+  }
+}
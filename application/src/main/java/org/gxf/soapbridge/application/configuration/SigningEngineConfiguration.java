@@ -0,0 +1,22 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.configuration;
+
+import org.gxf.soapbridge.application.signing.PooledSigningEngine;
+import org.gxf.soapbridge.application.signing.SigningEngine;
+import org.gxf.soapbridge.configuration.properties.SecurityConfigurationProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/** Provides the default {@link SigningEngine}, unless the application defines its own. */
+@Configuration
+public class SigningEngineConfiguration {
+
+  @Bean
+  @ConditionalOnMissingBean
+  public SigningEngine signingEngine(final SecurityConfigurationProperties securityConfiguration) {
+    return new PooledSigningEngine(securityConfiguration.getSigning());
+  }
+}
@@ -7,10 +7,12 @@ package org.gxf.soapbridge.application.configuration;
 import jakarta.servlet.http.HttpServletRequest;
 import org.gxf.soapbridge.soap.endpoints.SoapEndpoint;
 import org.jetbrains.annotations.NotNull;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.stereotype.Component;
 import org.springframework.web.servlet.handler.AbstractHandlerMapping;
 
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SoapEndpointMapping extends AbstractHandlerMapping {
   private final SoapEndpoint soapEndpoint;
 
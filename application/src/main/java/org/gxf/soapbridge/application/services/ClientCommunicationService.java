@@ -3,8 +3,16 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.gxf.soapbridge.application.services;
 
+import jakarta.annotation.Nullable;
+import java.util.List;
+import org.gxf.soapbridge.exceptions.ProxyMessageException;
 import org.gxf.soapbridge.soap.clients.Connection;
+import org.gxf.soapbridge.soap.exceptions.PlatformFailureException;
+import org.gxf.soapbridge.soap.exceptions.ProxyServerException;
+import org.gxf.soapbridge.soap.faults.SoapFaults;
+import org.gxf.soapbridge.valueobjects.PlatformFailure;
 import org.gxf.soapbridge.valueobjects.ProxyServerResponseMessage;
+import org.gxf.soapbridge.valueobjects.ReceivedMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -35,31 +43,122 @@ public class ClientCommunicationService {
     }
 
     /**
-     * Process an incoming queue message. The content of the message has to be verified by the {@link
-     * SigningService}. Then a response from GXF will set for the pending connection from a client.
+     * Process an incoming queue message. Messages for connections which are not pending on this
+     * instance, like responses for other nodes or expired connections, are dropped before any
+     * verification. Otherwise the content of the message has to be verified by the {@link
+     * SigningService}. Then a response from GXF will set for the pending connection from a client. A
+     * {@link PlatformFailure} fails the connection with a {@link PlatformFailureException} holding a
+     * SOAP fault, so the client does not wait for its time-out.
      *
-     * @param proxyServerResponseMessage The incoming queue message to process.
+     * @param receivedMessage The incoming queue message to process. It is only decoded when it passes
+     *     verification.
+     * @throws ProxyMessageException when the verified message can not be decoded.
      */
-    public void handleIncomingResponse(final ProxyServerResponseMessage proxyServerResponseMessage) {
-        final boolean isValid =
-                signingService.verifyContent(
-                        proxyServerResponseMessage.constructString(),
-                        proxyServerResponseMessage.getSignature());
+    public void handleIncomingResponse(final ReceivedMessage<ProxyServerResponseMessage> receivedMessage)
+            throws ProxyMessageException {
+        final MatchedResponse matchedResponse = verifyIncomingResponse(receivedMessage);
+        if (matchedResponse != null) {
+            complete(matchedResponse);
+        }
+    }
 
-        final Connection connection =
-                connectionCacheService.findConnection(proxyServerResponseMessage.getConnectionId());
+    /**
+     * Matches an incoming queue message to its pending connection, then verifies it with the {@link
+     * SigningService} and decodes it. This does not complete the connection, so messages of a batch
+     * can be verified in parallel.
+     *
+     * @param receivedMessage The incoming queue message to verify.
+     * @return The response for the pending connection, or null when no connection is pending.
+     * @throws ProxyMessageException when the verified message can not be decoded.
+     */
+    @Nullable
+    public MatchedResponse verifyIncomingResponse(final ReceivedMessage<ProxyServerResponseMessage> receivedMessage)
+            throws ProxyMessageException {
+        final String connectionId = receivedMessage.getConnectionId();
+        final Connection connection = connectionCacheService.findConnection(connectionId);
 
         if (connection == null) {
-            LOGGER.error("No connection found in cache for id: {}", proxyServerResponseMessage.getConnectionId());
-            return;
+            connectionCacheService.registerUnmatchedResponse(connectionId);
+            return null;
         }
 
-        if (isValid) {
+        final boolean isValid =
+                signingService.verifyContent(receivedMessage.getSignedContent(), receivedMessage.getSignature());
+        if (!isValid) {
+            LOGGER.error("ProxyServerResponseMessage failed to pass security check.");
+            return new MatchedResponse(connection, null, null);
+        }
+        final ProxyServerResponseMessage responseMessage = receivedMessage.decode();
+        final PlatformFailure failure = responseMessage.getFailure();
+        if (failure != null) {
+            LOGGER.warn("Request {} failed on the platform side: {}", connectionId, failure);
+            return new MatchedResponse(connection, null, failure);
+        }
+        return new MatchedResponse(connection, responseMessage.getSoapResponse(), null);
+    }
+
+    /**
+     * Sets the responses for their pending connections.
+     *
+     * @param matchedResponses Responses obtained from {@link #verifyIncomingResponse(ReceivedMessage)}.
+     */
+    public void handleIncomingResponses(final List<MatchedResponse> matchedResponses) {
+        matchedResponses.forEach(this::complete);
+    }
+
+    private void complete(final MatchedResponse matchedResponse) {
+        final Connection connection = matchedResponse.connection();
+        final String soapResponse = matchedResponse.soapResponse();
+        final PlatformFailure failure = matchedResponse.failure();
+
+        final boolean completed;
+        if (failure != null) {
+            completed = connection.fail(new PlatformFailureException(
+                    failure.getFaultString(), SoapFaults.serverFault(failure.getFaultString())));
+        } else if (soapResponse == null) {
+            completed = connection.setSoapResponse("Security check has failed.");
+        } else if (connection.getReservation().tryExtend(utf8Length(soapResponse))) {
             LOGGER.debug("Connection valid, set SOAP response");
-            connection.setSoapResponse(proxyServerResponseMessage.getSoapResponse());
+            completed = connection.setSoapResponse(soapResponse);
         } else {
-            LOGGER.error("ProxyServerResponseMessage failed to pass security check.");
-            connection.setSoapResponse("Security check has failed.");
+            LOGGER.error("SOAP response does not fit in memory budget, failing connection.");
+            completed = connection.fail(new ProxyServerException("Memory budget for in-flight payloads exceeded"));
+        }
+        if (!completed) {
+            connectionCacheService.registerUnmatchedResponse(connection.getConnectionId());
+        }
+    }
+
+    /**
+     * The length of a string encoded as UTF-8, as it is written to the client, without encoding it.
+     */
+    static int utf8Length(final String string) {
+        int length = 0;
+        for (int i = 0; i < string.length(); i++) {
+            final char c = string.charAt(i);
+            if (c < 0x80) {
+                length += 1;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < string.length()
+                    && Character.isLowSurrogate(string.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
         }
+        return length;
     }
+
+    /**
+     * A response matched to its pending connection.
+     *
+     * @param connection The pending connection.
+     * @param soapResponse The SOAP response, or null when the message failed to pass the security
+     *     check or is a failure.
+     * @param failure The failure on the platform side, or null when there is none.
+     */
+    public record MatchedResponse(
+            Connection connection, @Nullable String soapResponse, @Nullable PlatformFailure failure) {}
 }
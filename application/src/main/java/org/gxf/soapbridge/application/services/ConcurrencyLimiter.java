@@ -0,0 +1,139 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.gxf.soapbridge.configuration.properties.ConcurrencyLimitConfigurationProperties;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * This {@link @Service} class limits the number of in-flight requests from client applications,
+ * using additive increase and multiplicative decrease (AIMD). Each answered request raises the
+ * limit by {@code 1 / limit} while the limit is being used; each request that times out or fails
+ * on the platform side lowers it by the configured back-off ratio. When the platform side slows
+ * down or fails, excess requests are rejected immediately instead of waiting for their time-out.
+ * Requests are never queued for a permit, so the in-flight gauge and the rejected counter describe
+ * the limiter completely.
+ */
+@Service
+public class ConcurrencyLimiter {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ConcurrencyLimiter.class);
+
+  /** Permit handed out when the limiter is disabled. Releasing it has no effect. */
+  public static final Permit UNLIMITED = new Permit(null);
+
+  private final ConcurrencyLimitConfigurationProperties configuration;
+
+  private final MonitoringService monitoringService;
+
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  private volatile double limit;
+
+  public ConcurrencyLimiter(
+      final ConcurrencyLimitConfigurationProperties configuration,
+      final MonitoringService monitoringService) {
+    this.configuration = configuration;
+    this.monitoringService = monitoringService;
+    limit = configuration.getInitialLimit();
+  }
+
+  @PostConstruct
+  public void postConstructor() {
+    if (configuration.getEnabled()) {
+      monitoringService.monitorConcurrencyLimit(this::getLimit, inFlight::get);
+    }
+  }
+
+  /**
+   * Tries to admit a request.
+   *
+   * @return A permit which must be released when the request is finished, or null when the limit
+   *     has been reached and the request must be rejected.
+   */
+  @Nullable
+  public Permit tryAcquire() {
+    if (!configuration.getEnabled()) {
+      return UNLIMITED;
+    }
+    while (true) {
+      final int current = inFlight.get();
+      if (current >= (int) limit) {
+        LOGGER.warn("Concurrency limit of {} reached, rejecting request", (int) limit);
+        monitoringService.recordRejectedRequest();
+        return null;
+      }
+      if (inFlight.compareAndSet(current, current + 1)) {
+        return new Permit(this);
+      }
+    }
+  }
+
+  /** Number of seconds a rejected client should wait before retrying. */
+  public int getRetryAfter() {
+    return configuration.getRetryAfter();
+  }
+
+  public int getLimit() {
+    return (int) limit;
+  }
+
+  private void release(final Outcome outcome) {
+    final int inFlightBeforeRelease = inFlight.getAndDecrement();
+    switch (outcome) {
+      case ANSWERED -> increase(inFlightBeforeRelease);
+      case TIMED_OUT, FAILED -> decrease();
+      case IGNORED -> {
+        // Not a signal about the platform side.
+      }
+    }
+  }
+
+  private synchronized void increase(final int used) {
+    // Only grow when the limit is actually being used.
+    if (used * 2 >= limit) {
+      limit = Math.min(configuration.getMaxLimit(), limit + 1 / limit);
+    }
+  }
+
+  private synchronized void decrease() {
+    limit = Math.max(configuration.getMinLimit(), limit * configuration.getBackoffRatio());
+    LOGGER.debug("Request timed out or failed, lowered concurrency limit to {}", (int) limit);
+  }
+
+  /** How a request ended, used to adjust the limit. */
+  public enum Outcome {
+    /** A response was received from the other end. */
+    ANSWERED,
+    /** No response was received in time. */
+    TIMED_OUT,
+    /** The other end answered that it could not handle the request. */
+    FAILED,
+    /** The request ended for another reason, which says nothing about the other end. */
+    IGNORED
+  }
+
+  /** Admission of a single request. Releasing a permit more than once has no effect. */
+  public static final class Permit {
+    @Nullable private final ConcurrencyLimiter limiter;
+    private final AtomicBoolean released = new AtomicBoolean(false);
+
+    private Permit(@Nullable final ConcurrencyLimiter limiter) {
+      this.limiter = limiter;
+    }
+
+    public void release(final Outcome outcome) {
+      if (limiter != null && released.compareAndSet(false, true)) {
+        limiter.release(outcome);
+      }
+    }
+  }
+}
@@ -3,31 +3,57 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.gxf.soapbridge.application.services;
 
-import java.util.concurrent.ConcurrentHashMap;
-
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
 import jakarta.annotation.Nullable;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.gxf.soapbridge.configuration.properties.NodeConfigurationProperties;
 import org.gxf.soapbridge.monitoring.MonitoringService;
 import org.gxf.soapbridge.soap.clients.Connection;
+import org.gxf.soapbridge.soap.exceptions.ProxyServerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
-/** This {@link @Service} class caches connections from client applications. */
+/**
+ * This {@link @Service} class caches connections from client applications until their response is
+ * received or they expire. Expiry is driven by a hashed timer wheel, so scheduling and cancelling
+ * a deadline is constant time and no thread waits for a specific connection.
+ */
 @Service
 public class ConnectionCacheService {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionCacheService.class);
 
+  /** Resolution of the timer wheel. Time-outs are configured in seconds. */
+  private static final long TIMER_TICK_MILLIS = 100;
+
+  private static final int TIMER_TICKS_PER_WHEEL = 512;
+
   /**
-   * Map used to cache connections. The key is an uuid. The value is a {@link Connection} instance.
+   * Map used to cache connections. The key is the connection id. The value is a {@link Connection}
+   * instance.
    */
-  private static final ConcurrentHashMap<String, Connection> cache = new ConcurrentHashMap<>();
+  private final ConcurrentHashMap<String, Connection> cache = new ConcurrentHashMap<>();
+
+  private final ConnectionIdGenerator connectionIdGenerator;
+
+  private final HashedWheelTimer timeoutTimer =
+      new HashedWheelTimer(
+          Thread.ofPlatform().name("connection-timeout").daemon().factory(),
+          TIMER_TICK_MILLIS,
+          TimeUnit.MILLISECONDS,
+          TIMER_TICKS_PER_WHEEL);
 
   private final MonitoringService monitoringService;
 
-  public ConnectionCacheService(MonitoringService monitoringService) {
+  public ConnectionCacheService(
+      final MonitoringService monitoringService, final NodeConfigurationProperties node) {
     this.monitoringService = monitoringService;
+    this.connectionIdGenerator = new ConnectionIdGenerator(node.getId());
   }
 
   @PostConstruct
@@ -35,24 +61,39 @@ public class ConnectionCacheService {
     monitoringService.monitorCacheSize(cache);
   }
 
+  @PreDestroy
+  public void preDestroy() {
+    timeoutTimer.stop();
+  }
+
   /**
-   * Creates a connection and puts it in the cache.
+   * Creates a connection, puts it in the cache and schedules its expiry.
    *
+   * @param timeout The number of seconds to wait for a response before the connection expires.
+   * @param permit The admission of the request, released when the cached connection is closed.
+   * @param reservation The memory reserved for the payloads of the connection, released when the
+   *     cached connection is closed.
    * @return the created Connection
    */
-  public CachedConnection cacheConnection() {
-    final Connection connection = new Connection();
+  public CachedConnection cacheConnection(
+      final int timeout,
+      final ConcurrencyLimiter.Permit permit,
+      final PayloadMemoryBudget.Reservation reservation) {
+    final Connection connection = new Connection(connectionIdGenerator.nextId(), reservation);
     final String connectionId = connection.getConnectionId();
     LOGGER.debug("Caching connection with connectionId: {}", connectionId);
     cache.put(connectionId, connection);
-    return new CachedConnection(connection, this);
+    final Timeout expiry =
+        timeoutTimer.newTimeout(ignored -> expire(connection), timeout, TimeUnit.SECONDS);
+    return new CachedConnection(connection, expiry, permit, this);
   }
 
   /**
    * Get a {@link Connection} instance from the {@link ConnectionCacheService#cache}.
    *
    * @param connectionId The key for the {@link Connection} instance obtained by calling {@link
-   *     ConnectionCacheService#cacheConnection()}.
+   *     ConnectionCacheService#cacheConnection(int, ConcurrencyLimiter.Permit,
+   *     PayloadMemoryBudget.Reservation)}.
    * @return A {@link Connection} instance. If no connection with the id is present return null.
    */
   @Nullable
@@ -61,11 +102,41 @@ public class ConnectionCacheService {
     return cache.get(connectionId);
   }
 
+  /**
+   * Registers a response for which no pending connection exists. The response is counted as
+   * foreign when the connection id carries the node id of another node, as late when the connection
+   * id was issued by this instance, meaning the connection already expired, and as orphaned
+   * otherwise.
+   *
+   * @param connectionId The connection id of the response.
+   */
+  public void registerUnmatchedResponse(final String connectionId) {
+    if (connectionIdGenerator.isForeign(connectionId)) {
+      LOGGER.trace("Ignoring response for connection of another node: {}", connectionId);
+      monitoringService.recordForeignResponse();
+    } else if (connectionIdGenerator.isIssued(connectionId)) {
+      LOGGER.warn("Response received too late for connection with connectionId: {}", connectionId);
+      monitoringService.recordLateResponse();
+    } else {
+      LOGGER.error("No connection found in cache for id: {}", connectionId);
+      monitoringService.recordOrphanedResponse();
+    }
+  }
+
+  private void expire(final Connection connection) {
+    final String connectionId = connection.getConnectionId();
+    if (connection.expire()) {
+      LOGGER.debug("Connection with connectionId: {} expired", connectionId);
+    }
+    cache.remove(connectionId, connection);
+  }
+
   /**
    * Removes a {@link Connection} instance from the {@link ConnectionCacheService#cache}.
    *
    * @param connectionId The key for the {@link Connection} instance obtained by calling {@link
-   *     ConnectionCacheService#cacheConnection()}.
+   *     ConnectionCacheService#cacheConnection(int, ConcurrencyLimiter.Permit,
+   *     PayloadMemoryBudget.Reservation)}.
    */
   private void removeConnection(final String connectionId) {
     LOGGER.debug("Removing connection with connectionId: {}", connectionId);
@@ -74,16 +145,41 @@ public class ConnectionCacheService {
 
   public static class CachedConnection implements AutoCloseable {
     private final Connection connection;
+    private final Timeout expiry;
+    private final ConcurrencyLimiter.Permit permit;
     private final ConnectionCacheService cacheService;
 
-    public CachedConnection(Connection connection, ConnectionCacheService cacheService) {
+    public CachedConnection(
+        Connection connection,
+        Timeout expiry,
+        ConcurrencyLimiter.Permit permit,
+        ConnectionCacheService cacheService) {
       this.connection = connection;
+      this.expiry = expiry;
+      this.permit = permit;
       this.cacheService = cacheService;
     }
 
     @Override
     public void close() {
+      expiry.cancel();
       cacheService.removeConnection(connection.getConnectionId());
+      permit.release(outcome());
+      connection.getReservation().release();
+      // Requests waiting for this connection must not wait for a response which can not arrive.
+      connection.fail(new ProxyServerException("Connection closed before a response was received"));
+    }
+
+    private ConcurrencyLimiter.Outcome outcome() {
+      if (connection.isAnswered()) {
+        return ConcurrencyLimiter.Outcome.ANSWERED;
+      } else if (connection.isExpired()) {
+        return ConcurrencyLimiter.Outcome.TIMED_OUT;
+      } else if (connection.isFailedByPlatform()) {
+        return ConcurrencyLimiter.Outcome.FAILED;
+      } else {
+        return ConcurrencyLimiter.Outcome.IGNORED;
+      }
     }
 
     public Connection getConnection() {
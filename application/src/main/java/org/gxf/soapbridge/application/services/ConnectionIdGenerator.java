@@ -0,0 +1,75 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.concurrent.atomic.AtomicLong;
+import org.gxf.soapbridge.valueobjects.ConnectionIds;
+
+/**
+ * Generates connection ids consisting of a random prefix, drawn once per instance, followed by a
+ * sequence number. This avoids the {@link SecureRandom} contention of {@link
+ * java.util.UUID#randomUUID()} on the hot path, while ids stay unique across instances and
+ * restarts. Responses are signed, so connection ids do not need to be unguessable.
+ *
+ * <p>When a node id is configured, the prefix starts with the node id, so the response can be
+ * routed back to this instance, see {@link ConnectionIds}.
+ */
+class ConnectionIdGenerator {
+
+  private static final char SEPARATOR = '-';
+
+  private final String nodeId;
+
+  private final String prefix;
+
+  private final AtomicLong sequence = new AtomicLong();
+
+  ConnectionIdGenerator() {
+    this("");
+  }
+
+  /**
+   * @param nodeId The id of this node, or an empty string when connection ids do not carry one.
+   * @throws IllegalArgumentException when the node id is not valid.
+   */
+  ConnectionIdGenerator(final String nodeId) {
+    if (!nodeId.isEmpty() && !ConnectionIds.isValidNodeId(nodeId)) {
+      throw new IllegalArgumentException("Invalid node id: " + nodeId);
+    }
+    this.nodeId = nodeId;
+    final byte[] random = new byte[8];
+    new SecureRandom().nextBytes(random);
+    final String nodePrefix = nodeId.isEmpty() ? "" : nodeId + ConnectionIds.NODE_SEPARATOR;
+    prefix = nodePrefix + HexFormat.of().formatHex(random) + SEPARATOR;
+  }
+
+  String nextId() {
+    return prefix + Long.toHexString(sequence.incrementAndGet());
+  }
+
+  /**
+   * Checks whether the given connection id has been generated by this instance.
+   *
+   * @param connectionId The connection id to check.
+   * @return true if this generator created the id.
+   */
+  boolean isIssued(final String connectionId) {
+    return connectionId != null && connectionId.startsWith(prefix);
+  }
+
+  /**
+   * Checks whether the given connection id has been generated by another node. This only looks at
+   * the node id at the start of the connection id, so it is cheap enough to run before a response
+   * is verified.
+   *
+   * @param connectionId The connection id to check.
+   * @return true if the id carries the node id of another node.
+   */
+  boolean isForeign(final String connectionId) {
+    final String owner = ConnectionIds.nodeIdOf(connectionId);
+    return owner != null && !owner.equals(nodeId);
+  }
+}
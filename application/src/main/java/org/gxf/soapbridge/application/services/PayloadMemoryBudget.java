@@ -0,0 +1,187 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicLong;
+import org.gxf.soapbridge.configuration.properties.MemoryBudgetConfigurationProperties;
+import org.gxf.soapbridge.kafka.properties.TopicsConfigurationProperties;
+import org.gxf.soapbridge.kafka.serialization.WireFormat;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * This {@link @Service} class keeps track of the memory held by payloads of pending connections:
+ * the request payload with the queue message holding it, and the response once it is received.
+ * Memory is reserved before a payload is accepted and released when the connection is closed. When
+ * a reservation does not fit in the budget, the payload is rejected.
+ */
+@Service
+public class PayloadMemoryBudget {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PayloadMemoryBudget.class);
+
+  /** Reservation handed out when the budget is disabled. It never runs out. */
+  public static final Reservation UNLIMITED = new Reservation(null, 0);
+
+  private final MemoryBudgetConfigurationProperties configuration;
+
+  /** The format of outgoing queue messages, which determines whether they copy the payload. */
+  private final WireFormat wireFormat;
+
+  private final MonitoringService monitoringService;
+
+  private final AtomicLong reservedBytes = new AtomicLong();
+
+  @Autowired
+  public PayloadMemoryBudget(
+      final MemoryBudgetConfigurationProperties configuration,
+      final TopicsConfigurationProperties topicsConfiguration,
+      final MonitoringService monitoringService) {
+    this(configuration, topicsConfiguration.getOutgoing().getWireFormat(), monitoringService);
+  }
+
+  public PayloadMemoryBudget(
+      final MemoryBudgetConfigurationProperties configuration,
+      final WireFormat wireFormat,
+      final MonitoringService monitoringService) {
+    this.configuration = configuration;
+    this.wireFormat = wireFormat;
+    this.monitoringService = monitoringService;
+  }
+
+  @PostConstruct
+  public void postConstructor() {
+    if (configuration.getEnabled()) {
+      monitoringService.monitorPayloadMemory(
+          reservedBytes::get, () -> configuration.getMaxSize().toBytes());
+    }
+  }
+
+  /**
+   * Reserves memory for the payload of an incoming request. The estimate covers the payload itself
+   * and, in {@link WireFormat#V1}, its Base64 encoded copy in the queue message. A {@link
+   * WireFormat#V2} queue message holds the payload itself.
+   *
+   * @param payloadLength The length of the request payload in bytes, or of its body when it has
+   *     not been read yet.
+   * @return The reservation, or null when the payload does not fit in the budget.
+   */
+  @Nullable
+  public Reservation tryReserveRequest(final int payloadLength) {
+    if (!configuration.getEnabled()) {
+      return UNLIMITED;
+    }
+    final long bytes = requestBytes(payloadLength);
+    if (!tryReserve(bytes)) {
+      return null;
+    }
+    return new Reservation(this, bytes);
+  }
+
+  private long requestBytes(final int payloadLength) {
+    return wireFormat == WireFormat.V1
+        ? payloadLength + base64Length(payloadLength)
+        : payloadLength;
+  }
+
+  private boolean tryReserve(final long bytes) {
+    final long maxBytes = configuration.getMaxSize().toBytes();
+    while (true) {
+      final long current = reservedBytes.get();
+      if (current + bytes > maxBytes) {
+        LOGGER.warn(
+            "Payload of {} bytes does not fit in memory budget, {} of {} bytes in use",
+            bytes,
+            current,
+            maxBytes);
+        monitoringService.recordRejectedPayload();
+        return false;
+      }
+      if (reservedBytes.compareAndSet(current, current + bytes)) {
+        return true;
+      }
+    }
+  }
+
+  private void release(final long bytes) {
+    reservedBytes.addAndGet(-bytes);
+  }
+
+  private static long base64Length(final int length) {
+    return 4L * ((length + 2) / 3);
+  }
+
+  /** Memory reserved for a single connection. Releasing it more than once has no effect. */
+  public static final class Reservation {
+    private static final long RELEASED = -1;
+
+    @Nullable private final PayloadMemoryBudget budget;
+    private final AtomicLong bytes;
+
+    private Reservation(@Nullable final PayloadMemoryBudget budget, final long bytes) {
+      this.budget = budget;
+      this.bytes = new AtomicLong(bytes);
+    }
+
+    /**
+     * Resizes this reservation to the payload of the request, once it has been read and decoded.
+     * The request is reserved for before it is read, using the length of its body, which differs
+     * from the payload when the body is compressed. Must be called before the reservation is
+     * handed over to a connection.
+     *
+     * @param payloadLength The length of the decoded request payload in bytes.
+     * @return false when a payload larger than the body does not fit in the budget.
+     */
+    public boolean tryResizeRequest(final int payloadLength) {
+      if (budget == null) {
+        return true;
+      }
+      final long difference = budget.requestBytes(payloadLength) - bytes.get();
+      if (difference > 0 && !budget.tryReserve(difference)) {
+        return false;
+      }
+      if (difference < 0) {
+        budget.release(-difference);
+      }
+      bytes.addAndGet(difference);
+      return true;
+    }
+
+    /**
+     * Extends this reservation for the response of the connection.
+     *
+     * @param responseLength The length of the response in bytes, encoded as UTF-8.
+     * @return false when the response does not fit in the budget.
+     */
+    public boolean tryExtend(final int responseLength) {
+      if (budget == null) {
+        return true;
+      }
+      if (!budget.tryReserve(responseLength)) {
+        return false;
+      }
+      final long previous =
+          bytes.getAndUpdate(current -> current == RELEASED ? current : current + responseLength);
+      if (previous == RELEASED) {
+        // The connection was closed in the meantime.
+        budget.release(responseLength);
+      }
+      return true;
+    }
+
+    public void release() {
+      if (budget != null) {
+        final long reserved = bytes.getAndSet(RELEASED);
+        if (reserved > 0) {
+          budget.release(reserved);
+        }
+      }
+    }
+  }
+}
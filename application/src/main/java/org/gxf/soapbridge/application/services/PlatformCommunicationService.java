@@ -3,8 +3,15 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.gxf.soapbridge.application.services;
 
+import jakarta.annotation.Nullable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import org.gxf.soapbridge.exceptions.ProxyMessageException;
 import org.gxf.soapbridge.soap.clients.SoapClient;
+import org.gxf.soapbridge.valueobjects.PlatformFailure;
+import org.gxf.soapbridge.valueobjects.PlatformFailure.ErrorClass;
 import org.gxf.soapbridge.valueobjects.ProxyServerRequestMessage;
+import org.gxf.soapbridge.valueobjects.ReceivedMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -21,35 +28,108 @@ public class PlatformCommunicationService {
   /** Service used to sign and/or verify the content of queue messages. */
   private final SigningService signingService;
 
+  /** Queues the requests to GXF per organisation. */
+  private final PlatformDispatcher platformDispatcher;
+
   public PlatformCommunicationService(
-      final SoapClient soapClient, final SigningService signingService) {
+      final SoapClient soapClient,
+      final SigningService signingService,
+      final PlatformDispatcher platformDispatcher) {
     this.soapClient = soapClient;
     this.signingService = signingService;
+    this.platformDispatcher = platformDispatcher;
   }
 
   /**
    * Process an incoming queue message. The content of the message has to be verified by the {@link
    * SigningService}. Then a SOAP message can be sent to GXF using {@link SoapClient}.
    *
-   * @param proxyServerRequestMessage The incoming queue message to process.
+   * @param receivedMessage The incoming queue message to process. It is only decoded when it passes
+   *     verification.
+   * @throws ProxyMessageException when the verified message can not be decoded.
    */
-  public void handleIncomingRequest(final ProxyServerRequestMessage proxyServerRequestMessage) {
+  public void handleIncomingRequest(
+      final ReceivedMessage<ProxyServerRequestMessage> receivedMessage)
+      throws ProxyMessageException {
+    final ProxyServerRequestMessage proxyServerRequestMessage =
+        verifyIncomingRequest(receivedMessage);
+    if (proxyServerRequestMessage != null) {
+      sendRequest(proxyServerRequestMessage);
+    }
+  }
 
-    final String proxyServerRequestMessageAsString = proxyServerRequestMessage.constructString();
-    final String securityKey = proxyServerRequestMessage.getSignature();
+  /**
+   * Process an incoming queue message like {@link #handleIncomingRequest(ReceivedMessage)}, but
+   * wait until the response of GXF has been sent to Kafka.
+   *
+   * @param receivedMessage The incoming queue message to process.
+   * @throws ProxyMessageException when the verified message can not be decoded.
+   */
+  public void handleIncomingRequestSynchronously(
+      final ReceivedMessage<ProxyServerRequestMessage> receivedMessage)
+      throws ProxyMessageException {
+    final ProxyServerRequestMessage proxyServerRequestMessage =
+        verifyIncomingRequest(receivedMessage);
+    if (proxyServerRequestMessage != null) {
+      sendRequest(proxyServerRequestMessage).join();
+    }
+  }
 
+  /**
+   * Verifies an incoming queue message with the {@link SigningService} and decodes it. This does
+   * not depend on other messages, so messages of a batch can be verified in parallel.
+   *
+   * @param receivedMessage The incoming queue message to verify.
+   * @return The decoded message, or null when it fails to pass the security check.
+   * @throws ProxyMessageException when the verified message can not be decoded.
+   */
+  @Nullable
+  public ProxyServerRequestMessage verifyIncomingRequest(
+      final ReceivedMessage<ProxyServerRequestMessage> receivedMessage)
+      throws ProxyMessageException {
     final boolean isValid =
-        signingService.verifyContent(proxyServerRequestMessageAsString, securityKey);
+        signingService.verifyContent(
+            receivedMessage.getSignedContent(), receivedMessage.getSignature());
     if (!isValid) {
       LOGGER.error("ProxyServerRequestMessage failed to pass security check.");
-      return;
+      return null;
     }
+    return receivedMessage.decode();
+  }
+
+  /**
+   * Sends verified messages to GXF using {@link SoapClient}, in the order in which they were
+   * received.
+   *
+   * @param proxyServerRequestMessages Messages obtained from {@link
+   *     #verifyIncomingRequest(ReceivedMessage)}.
+   */
+  public void handleIncomingRequests(
+      final List<ProxyServerRequestMessage> proxyServerRequestMessages) {
+    proxyServerRequestMessages.forEach(this::sendRequest);
+  }
 
+  /**
+   * Sends the message through the {@link PlatformDispatcher}. A message rejected by the dispatcher
+   * is answered with a {@link PlatformFailure}, so the client application does not wait for its
+   * time-out.
+   *
+   * @return A future which completes when the response has been sent to Kafka.
+   */
+  private CompletableFuture<Void> sendRequest(
+      final ProxyServerRequestMessage proxyServerRequestMessage) {
     final String connectionId = proxyServerRequestMessage.getConnectionId();
     final String context = proxyServerRequestMessage.getContext();
     final String commonName = proxyServerRequestMessage.getCommonName();
-    final String soapPayload = proxyServerRequestMessage.getSoapPayload();
+    final byte[] soapPayload = proxyServerRequestMessage.getSoapPayload();
 
-    soapClient.sendRequest(connectionId, context, commonName, soapPayload);
+    final CompletableFuture<Void> finished =
+        platformDispatcher.dispatch(
+            commonName,
+            () -> soapClient.sendRequest(connectionId, context, commonName, soapPayload));
+    if (finished == null) {
+      return soapClient.sendFailure(connectionId, new PlatformFailure(ErrorClass.OVERLOADED));
+    }
+    return finished;
   }
 }
@@ -0,0 +1,212 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import jakarta.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import org.gxf.soapbridge.configuration.properties.DispatchConfigurationProperties;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+/**
+ * This {@link @Service} class dispatches requests to the platform from a queue per organisation.
+ * The number of requests waiting for the platform is limited, in total and per organisation; the
+ * queues are served by start-time fair queueing, in proportion to the weights of the
+ * organisations. An organisation sending many requests therefore only delays its own requests.
+ */
+@Service
+public class PlatformDispatcher {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PlatformDispatcher.class);
+
+  /** The organisation of requests without a common name. */
+  private static final String WITHOUT_COMMON_NAME = "none";
+
+  private final DispatchConfigurationProperties configuration;
+
+  private final MonitoringService monitoringService;
+
+  private final LongSupplier nanoTime;
+
+  /** The queues by organisation, guarded by this. */
+  private final Map<String, OrganisationQueue> queues = new HashMap<>();
+
+  /** The number of dispatched requests which have not completed, guarded by this. */
+  private int inFlight;
+
+  /** The start tag of the request dispatched last, guarded by this. */
+  private double virtualTime;
+
+  @Autowired
+  public PlatformDispatcher(
+      final DispatchConfigurationProperties configuration,
+      final MonitoringService monitoringService) {
+    this(configuration, monitoringService, System::nanoTime);
+  }
+
+  PlatformDispatcher(
+      final DispatchConfigurationProperties configuration,
+      final MonitoringService monitoringService,
+      final LongSupplier nanoTime) {
+    this.configuration = configuration;
+    this.monitoringService = monitoringService;
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * Queues a request to the platform, and sends it when it is its turn.
+   *
+   * @param commonName The common name of the organisation sending the request.
+   * @param request Sends the request, returning a future which completes when the request is
+   *     finished.
+   * @return A future which completes when the request is finished, or null when the queue of the
+   *     organisation is full and the request is rejected.
+   */
+  @Nullable
+  public CompletableFuture<Void> dispatch(
+      final String commonName, final Supplier<CompletableFuture<Void>> request) {
+    if (!configuration.getEnabled()) {
+      return request.get();
+    }
+    final String organisation =
+        StringUtils.hasText(commonName) ? commonName : WITHOUT_COMMON_NAME;
+    final QueuedRequest queuedRequest;
+    final List<QueuedRequest> dispatchable;
+    synchronized (this) {
+      final OrganisationQueue queue = queues.computeIfAbsent(organisation, this::createQueue);
+      if (queue.requests.size() >= configuration.getMaxQueueSize()) {
+        LOGGER.warn("Queue of organisation {} is full, rejecting request", organisation);
+        monitoringService.recordDispatchRejected(organisation);
+        return null;
+      }
+      final double startTag = Math.max(virtualTime, queue.finishTag);
+      queue.finishTag = startTag + 1.0 / queue.weight;
+      queuedRequest = new QueuedRequest(queue, request, startTag, nanoTime.getAsLong());
+      queue.requests.add(queuedRequest);
+      dispatchable = takeDispatchable();
+    }
+    send(dispatchable);
+    return queuedRequest.finished;
+  }
+
+  private OrganisationQueue createQueue(final String organisation) {
+    final OrganisationQueue queue =
+        new OrganisationQueue(organisation, Math.max(1, configuration.weightOf(organisation)));
+    monitoringService.monitorDispatchQueue(organisation, () -> queuedRequests(queue));
+    return queue;
+  }
+
+  private synchronized int queuedRequests(final OrganisationQueue queue) {
+    return queue.requests.size();
+  }
+
+  /**
+   * Takes the requests which may be sent now: repeatedly the request with the lowest start tag of
+   * the organisations below their limit, until the total limit is reached.
+   */
+  private List<QueuedRequest> takeDispatchable() {
+    final List<QueuedRequest> dispatchable = new ArrayList<>();
+    while (inFlight < configuration.getMaxConcurrency()) {
+      OrganisationQueue next = null;
+      for (final OrganisationQueue queue : queues.values()) {
+        if (!queue.requests.isEmpty()
+            && queue.inFlight < configuration.getMaxConcurrencyPerOrganisation()
+            && (next == null || queue.requests.peek().startTag < next.requests.peek().startTag)) {
+          next = queue;
+        }
+      }
+      if (next == null) {
+        break;
+      }
+      final QueuedRequest request = next.requests.poll();
+      virtualTime = request.startTag;
+      next.inFlight++;
+      inFlight++;
+      dispatchable.add(request);
+    }
+    return dispatchable;
+  }
+
+  /**
+   * Sends the requests, and the requests which may be sent when they finish. Requests finishing
+   * right away are handled in this loop instead of recursively.
+   */
+  private void send(final List<QueuedRequest> requests) {
+    final Deque<QueuedRequest> pending = new ArrayDeque<>(requests);
+    while (!pending.isEmpty()) {
+      final QueuedRequest request = pending.poll();
+      final CompletableFuture<Void> finished = start(request);
+      if (finished.isDone()) {
+        request.finished.complete(null);
+        pending.addAll(release(request.queue));
+      } else {
+        finished.whenComplete(
+            (result, failure) -> {
+              request.finished.complete(null);
+              send(release(request.queue));
+            });
+      }
+    }
+  }
+
+  private CompletableFuture<Void> start(final QueuedRequest request) {
+    monitoringService.recordDispatchWait(
+        request.queue.organisation, nanoTime.getAsLong() - request.queuedAt);
+    try {
+      return request.request.get();
+    } catch (final RuntimeException e) {
+      LOGGER.error("Unexpected exception while dispatching request", e);
+      return CompletableFuture.completedFuture(null);
+    }
+  }
+
+  private synchronized List<QueuedRequest> release(final OrganisationQueue queue) {
+    queue.inFlight--;
+    inFlight--;
+    return takeDispatchable();
+  }
+
+  private static final class OrganisationQueue {
+    private final String organisation;
+    private final int weight;
+    private final Deque<QueuedRequest> requests = new ArrayDeque<>();
+    private int inFlight;
+
+    /** The finish tag of the request queued last. */
+    private double finishTag;
+
+    private OrganisationQueue(final String organisation, final int weight) {
+      this.organisation = organisation;
+      this.weight = weight;
+    }
+  }
+
+  private record QueuedRequest(
+      OrganisationQueue queue,
+      Supplier<CompletableFuture<Void>> request,
+      double startTag,
+      long queuedAt,
+      CompletableFuture<Void> finished) {
+
+    private QueuedRequest(
+        final OrganisationQueue queue,
+        final Supplier<CompletableFuture<Void>> request,
+        final double startTag,
+        final long queuedAt) {
+      this(queue, request, startTag, queuedAt, new CompletableFuture<>());
+    }
+  }
+}
@@ -0,0 +1,94 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import jakarta.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.gxf.soapbridge.configuration.properties.CoalescingConfigurationProperties;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.gxf.soapbridge.soap.clients.Connection;
+import org.gxf.soapbridge.valueobjects.SoapOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * This {@link @Service} class keeps track of the connections of requests which may be coalesced.
+ * An identical request, with the same organisation, context and payload, arriving while such a
+ * connection waits for its response is answered with the response of that connection, so one
+ * round trip to the platform answers all of them.
+ *
+ * <p>Two identical requests arriving at exactly the same time may both be sent to the platform;
+ * coalescing only saves work, it does not guarantee a single call.
+ */
+@Service
+public class RequestCoalescer {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RequestCoalescer.class);
+
+  private final CoalescingConfigurationProperties configuration;
+
+  private final MonitoringService monitoringService;
+
+  /** Connections waiting for a response, by the digest of their request. */
+  private final Map<String, Connection> inFlight = new ConcurrentHashMap<>();
+
+  public RequestCoalescer(
+      final CoalescingConfigurationProperties configuration,
+      final MonitoringService monitoringService) {
+    this.configuration = configuration;
+    this.monitoringService = monitoringService;
+  }
+
+  /**
+   * Determines the key identifying identical requests.
+   *
+   * @return The key, or null when coalescing is not enabled for the operation.
+   */
+  @Nullable
+  public String keyFor(
+      final SoapOperation operation,
+      final String organisationName,
+      final String context,
+      final byte[] soapPayload) {
+    if (!configuration.getOperations().contains(operation.getName())) {
+      return null;
+    }
+    return RequestDigest.of(organisationName, context, soapPayload);
+  }
+
+  /**
+   * Finds the connection of an identical request waiting for its response.
+   *
+   * @param operation The SOAP operation of the request, used for metrics.
+   * @param key The key obtained from {@link #keyFor(SoapOperation, String, String, byte[])}.
+   * @return The connection to wait for, or null when no identical request is in flight.
+   */
+  @Nullable
+  public Connection findInFlight(final SoapOperation operation, final String key) {
+    final Connection connection = inFlight.get(key);
+    monitoringService.recordCoalescing(operation, connection != null);
+    if (connection != null) {
+      LOGGER.debug(
+          "Coalescing request with connection with connectionId: {}",
+          connection.getConnectionId());
+    }
+    return connection;
+  }
+
+  /**
+   * Makes the connection available to identical requests until it is completed.
+   *
+   * @param key The key obtained from {@link #keyFor(SoapOperation, String, String, byte[])}.
+   * @param connection The connection of the request sent to the platform.
+   */
+  public void register(final String key, final Connection connection) {
+    if (inFlight.putIfAbsent(key, connection) == null) {
+      connection
+          .getResponse()
+          .whenComplete((response, failure) -> inFlight.remove(key, connection));
+    }
+  }
+}
@@ -0,0 +1,40 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/** Computes a digest identifying requests with the same organisation, context and payload. */
+final class RequestDigest {
+
+  private static final String DIGEST_ALGORITHM = "SHA-256";
+
+  private RequestDigest() {}
+
+  static String of(final String organisationName, final String context, final byte[] soapPayload) {
+    final MessageDigest digest = createDigest();
+    update(digest, organisationName.getBytes(StandardCharsets.UTF_8));
+    update(digest, context.getBytes(StandardCharsets.UTF_8));
+    update(digest, soapPayload);
+    return HexFormat.of().formatHex(digest.digest());
+  }
+
+  private static MessageDigest createDigest() {
+    try {
+      return MessageDigest.getInstance(DIGEST_ALGORITHM);
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(DIGEST_ALGORITHM + " is not available", e);
+    }
+  }
+
+  /** Adds the length before the bytes, so field boundaries can not be shifted. */
+  private static void update(final MessageDigest digest, final byte[] bytes) {
+    digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+    digest.update(bytes);
+  }
+}
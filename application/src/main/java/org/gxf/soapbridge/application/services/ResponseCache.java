@@ -0,0 +1,209 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import org.gxf.soapbridge.configuration.properties.ResponseCacheConfigurationProperties;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.gxf.soapbridge.soap.clients.Connection;
+import org.gxf.soapbridge.valueobjects.SoapOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * This {@link @Service} class caches the responses to requests of read-only operations, so client
+ * applications polling for the same information are answered without a round trip to the
+ * platform. Responses are cached by organisation, context and request payload, ignoring whitespace
+ * between elements, for the time to live configured for the operation. When the cache is full, the
+ * least recently used responses are evicted.
+ *
+ * <p>SOAP faults and responses which are not SOAP envelopes, like the result of a failed security
+ * check, are not cached.
+ */
+@Service
+public class ResponseCache {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ResponseCache.class);
+
+  private static final String EXPIRED = "expired";
+  private static final String SIZE = "size";
+
+  private final ResponseCacheConfigurationProperties configuration;
+
+  private final MonitoringService monitoringService;
+
+  private final LongSupplier nanoTime;
+
+  /** Cached responses in least recently used order, guarded by this. */
+  private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /** Total size of the cached responses, guarded by this. */
+  private long size;
+
+  @Autowired
+  public ResponseCache(
+      final ResponseCacheConfigurationProperties configuration,
+      final MonitoringService monitoringService) {
+    this(configuration, monitoringService, System::nanoTime);
+  }
+
+  ResponseCache(
+      final ResponseCacheConfigurationProperties configuration,
+      final MonitoringService monitoringService,
+      final LongSupplier nanoTime) {
+    this.configuration = configuration;
+    this.monitoringService = monitoringService;
+    this.nanoTime = nanoTime;
+  }
+
+  @PostConstruct
+  public void postConstructor() {
+    if (!configuration.getTimeToLive().isEmpty()) {
+      monitoringService.monitorResponseCacheSize(this::size);
+    }
+  }
+
+  /**
+   * Determines the key of the response to a request.
+   *
+   * @return The key, or null when responses to the operation are not cached.
+   */
+  @Nullable
+  public String keyFor(
+      final SoapOperation operation,
+      final String organisationName,
+      final String context,
+      final byte[] soapPayload) {
+    if (!configuration.getTimeToLive().containsKey(operation.getName())) {
+      return null;
+    }
+    return RequestDigest.of(organisationName, context, normalize(soapPayload));
+  }
+
+  /**
+   * Finds a cached response which has not expired.
+   *
+   * @param operation The SOAP operation of the request, used for metrics.
+   * @param key The key obtained from {@link #keyFor(SoapOperation, String, String, byte[])}.
+   * @return The cached response, or null when there is none.
+   */
+  @Nullable
+  public String find(final SoapOperation operation, final String key) {
+    final String response = lookup(key);
+    monitoringService.recordResponseCacheLookup(operation, response != null);
+    return response;
+  }
+
+  /**
+   * Caches the response of the connection once it is answered.
+   *
+   * @param operation The SOAP operation of the request, which determines the time to live.
+   * @param key The key obtained from {@link #keyFor(SoapOperation, String, String, byte[])}.
+   * @param connection The connection of the request sent to the platform.
+   */
+  public void cacheWhenAnswered(
+      final SoapOperation operation, final String key, final Connection connection) {
+    final Duration timeToLive = configuration.getTimeToLive().get(operation.getName());
+    connection
+        .getResponse()
+        .thenAccept(
+            response -> {
+              if (isCacheable(response)) {
+                put(key, new Entry(response, nanoTime.getAsLong() + timeToLive.toNanos()));
+              }
+            });
+  }
+
+  private synchronized String lookup(final String key) {
+    final Entry entry = entries.get(key);
+    if (entry == null) {
+      return null;
+    }
+    if (entry.isExpired(nanoTime.getAsLong())) {
+      remove(key, entry, EXPIRED);
+      return null;
+    }
+    return entry.response();
+  }
+
+  private synchronized void put(final String key, final Entry entry) {
+    final long maxSize = configuration.getMaxSize().toBytes();
+    if (entry.size() > maxSize) {
+      LOGGER.debug("Response of {} bytes is too large to cache", entry.size());
+      return;
+    }
+    final Entry previous = entries.put(key, entry);
+    if (previous != null) {
+      size -= previous.size();
+    }
+    size += entry.size();
+
+    final long now = nanoTime.getAsLong();
+    final Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+    while (size > maxSize && iterator.hasNext()) {
+      final Entry eldest = iterator.next().getValue();
+      iterator.remove();
+      size -= eldest.size();
+      monitoringService.recordResponseCacheEviction(eldest.isExpired(now) ? EXPIRED : SIZE);
+    }
+  }
+
+  private void remove(final String key, final Entry entry, final String cause) {
+    entries.remove(key);
+    size -= entry.size();
+    monitoringService.recordResponseCacheEviction(cause);
+  }
+
+  private synchronized long size() {
+    return size;
+  }
+
+  private static boolean isCacheable(final String response) {
+    return response != null && response.contains("Envelope") && !response.contains("Fault>");
+  }
+
+  /** Removes whitespace between elements, which does not change the meaning of the request. */
+  private static byte[] normalize(final byte[] soapPayload) {
+    final ByteArrayOutputStream normalized = new ByteArrayOutputStream(soapPayload.length);
+    int i = 0;
+    while (i < soapPayload.length) {
+      final byte b = soapPayload[i];
+      normalized.write(b);
+      i++;
+      if (b == '>') {
+        int next = i;
+        while (next < soapPayload.length && isWhitespace(soapPayload[next])) {
+          next++;
+        }
+        if (next == soapPayload.length || soapPayload[next] == '<') {
+          i = next;
+        }
+      }
+    }
+    return normalized.toByteArray();
+  }
+
+  private static boolean isWhitespace(final byte b) {
+    return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+  }
+
+  private record Entry(String response, long expiresAt) {
+    boolean isExpired(final long now) {
+      return now - expiresAt >= 0;
+    }
+
+    long size() {
+      return response.length();
+    }
+  }
+}
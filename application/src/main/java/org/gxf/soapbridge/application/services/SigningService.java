@@ -3,12 +3,17 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.gxf.soapbridge.application.services;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
-import java.security.Signature;
 import java.util.HexFormat;
-import org.gxf.soapbridge.configuration.properties.SecurityConfigurationProperties;
-import org.gxf.soapbridge.configuration.properties.SigningConfigurationProperties;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import org.gxf.soapbridge.application.signing.BatchSigner;
+import org.gxf.soapbridge.application.signing.MerkleProof;
+import org.gxf.soapbridge.application.signing.SigningEngine;
 import org.gxf.soapbridge.soap.exceptions.ProxyServerException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,16 +21,35 @@ import org.springframework.stereotype.Service;
 
 /**
  * This {@link @Service} class can generate a signature for a given content, and verify the content
- * using the signature.
+ * using the signature. The cryptography is done by the {@link SigningEngine}.
+ *
+ * <p>When batch signing is enabled, content is signed as part of a group by the {@link
+ * BatchSigner}. Signatures of both kinds are always verified. The root signatures of recently
+ * verified groups are cached, so only the first message of a group costs a signature
+ * verification.
  */
 @Service
 public class SigningService {
-  private final SigningConfigurationProperties signingConfiguration;
+  private final SigningEngine signingEngine;
+
+  private final BatchSigner batchSigner;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SigningService.class);
 
-  public SigningService(final SecurityConfigurationProperties securityConfiguration) {
-    signingConfiguration = securityConfiguration.getSigning();
+  private static final int VERIFIED_ROOTS_CACHE_SIZE = 1024;
+
+  /** Signatures of recently verified roots, by root, guarded by itself. */
+  private final Map<String, String> verifiedRoots =
+      new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+          return size() > VERIFIED_ROOTS_CACHE_SIZE;
+        }
+      };
+
+  public SigningService(final SigningEngine signingEngine, final BatchSigner batchSigner) {
+    this.signingEngine = signingEngine;
+    this.batchSigner = batchSigner;
   }
 
   /**
@@ -37,9 +61,25 @@ public class SigningService {
    * @throws ProxyServerException thrown when an error occurs during signing.
    */
   public String signContent(final String content) throws ProxyServerException {
-    final byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+    return signContent(List.of(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8))));
+  }
+
+  /**
+   * Create a signature over content consisting of several parts, as if the parts were concatenated.
+   * The parts are fed to the signature one by one, so they do not have to be copied into a single
+   * array. When batch signing is enabled, this blocks until the group of the content is signed,
+   * which takes up to the configured window.
+   *
+   * @param content The parts of the content to sign. The buffers themselves are not modified.
+   * @return The signature as hexadecimal string.
+   * @throws ProxyServerException thrown when an error occurs during signing.
+   */
+  public String signContent(final List<ByteBuffer> content) throws ProxyServerException {
+    if (batchSigner.isEnabled()) {
+      return signContentInBatch(content);
+    }
     try {
-      final byte[] signature = createSignature(bytes);
+      final byte[] signature = createSignature(content);
       LOGGER.debug("signature.length: {}", signature.length);
       return HexFormat.of().formatHex(signature);
     } catch (final GeneralSecurityException e) {
@@ -57,11 +97,28 @@ public class SigningService {
    * @return True when the verification succeeds.
    */
   public boolean verifyContent(final String content, final String securityKey) {
-    final byte[] contentBytes = content.getBytes(StandardCharsets.UTF_8);
+    return verifyContent(
+        List.of(ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8))), securityKey);
+  }
+
+  /**
+   * For the given content consisting of several parts and security key, verify if the content is
+   * intact and unaltered. The parts are fed to the signature one by one, as if they were
+   * concatenated.
+   *
+   * @param content The parts of the content to verify. The buffers themselves are not modified.
+   * @param securityKey The signature a.k.a. security key which was created using {@link
+   *     SigningService#signContent(List)}.
+   * @return True when the verification succeeds.
+   */
+  public boolean verifyContent(final List<ByteBuffer> content, final String securityKey) {
+    if (MerkleProof.isMerkleProof(securityKey)) {
+      return verifyContentInBatch(content, securityKey);
+    }
     final byte[] securityKeyBytes = HexFormat.of().parseHex(securityKey);
     LOGGER.debug("securityKeyBytes.length: {}", securityKeyBytes.length);
     try {
-      return validateSignature(contentBytes, securityKeyBytes);
+      return validateSignature(content, securityKeyBytes);
     } catch (final GeneralSecurityException e) {
       LOGGER.error(
           "Unexpected GeneralSecurityException when trying to verify the content using the security key",
@@ -70,22 +127,73 @@ public class SigningService {
     }
   }
 
-  private byte[] createSignature(final byte[] message) throws GeneralSecurityException {
-    final Signature signatureBuilder =
-        Signature.getInstance(
-            signingConfiguration.getSignature(), signingConfiguration.getProvider());
-    signatureBuilder.initSign(signingConfiguration.getSignKey());
-    signatureBuilder.update(message);
-    return signatureBuilder.sign();
+  private String signContentInBatch(final List<ByteBuffer> content) throws ProxyServerException {
+    try {
+      return batchSigner.sign(content).get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ProxyServerException("Interrupted while waiting for the signature of the group", e);
+    } catch (final ExecutionException e) {
+      throw new ProxyServerException(
+          "Unexpected exception when trying to sign the group", e.getCause());
+    }
+  }
+
+  private boolean verifyContentInBatch(final List<ByteBuffer> content, final String securityKey) {
+    final MerkleProof proof;
+    try {
+      proof = MerkleProof.decode(securityKey);
+    } catch (final IllegalArgumentException e) {
+      LOGGER.error("Invalid Merkle proof", e);
+      return false;
+    }
+    final List<ByteBuffer> rootContent = proof.rootContentFor(content);
+    if (rootContent == null) {
+      LOGGER.error("Merkle proof does not fit the size of the group");
+      return false;
+    }
+    final HexFormat hex = HexFormat.of();
+    final String rootKey = toHex(rootContent);
+    final String rootSignature = hex.formatHex(proof.rootSignature());
+    synchronized (verifiedRoots) {
+      if (rootSignature.equals(verifiedRoots.get(rootKey))) {
+        return true;
+      }
+    }
+    try {
+      final boolean valid =
+          signingEngine.verify(rootContent, proof.rootSignature());
+      if (valid) {
+        synchronized (verifiedRoots) {
+          verifiedRoots.put(rootKey, rootSignature);
+        }
+      }
+      return valid;
+    } catch (final GeneralSecurityException e) {
+      LOGGER.error(
+          "Unexpected GeneralSecurityException when trying to verify the signature of the group",
+          e);
+      return false;
+    }
+  }
+
+  private static String toHex(final List<ByteBuffer> content) {
+    final StringBuilder hex = new StringBuilder();
+    for (final ByteBuffer part : content) {
+      final ByteBuffer copy = part.duplicate();
+      final byte[] bytes = new byte[copy.remaining()];
+      copy.get(bytes);
+      hex.append(HexFormat.of().formatHex(bytes));
+    }
+    return hex.toString();
+  }
+
+  private byte[] createSignature(final List<ByteBuffer> message) throws GeneralSecurityException {
+    return signingEngine.sign(message);
   }
 
-  private boolean validateSignature(final byte[] message, final byte[] securityKey)
+  private boolean validateSignature(final List<ByteBuffer> message, final byte[] securityKey)
       throws GeneralSecurityException {
-    final Signature signatureBuilder =
-        Signature.getInstance(
-            signingConfiguration.getSignature(), signingConfiguration.getProvider());
-    signatureBuilder.initVerify(signingConfiguration.getVerifyKey());
-    signatureBuilder.update(message);
-    return signatureBuilder.verify(securityKey);
+    return signingEngine.verify(message, securityKey);
   }
 }
@@ -0,0 +1,124 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import jakarta.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.gxf.soapbridge.configuration.properties.SoapConfigurationProperties;
+import org.gxf.soapbridge.valueobjects.SoapOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * This {@link @Service} class determines the {@link SoapOperation} of an incoming request. The
+ * payload is read with StAX up to the first child element of the SOAP Body, so only the envelope
+ * header is parsed. When the payload cannot be parsed, the last segment of the {@code SOAPAction}
+ * header is used instead.
+ */
+@Service
+public class SoapOperationClassifier {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SoapOperationClassifier.class);
+
+  public static final String SOAP_ACTION_HEADER = "SOAPAction";
+
+  private static final String SOAP_BODY = "Body";
+
+  /**
+   * Upper bound on the number of distinct operations that are kept. Operations are used as metric
+   * tags, so the number of distinct values must stay limited.
+   */
+  private static final int MAX_OPERATIONS = 256;
+
+  private final XMLInputFactory xmlInputFactory;
+
+  /** Known operations by name. Pre-filled with the operations that have a custom time-out. */
+  private final ConcurrentHashMap<String, SoapOperation> operations = new ConcurrentHashMap<>();
+
+  public SoapOperationClassifier(final SoapConfigurationProperties soapConfiguration) {
+    xmlInputFactory = XMLInputFactory.newFactory();
+    xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    soapConfiguration
+        .getCustomTimeouts()
+        .keySet()
+        .forEach(name -> operations.put(name, new SoapOperation(name)));
+  }
+
+  /**
+   * Determines the operation of a SOAP request.
+   *
+   * @param soapAction The value of the {@code SOAPAction} header, may be null.
+   * @param soapPayload The SOAP payload.
+   * @return The operation, or {@link SoapOperation#UNKNOWN} if it cannot be determined.
+   */
+  public SoapOperation classify(@Nullable final String soapAction, final byte[] soapPayload) {
+    String name = readFirstBodyElement(soapPayload);
+    if (name == null) {
+      name = lastSegmentOf(soapAction);
+    }
+    if (name == null) {
+      return SoapOperation.UNKNOWN;
+    }
+    final SoapOperation operation = operations.get(name);
+    if (operation != null) {
+      return operation;
+    }
+    if (operations.size() >= MAX_OPERATIONS) {
+      LOGGER.debug("Maximum number of distinct operations reached, not registering: {}", name);
+      return SoapOperation.UNKNOWN;
+    }
+    return operations.computeIfAbsent(name, SoapOperation::new);
+  }
+
+  @Nullable
+  private String readFirstBodyElement(final byte[] soapPayload) {
+    XMLStreamReader reader = null;
+    try {
+      reader = xmlInputFactory.createXMLStreamReader(new ByteArrayInputStream(soapPayload));
+      boolean inBody = false;
+      while (reader.hasNext()) {
+        if (reader.next() == XMLStreamConstants.START_ELEMENT) {
+          if (inBody) {
+            return reader.getLocalName();
+          }
+          inBody = SOAP_BODY.equals(reader.getLocalName());
+        }
+      }
+    } catch (final XMLStreamException e) {
+      LOGGER.debug("Unable to read SOAP operation from payload: {}", e.getMessage());
+    } finally {
+      close(reader);
+    }
+    return null;
+  }
+
+  @Nullable
+  private static String lastSegmentOf(@Nullable final String soapAction) {
+    if (soapAction == null) {
+      return null;
+    }
+    final String action = soapAction.replace("\"", "").trim();
+    final int separator =
+        Math.max(action.lastIndexOf('/'), Math.max(action.lastIndexOf('#'), action.lastIndexOf(':')));
+    final String name = action.substring(separator + 1);
+    return name.isEmpty() ? null : name;
+  }
+
+  private static void close(@Nullable final XMLStreamReader reader) {
+    if (reader != null) {
+      try {
+        reader.close();
+      } catch (final XMLStreamException e) {
+        LOGGER.debug("Unable to close XML stream reader", e);
+      }
+    }
+  }
+}
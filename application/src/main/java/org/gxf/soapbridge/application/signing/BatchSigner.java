@@ -0,0 +1,120 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.signing;
+
+import jakarta.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.gxf.soapbridge.configuration.properties.BatchSigningConfigurationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Signs messages in groups. The messages signed within the configured window, or until the group
+ * is full, form a group; the root of the Merkle tree of the group is signed once, and each message
+ * receives a {@link MerkleProof} as its signature.
+ */
+@Component
+public class BatchSigner {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(BatchSigner.class);
+
+  private final SigningEngine signingEngine;
+
+  private final BatchSigningConfigurationProperties configuration;
+
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          Thread.ofPlatform().name("batch-signer").daemon().factory());
+
+  /** The messages of the group being collected, guarded by this. */
+  private List<PendingMessage> group = new ArrayList<>();
+
+  /** Identifies the group being collected, so a window does not close a later group. */
+  private long groupNumber;
+
+  public BatchSigner(
+      final SigningEngine signingEngine, final BatchSigningConfigurationProperties configuration) {
+    this.signingEngine = signingEngine;
+    this.configuration = configuration;
+  }
+
+  public boolean isEnabled() {
+    return configuration.getEnabled();
+  }
+
+  @PreDestroy
+  public void preDestroy() {
+    scheduler.shutdown();
+  }
+
+  /**
+   * Adds a message to the group being collected.
+   *
+   * @param content The parts of the content to sign.
+   * @return A future completing with the encoded {@link MerkleProof} once the group is signed.
+   */
+  public CompletableFuture<String> sign(final List<ByteBuffer> content) {
+    final PendingMessage message =
+        new PendingMessage(MerkleTree.leafHash(content), new CompletableFuture<>());
+    List<PendingMessage> fullGroup = null;
+    synchronized (this) {
+      group.add(message);
+      if (group.size() >= configuration.getMaxSize()) {
+        fullGroup = takeGroup();
+      } else if (group.size() == 1) {
+        final long number = groupNumber;
+        scheduler.schedule(
+            () -> closeWindow(number), configuration.getWindow().toNanos(), TimeUnit.NANOSECONDS);
+      }
+    }
+    if (fullGroup != null) {
+      signGroup(fullGroup);
+    }
+    return message.signature();
+  }
+
+  private void closeWindow(final long number) {
+    final List<PendingMessage> closedGroup;
+    synchronized (this) {
+      if (number != groupNumber) {
+        // The group was signed when it was full.
+        return;
+      }
+      closedGroup = takeGroup();
+    }
+    signGroup(closedGroup);
+  }
+
+  private List<PendingMessage> takeGroup() {
+    final List<PendingMessage> taken = group;
+    group = new ArrayList<>();
+    groupNumber++;
+    return taken;
+  }
+
+  private void signGroup(final List<PendingMessage> messages) {
+    try {
+      final MerkleTree tree =
+          MerkleTree.of(messages.stream().map(PendingMessage::leafHash).toList());
+      final byte[] rootSignature = signingEngine.sign(MerkleTree.rootContent(tree.root()));
+      LOGGER.debug("Signed group of {} messages", messages.size());
+      for (int i = 0; i < messages.size(); i++) {
+        final MerkleProof proof = new MerkleProof(rootSignature, i, messages.size(), tree.path(i));
+        messages.get(i).signature().complete(proof.encode());
+      }
+    } catch (final GeneralSecurityException | RuntimeException e) {
+      messages.forEach(message -> message.signature().completeExceptionally(e));
+    }
+  }
+
+  private record PendingMessage(byte[] leafHash, CompletableFuture<String> signature) {}
+}
@@ -0,0 +1,82 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.signing;
+
+import jakarta.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * The signature of a message signed as part of a group: the signature of the root of the Merkle
+ * tree of the group, and the proof that the message is included in that tree. It is sent in place
+ * of the signature of the message, in the form {@code mk1.<root signature>.<index>.<size>.<path>},
+ * which can not be mistaken for the hexadecimal signature of a single message.
+ *
+ * @param rootSignature The signature of the root.
+ * @param index The index of the message in the group.
+ * @param size The number of messages in the group.
+ * @param path The hashes of the siblings on the path from the message to the root.
+ */
+public record MerkleProof(byte[] rootSignature, int index, int size, List<byte[]> path) {
+
+  private static final String PREFIX = "mk1.";
+  private static final int HASH_LENGTH = 32;
+  private static final int MAX_PATH_LENGTH = 31;
+
+  public static boolean isMerkleProof(final String signature) {
+    return signature.startsWith(PREFIX);
+  }
+
+  /**
+   * Computes the root of the group from the content of the message and this proof.
+   *
+   * @param content The parts of the signed content of the message.
+   * @return The content which must be verified with the {@link #rootSignature()}, or null when the
+   *     proof does not fit the size of the group.
+   */
+  @Nullable
+  public List<ByteBuffer> rootContentFor(final List<ByteBuffer> content) {
+    final byte[] root = MerkleTree.rootFromPath(MerkleTree.leafHash(content), index, size, path);
+    return root == null ? null : MerkleTree.rootContent(root);
+  }
+
+  public String encode() {
+    final HexFormat hex = HexFormat.of();
+    final StringBuilder encoded =
+        new StringBuilder(PREFIX)
+            .append(hex.formatHex(rootSignature))
+            .append('.')
+            .append(index)
+            .append('.')
+            .append(size)
+            .append('.');
+    path.forEach(hash -> encoded.append(hex.formatHex(hash)));
+    return encoded.toString();
+  }
+
+  /**
+   * @throws IllegalArgumentException when the signature is not a valid Merkle proof.
+   */
+  public static MerkleProof decode(final String signature) {
+    final String[] fields = signature.substring(PREFIX.length()).split("\\.", -1);
+    if (fields.length != 4) {
+      throw new IllegalArgumentException("Invalid number of fields in Merkle proof");
+    }
+    final HexFormat hex = HexFormat.of();
+    final byte[] pathBytes = hex.parseHex(fields[3]);
+    if (pathBytes.length % HASH_LENGTH != 0 || pathBytes.length / HASH_LENGTH > MAX_PATH_LENGTH) {
+      throw new IllegalArgumentException("Invalid path in Merkle proof");
+    }
+    final List<byte[]> path = new ArrayList<>();
+    for (int offset = 0; offset < pathBytes.length; offset += HASH_LENGTH) {
+      final byte[] hash = new byte[HASH_LENGTH];
+      System.arraycopy(pathBytes, offset, hash, 0, HASH_LENGTH);
+      path.add(hash);
+    }
+    return new MerkleProof(
+        hex.parseHex(fields[0]), Integer.parseInt(fields[1]), Integer.parseInt(fields[2]), path);
+  }
+}
@@ -0,0 +1,130 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.signing;
+
+import jakarta.annotation.Nullable;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merkle tree over the hashes of a group of messages, as defined for Certificate Transparency (RFC
+ * 9162): leaves and nodes are hashed with SHA-256 and a different prefix, and a node without a
+ * sibling is promoted to the next level unchanged.
+ */
+final class MerkleTree {
+
+  private static final byte LEAF_PREFIX = 0;
+  private static final byte NODE_PREFIX = 1;
+
+  /** Prefix of the signed root, so a root signature can not be mistaken for a message signature. */
+  private static final byte[] ROOT_PREFIX = "gxf-merkle-root:".getBytes(StandardCharsets.UTF_8);
+
+  /** The hashes per level, from the leaves up to the root. */
+  private final List<byte[][]> levels = new ArrayList<>();
+
+  private MerkleTree(final byte[][] leaves) {
+    byte[][] level = leaves;
+    levels.add(level);
+    while (level.length > 1) {
+      final byte[][] next = new byte[(level.length + 1) / 2][];
+      for (int i = 0; i < next.length; i++) {
+        final int left = 2 * i;
+        next[i] = left + 1 < level.length ? nodeHash(level[left], level[left + 1]) : level[left];
+      }
+      level = next;
+      levels.add(level);
+    }
+  }
+
+  static MerkleTree of(final List<byte[]> leafHashes) {
+    return new MerkleTree(leafHashes.toArray(byte[][]::new));
+  }
+
+  byte[] root() {
+    return levels.getLast()[0];
+  }
+
+  /** The hashes of the siblings on the path from the leaf at the index to the root. */
+  List<byte[]> path(final int index) {
+    final List<byte[]> path = new ArrayList<>();
+    int position = index;
+    for (int level = 0; level < levels.size() - 1; level++) {
+      final int sibling = position ^ 1;
+      if (sibling < levels.get(level).length) {
+        path.add(levels.get(level)[sibling]);
+      }
+      position /= 2;
+    }
+    return path;
+  }
+
+  /**
+   * Computes the root of a tree from a leaf and its path, following the verification of an
+   * inclusion proof in RFC 9162.
+   *
+   * @return The root, or null when the path does not fit the index and size of the tree.
+   */
+  @Nullable
+  static byte[] rootFromPath(
+      final byte[] leafHash, final int index, final int size, final List<byte[]> path) {
+    if (index < 0 || index >= size) {
+      return null;
+    }
+    long fn = index;
+    long sn = size - 1L;
+    byte[] result = leafHash;
+    for (final byte[] sibling : path) {
+      if (sn == 0) {
+        return null;
+      }
+      if ((fn & 1) == 1 || fn == sn) {
+        result = nodeHash(sibling, result);
+        while ((fn & 1) == 0 && fn != 0) {
+          fn >>= 1;
+          sn >>= 1;
+        }
+      } else {
+        result = nodeHash(result, sibling);
+      }
+      fn >>= 1;
+      sn >>= 1;
+    }
+    return sn == 0 ? result : null;
+  }
+
+  static byte[] leafHash(final List<ByteBuffer> content) {
+    final MessageDigest digest = sha256();
+    digest.update(LEAF_PREFIX);
+    for (final ByteBuffer part : content) {
+      // Duplicate, so the position of the given buffer is left alone.
+      digest.update(part.duplicate());
+    }
+    return digest.digest();
+  }
+
+  /** The content which is signed for a root. */
+  static List<ByteBuffer> rootContent(final byte[] root) {
+    return List.of(ByteBuffer.wrap(ROOT_PREFIX), ByteBuffer.wrap(root));
+  }
+
+  private static byte[] nodeHash(final byte[] left, final byte[] right) {
+    final MessageDigest digest = sha256();
+    digest.update(NODE_PREFIX);
+    digest.update(left);
+    digest.update(right);
+    return digest.digest();
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+}
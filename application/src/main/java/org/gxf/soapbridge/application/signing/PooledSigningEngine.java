@@ -0,0 +1,105 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.signing;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import org.gxf.soapbridge.configuration.properties.SigningConfigurationProperties;
+
+/**
+ * {@link SigningEngine} using the JCA {@link Signature} algorithm and keys configured in {@link
+ * SigningConfigurationProperties}, like RSA, ECDSA or Ed25519.
+ *
+ * <p>Looking up a {@link Signature} implementation and initialising it with a key costs more than
+ * signing a small message with some algorithms. After signing or verifying, a {@link Signature}
+ * returns to the state it had after initialisation, so initialised instances are kept in a pool and
+ * reused. A pool is used rather than thread-local instances, since messages are handled on virtual
+ * threads, which are not reused. An instance is not returned to the pool when it fails, as it may
+ * be left in the middle of an operation.
+ */
+public class PooledSigningEngine implements SigningEngine {
+
+  private final String algorithm;
+
+  private final String provider;
+
+  private final PrivateKey signKey;
+
+  private final PublicKey verifyKey;
+
+  private final BlockingQueue<Signature> signers;
+
+  private final BlockingQueue<Signature> verifiers;
+
+  public PooledSigningEngine(final SigningConfigurationProperties signingConfiguration) {
+    this(
+        signingConfiguration.getSignature(),
+        signingConfiguration.getProvider(),
+        signingConfiguration.getSignKey(),
+        signingConfiguration.getVerifyKey(),
+        signingConfiguration.getPoolSize());
+  }
+
+  /**
+   * @param algorithm The name of the signature algorithm.
+   * @param provider The name of the provider of the algorithm.
+   * @param signKey The key to sign with.
+   * @param verifyKey The key to verify with.
+   * @param poolSize The maximum number of idle instances kept, for signing and for verifying each.
+   */
+  public PooledSigningEngine(
+      final String algorithm,
+      final String provider,
+      final PrivateKey signKey,
+      final PublicKey verifyKey,
+      final int poolSize) {
+    this.algorithm = algorithm;
+    this.provider = provider;
+    this.signKey = signKey;
+    this.verifyKey = verifyKey;
+    signers = new ArrayBlockingQueue<>(poolSize);
+    verifiers = new ArrayBlockingQueue<>(poolSize);
+  }
+
+  @Override
+  public byte[] sign(final List<ByteBuffer> content) throws GeneralSecurityException {
+    Signature signer = signers.poll();
+    if (signer == null) {
+      signer = Signature.getInstance(algorithm, provider);
+      signer.initSign(signKey);
+    }
+    update(signer, content);
+    final byte[] signature = signer.sign();
+    signers.offer(signer);
+    return signature;
+  }
+
+  @Override
+  public boolean verify(final List<ByteBuffer> content, final byte[] signature)
+      throws GeneralSecurityException {
+    Signature verifier = verifiers.poll();
+    if (verifier == null) {
+      verifier = Signature.getInstance(algorithm, provider);
+      verifier.initVerify(verifyKey);
+    }
+    update(verifier, content);
+    final boolean valid = verifier.verify(signature);
+    verifiers.offer(verifier);
+    return valid;
+  }
+
+  private static void update(final Signature signature, final List<ByteBuffer> content)
+      throws GeneralSecurityException {
+    for (final ByteBuffer part : content) {
+      // Duplicate, so the position of the given buffer is left alone.
+      signature.update(part.duplicate());
+    }
+  }
+}
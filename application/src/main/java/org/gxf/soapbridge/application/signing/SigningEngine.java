@@ -0,0 +1,37 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.signing;
+
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.List;
+
+/**
+ * Creates and verifies the signatures of queue messages for the {@link
+ * org.gxf.soapbridge.application.services.SigningService}. By default a {@link
+ * PooledSigningEngine} is used; an application can replace it by defining its own bean of this
+ * type.
+ *
+ * <p>Implementations are called concurrently.
+ */
+public interface SigningEngine {
+
+  /**
+   * Signs content consisting of several parts, as if the parts were concatenated.
+   *
+   * @param content The parts of the content to sign. The buffers themselves are not modified.
+   * @return The signature.
+   */
+  byte[] sign(List<ByteBuffer> content) throws GeneralSecurityException;
+
+  /**
+   * Verifies the signature of content consisting of several parts, as if the parts were
+   * concatenated.
+   *
+   * @param content The parts of the signed content. The buffers themselves are not modified.
+   * @param signature The signature created by {@link #sign(List)}.
+   * @return True when the signature is valid for the content.
+   */
+  boolean verify(List<ByteBuffer> content, byte[] signature) throws GeneralSecurityException;
+}
@@ -0,0 +1,262 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.soap.clients;
+
+import jakarta.annotation.Nullable;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import org.gxf.soapbridge.configuration.properties.CircuitBreakerConfigurationProperties;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * This {@link @Component} class keeps a circuit breaker per context of the platform. The outcome
+ * of the most recent calls of a context is kept in a sliding window; when the rate of failed or
+ * slow calls reaches its threshold, the breaker opens and calls are rejected without contacting
+ * the platform. After the open duration the breaker lets a few probe calls through, and closes
+ * again when they succeed.
+ */
+@Component
+public class CircuitBreakers {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(CircuitBreakers.class);
+
+  /** Permit handed out when the breakers are disabled. Completing it has no effect. */
+  public static final Permit UNGUARDED = new Permit(null, 0, 0, false);
+
+  enum State {
+    CLOSED,
+    OPEN,
+    HALF_OPEN
+  }
+
+  private static final List<String> STATE_NAMES =
+      Arrays.stream(State.values()).map(State::name).toList();
+
+  private final CircuitBreakerConfigurationProperties configuration;
+
+  private final MonitoringService monitoringService;
+
+  private final LongSupplier nanoTime;
+
+  private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+  @Autowired
+  public CircuitBreakers(
+      final CircuitBreakerConfigurationProperties configuration,
+      final MonitoringService monitoringService) {
+    this(configuration, monitoringService, System::nanoTime);
+  }
+
+  CircuitBreakers(
+      final CircuitBreakerConfigurationProperties configuration,
+      final MonitoringService monitoringService,
+      final LongSupplier nanoTime) {
+    this.configuration = configuration;
+    this.monitoringService = monitoringService;
+    this.nanoTime = nanoTime;
+  }
+
+  /**
+   * Tries to get permission to call a context of the platform.
+   *
+   * @param context The context which is called.
+   * @return A permit which must be completed with the outcome of the call, or null when the
+   *     breaker of the context is open and the call must not be made.
+   */
+  @Nullable
+  public Permit tryAcquire(final String context) {
+    if (!configuration.getEnabled()) {
+      return UNGUARDED;
+    }
+    final Breaker breaker = breakers.computeIfAbsent(context, this::createBreaker);
+    final Permit permit = breaker.tryAcquire(nanoTime.getAsLong());
+    if (permit == null) {
+      monitoringService.recordCircuitBreakerRejected(context);
+    }
+    return permit;
+  }
+
+  State stateOf(final String context) {
+    final Breaker breaker = breakers.get(context);
+    return breaker == null ? State.CLOSED : breaker.state();
+  }
+
+  private Breaker createBreaker(final String context) {
+    final Breaker breaker = new Breaker(context);
+    monitoringService.monitorCircuitBreaker(context, () -> breaker.state().name(), STATE_NAMES);
+    return breaker;
+  }
+
+  /**
+   * Permission to make a single call. The permit only counts for the state of the breaker it was
+   * issued in; once the breaker changed state, its outcome is ignored.
+   */
+  public static final class Permit {
+    @Nullable private final Breaker breaker;
+    private final long startedAt;
+
+    /** The state change of the breaker this permit was issued after. */
+    private final long generation;
+
+    /** Whether this permit is a probe call of the half-open state. */
+    private final boolean probe;
+
+    private Permit(
+        @Nullable final Breaker breaker,
+        final long startedAt,
+        final long generation,
+        final boolean probe) {
+      this.breaker = breaker;
+      this.startedAt = startedAt;
+      this.generation = generation;
+      this.probe = probe;
+    }
+
+    /**
+     * Records the outcome of the call.
+     *
+     * @param successful Flag indicating if the platform handled the call.
+     */
+    public void complete(final boolean successful) {
+      if (breaker != null) {
+        breaker.record(successful, this);
+      }
+    }
+
+    /** Gives the permit back when the call was not made, without recording an outcome. */
+    public void release() {
+      if (breaker != null) {
+        breaker.release(this);
+      }
+    }
+  }
+
+  private final class Breaker {
+    private final String context;
+
+    /** Whether the recent calls were failed and slow, as a ring buffer. */
+    private final boolean[] failed = new boolean[configuration.getWindowSize()];
+
+    private final boolean[] slow = new boolean[configuration.getWindowSize()];
+
+    /** The number of calls in the window, and the position of the next call in the buffers. */
+    private int calls;
+
+    private int next;
+
+    private int failedCalls;
+
+    private int slowCalls;
+
+    private State state = State.CLOSED;
+
+    /** Counts the state changes, so permits issued in an earlier state can be recognised. */
+    private long generation;
+
+    private long openedAt;
+
+    /** The number of probe calls let through in the half-open state, and their outcomes. */
+    private int probes;
+
+    private int probeResults;
+
+    private int failedProbes;
+
+    private Breaker(final String context) {
+      this.context = context;
+    }
+
+    private synchronized State state() {
+      return state;
+    }
+
+    @Nullable
+    private synchronized Permit tryAcquire(final long now) {
+      if (state == State.OPEN && now - openedAt >= configuration.getOpenDuration().toNanos()) {
+        transitionTo(State.HALF_OPEN, now);
+      }
+      if (state == State.HALF_OPEN) {
+        if (probes >= configuration.getProbeCalls()) {
+          return null;
+        }
+        probes++;
+        return new Permit(this, now, generation, true);
+      }
+      return state == State.CLOSED ? new Permit(this, now, generation, false) : null;
+    }
+
+    private synchronized void release(final Permit permit) {
+      if (permit.probe && permit.generation == generation) {
+        probes--;
+      }
+    }
+
+    private synchronized void record(final boolean successful, final Permit permit) {
+      if (permit.generation != generation) {
+        // The call started before the breaker changed state, and says nothing about this state.
+        return;
+      }
+      final long now = nanoTime.getAsLong();
+      final boolean isSlow =
+          now - permit.startedAt >= configuration.getSlowCallDuration().toNanos();
+      if (permit.probe) {
+        probeResults++;
+        if (!successful || isSlow) {
+          failedProbes++;
+        }
+        if (failedProbes > 0) {
+          transitionTo(State.OPEN, now);
+        } else if (probeResults >= configuration.getProbeCalls()) {
+          transitionTo(State.CLOSED, now);
+        }
+        return;
+      }
+      add(!successful, isSlow);
+      if (calls >= configuration.getMinimumCalls()
+          && (failedCalls * 100 >= configuration.getFailureRateThreshold() * calls
+              || slowCalls * 100 >= configuration.getSlowCallRateThreshold() * calls)) {
+        transitionTo(State.OPEN, now);
+      }
+    }
+
+    private void add(final boolean isFailed, final boolean isSlow) {
+      if (calls == failed.length) {
+        failedCalls -= failed[next] ? 1 : 0;
+        slowCalls -= slow[next] ? 1 : 0;
+      } else {
+        calls++;
+      }
+      failed[next] = isFailed;
+      slow[next] = isSlow;
+      failedCalls += isFailed ? 1 : 0;
+      slowCalls += isSlow ? 1 : 0;
+      next = (next + 1) % failed.length;
+    }
+
+    private void transitionTo(final State newState, final long now) {
+      LOGGER.warn("Circuit breaker of context {} changes from {} to {}", context, state, newState);
+      state = newState;
+      generation++;
+      probes = 0;
+      probeResults = 0;
+      failedProbes = 0;
+      if (newState == State.OPEN) {
+        openedAt = now;
+      }
+      if (newState == State.CLOSED) {
+        calls = 0;
+        next = 0;
+        failedCalls = 0;
+        slowCalls = 0;
+      }
+    }
+  }
+}
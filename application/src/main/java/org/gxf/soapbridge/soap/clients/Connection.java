@@ -3,52 +3,122 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.gxf.soapbridge.soap.clients;
 
-import java.util.UUID;
-import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeoutException;
+import org.gxf.soapbridge.application.services.PayloadMemoryBudget;
+import org.gxf.soapbridge.soap.exceptions.PlatformFailureException;
+import org.gxf.soapbridge.soap.exceptions.ProxyServerException;
 
+/**
+ * A pending request from a client application, waiting for its response. The response is held in
+ * a {@link CompletableFuture} which is completed either by the response, by a failure or by the
+ * expiry of the connection, whichever comes first.
+ */
 public class Connection {
 
-  private String soapResponse;
-
   private final String connectionId;
 
-  private final Semaphore responseReceived;
+  private final CompletableFuture<String> response = new CompletableFuture<>();
 
-  public Connection() {
-    responseReceived = new Semaphore(0);
-    connectionId = UUID.randomUUID().toString();
-  }
+  /** Memory reserved for the payloads of this connection. */
+  private final PayloadMemoryBudget.Reservation reservation;
 
-  public void setSoapResponse(final String soapResponse) {
-    this.soapResponse = soapResponse;
-    responseReceived();
+  public Connection(
+      final String connectionId, final PayloadMemoryBudget.Reservation reservation) {
+    this.connectionId = connectionId;
+    this.reservation = reservation;
   }
 
-  public String getSoapResponse() {
-    return soapResponse;
+  /**
+   * Completes this connection with the given response.
+   *
+   * @param soapResponse The SOAP response.
+   * @return false if the connection was already completed or expired, which means the response
+   *     arrived too late.
+   */
+  public boolean setSoapResponse(final String soapResponse) {
+    return response.complete(soapResponse);
   }
 
   public String getConnectionId() {
     return connectionId;
   }
 
+  public PayloadMemoryBudget.Reservation getReservation() {
+    return reservation;
+  }
+
   /**
-   * Indicates the response for this connection has been received.
+   * Completes this connection with a failure, so the client application gets an error response
+   * without waiting for the time-out.
+   *
+   * @param cause The reason the request failed.
+   * @return false if the connection was already completed or expired.
    */
-  public void responseReceived() {
-    responseReceived.release();
+  public boolean fail(final ProxyServerException cause) {
+    return response.completeExceptionally(cause);
   }
 
   /**
-   * Waits for a response on this connection.
+   * Completes this connection with a {@link TimeoutException}.
    *
-   * @param timeout The number of seconds to wait for a response.
+   * @return false if the response was already received.
+   */
+  public boolean expire() {
+    return response.completeExceptionally(
+        new TimeoutException("No response received for connection " + connectionId));
+  }
+
+  /** Whether the response for this connection has been received. */
+  public boolean isAnswered() {
+    return response.isDone() && !response.isCompletedExceptionally();
+  }
+
+  /** Whether this connection expired before the response was received. */
+  public boolean isExpired() {
+    return response.state() == Future.State.FAILED
+        && response.exceptionNow() instanceof TimeoutException;
+  }
+
+  /** Whether this connection was completed with a failure of the platform side. */
+  public boolean isFailedByPlatform() {
+    return response.state() == Future.State.FAILED
+        && response.exceptionNow() instanceof PlatformFailureException;
+  }
+
+  /**
+   * The response of this connection. Completes exceptionally with a {@link TimeoutException} when
+   * the connection expires before the response is received, or with a {@link
+   * ProxyServerException} when the request failed. A {@link PlatformFailureException} carries the
+   * SOAP fault for the client application.
+   */
+  public CompletionStage<String> getResponse() {
+    return response.minimalCompletionStage();
+  }
+
+  /**
+   * Waits for a response on this connection. The waiting thread is released when the response is
+   * received or the connection expires.
    *
-   * @return true, if the response was received within @timeout seconds,
-   * false otherwise.
+   * @return The SOAP response.
+   * @throws TimeoutException when the connection expired before the response was received.
+   * @throws ProxyServerException when the request failed.
    */
-  public boolean waitForResponseReceived(final int timeout) throws InterruptedException {
-    return responseReceived.tryAcquire(timeout, TimeUnit.SECONDS);
+  public String waitForResponse()
+      throws InterruptedException, TimeoutException, ProxyServerException {
+    try {
+      return response.get();
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof final TimeoutException timeoutException) {
+        throw timeoutException;
+      }
+      if (e.getCause() instanceof final ProxyServerException proxyServerException) {
+        throw proxyServerException;
+      }
+      throw new IllegalStateException("Connection completed unexpectedly", e.getCause());
+    }
   }
 }
@@ -0,0 +1,292 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.soap.clients;
+
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import org.gxf.soapbridge.configuration.properties.LoadBalancingConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.LoadBalancingStrategy;
+import org.gxf.soapbridge.configuration.properties.SoapConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.SoapEndpointConfiguration;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.gxf.soapbridge.soap.exceptions.UnableToCreateHttpClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * This {@link @Component} class balances the requests to the platform over its endpoints. Every
+ * request goes to the endpoint with the fewest outstanding requests, or with the lowest moving
+ * average of the latency weighted by its outstanding requests. Endpoints failing their periodic
+ * health check, or failing several calls in a row, are skipped; when no endpoint is left, all of
+ * them are used again.
+ */
+@Component
+public class PlatformEndpoints {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PlatformEndpoints.class);
+
+  private final LoadBalancingConfigurationProperties configuration;
+
+  private final PlatformHttpClients platformHttpClients;
+
+  private final MonitoringService monitoringService;
+
+  private final LongSupplier nanoTime;
+
+  private final List<Endpoint> endpoints = new ArrayList<>();
+
+  private final ScheduledExecutorService scheduler =
+      Executors.newSingleThreadScheduledExecutor(
+          Thread.ofPlatform().name("platform-health-check").daemon().factory());
+
+  @Autowired
+  public PlatformEndpoints(
+      final SoapConfigurationProperties soapConfiguration,
+      final LoadBalancingConfigurationProperties configuration,
+      final PlatformHttpClients platformHttpClients,
+      final MonitoringService monitoringService) {
+    this(
+        soapConfiguration, configuration, platformHttpClients, monitoringService, System::nanoTime);
+  }
+
+  PlatformEndpoints(
+      final SoapConfigurationProperties soapConfiguration,
+      final LoadBalancingConfigurationProperties configuration,
+      final PlatformHttpClients platformHttpClients,
+      final MonitoringService monitoringService,
+      final LongSupplier nanoTime) {
+    this.configuration = configuration;
+    this.platformHttpClients = platformHttpClients;
+    this.monitoringService = monitoringService;
+    this.nanoTime = nanoTime;
+    for (final SoapEndpointConfiguration endpointConfiguration : soapConfiguration.endpoints()) {
+      final Endpoint endpoint = new Endpoint(endpointConfiguration);
+      monitoringService.monitorPlatformEndpoint(
+          endpoint.name,
+          endpoint.outstanding::get,
+          () -> endpoint.isAvailable(nanoTime.getAsLong()) ? 1 : 0);
+      endpoints.add(endpoint);
+    }
+  }
+
+  /** Starts the periodic health checks, when there is more than one endpoint to choose from. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void startHealthChecks() {
+    final long interval = configuration.getHealthCheckInterval().toNanos();
+    if (endpoints.size() > 1 && interval > 0) {
+      scheduler.scheduleWithFixedDelay(this::checkHealth, 0, interval, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  @PreDestroy
+  public void preDestroy() {
+    scheduler.shutdown();
+  }
+
+  /**
+   * Chooses the endpoint for a request.
+   *
+   * @return A lease on the endpoint, which must be completed with the outcome of the call.
+   */
+  public Lease acquire() {
+    final long now = nanoTime.getAsLong();
+    Endpoint best;
+    if (endpoints.size() == 1) {
+      best = endpoints.getFirst();
+    } else {
+      // Start at a random endpoint, so ties are not always broken in favour of the first one.
+      final int offset = ThreadLocalRandom.current().nextInt(endpoints.size());
+      best = choose(now, offset, true);
+      if (best == null) {
+        LOGGER.warn("No endpoint of the platform is available, using all endpoints");
+        best = choose(now, offset, false);
+      }
+    }
+    best.outstanding.incrementAndGet();
+    return new Lease(best, now);
+  }
+
+  private Endpoint choose(final long now, final int offset, final boolean availableOnly) {
+    Endpoint best = null;
+    double bestCost = Double.MAX_VALUE;
+    for (int i = 0; i < endpoints.size(); i++) {
+      final Endpoint endpoint = endpoints.get((offset + i) % endpoints.size());
+      if (availableOnly && !endpoint.isAvailable(now)) {
+        continue;
+      }
+      final double cost = endpoint.cost();
+      if (cost < bestCost) {
+        best = endpoint;
+        bestCost = cost;
+      }
+    }
+    return best;
+  }
+
+  /** Checks every endpoint with an OPTIONS request; any response except 502, 503 or 504 is fine. */
+  void checkHealth() {
+    for (final Endpoint endpoint : endpoints) {
+      final CompletableFuture<Boolean> healthy;
+      try {
+        healthy =
+            platformHttpClients
+                .options(endpoint.uri + configuration.getHealthCheckPath())
+                .orTimeout(configuration.getHealthCheckTimeout().toNanos(), TimeUnit.NANOSECONDS)
+                .thenApply(response -> !PlatformHttpClients.isUnavailable(response));
+      } catch (final UnableToCreateHttpClientException e) {
+        LOGGER.warn("Unable to check the health of the platform", e);
+        return;
+      }
+      healthy.whenComplete((result, failure) -> endpoint.setHealthy(failure == null && result));
+    }
+  }
+
+  /**
+   * Ejects an endpoint after consecutive failed calls, unless that would exceed the maximum
+   * percentage of ejected endpoints.
+   */
+  private synchronized void tryEject(final Endpoint endpoint, final long now) {
+    final long ejected = endpoints.stream().filter(other -> other.isEjected(now)).count();
+    if ((ejected + 1) * 100 > (long) configuration.getMaxEjectionPercent() * endpoints.size()) {
+      return;
+    }
+    if (endpoint.eject(now)) {
+      monitoringService.recordPlatformEndpointEjection(endpoint.name);
+    }
+  }
+
+  /** The choice of an endpoint for a single call. */
+  public final class Lease {
+    private final Endpoint endpoint;
+    private final long startedAt;
+
+    private Lease(final Endpoint endpoint, final long startedAt) {
+      this.endpoint = endpoint;
+      this.startedAt = startedAt;
+    }
+
+    /** The URI of the endpoint, without a path. */
+    public String uri() {
+      return endpoint.uri;
+    }
+
+    /**
+     * Records the outcome of the call.
+     *
+     * @param successful Flag indicating if the endpoint handled the call.
+     */
+    public void complete(final boolean successful) {
+      endpoint.outstanding.decrementAndGet();
+      final long now = nanoTime.getAsLong();
+      monitoringService.recordPlatformEndpointCall(endpoint.name, now - startedAt, successful);
+      endpoint.record(successful, now - startedAt, now);
+    }
+
+    /** Gives the lease back when the call was not made, without recording an outcome. */
+    public void release() {
+      endpoint.outstanding.decrementAndGet();
+    }
+  }
+
+  private final class Endpoint {
+    private final String name;
+    private final String uri;
+    private final AtomicInteger outstanding = new AtomicInteger();
+
+    /** The moving average of the latency in nanoseconds, and when it was last updated. */
+    private double latency;
+
+    private boolean sampled;
+
+    private long latencyUpdatedAt;
+
+    private int consecutiveFailures;
+
+    private long ejectedUntil;
+
+    private boolean ejected;
+
+    private boolean healthy = true;
+
+    private Endpoint(final SoapEndpointConfiguration configuration) {
+      this.name = configuration.getHostAndPort();
+      this.uri = configuration.getUri();
+    }
+
+    private synchronized boolean isAvailable(final long now) {
+      return healthy && !isEjected(now);
+    }
+
+    private synchronized boolean isEjected(final long now) {
+      if (ejected && now - ejectedUntil >= 0) {
+        LOGGER.info("Endpoint {} of the platform is no longer ejected", name);
+        ejected = false;
+      }
+      return ejected;
+    }
+
+    private synchronized double cost() {
+      final int requests = outstanding.get();
+      return configuration.getStrategy() == LoadBalancingStrategy.EWMA
+          ? latency * (requests + 1)
+          : requests;
+    }
+
+    private synchronized void setHealthy(final boolean healthy) {
+      if (this.healthy != healthy) {
+        LOGGER.warn("Endpoint {} of the platform is {}", name, healthy ? "healthy" : "unhealthy");
+      }
+      this.healthy = healthy;
+    }
+
+    private void record(final boolean successful, final long duration, final long now) {
+      final boolean failing;
+      synchronized (this) {
+        if (sampled) {
+          final double weight =
+              Math.exp(-(now - latencyUpdatedAt) / (double) configuration.getEwmaDecay().toNanos());
+          latency = latency * weight + duration * (1 - weight);
+        } else {
+          latency = duration;
+          sampled = true;
+        }
+        latencyUpdatedAt = now;
+        consecutiveFailures = successful ? 0 : consecutiveFailures + 1;
+        failing = consecutiveFailures >= configuration.getEjectionConsecutiveFailures();
+      }
+      if (failing) {
+        tryEject(this, now);
+      }
+    }
+
+    /**
+     * Ejects this endpoint for the ejection duration.
+     *
+     * @return false when it is already ejected.
+     */
+    private synchronized boolean eject(final long now) {
+      if (isEjected(now)) {
+        return false;
+      }
+      LOGGER.warn(
+          "Ejecting endpoint {} of the platform after {} failed calls", name, consecutiveFailures);
+      ejected = true;
+      ejectedUntil = now + configuration.getEjectionDuration().toNanos();
+      consecutiveFailures = 0;
+      return true;
+    }
+  }
+}
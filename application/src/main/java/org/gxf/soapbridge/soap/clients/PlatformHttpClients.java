@@ -0,0 +1,290 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.soap.clients;
+
+import jakarta.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.net.ssl.HostnameVerifier;
+import javax.net.ssl.SSLContext;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.TlsConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.ssl.DefaultClientTlsStrategy;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.gxf.soapbridge.application.factories.HostnameVerifierFactory;
+import org.gxf.soapbridge.application.services.SslContextCacheService;
+import org.gxf.soapbridge.configuration.properties.CompressionConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.PlatformClientConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.SoapConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.SoapEndpointConfiguration;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.gxf.soapbridge.soap.encoding.ContentEncoding;
+import org.gxf.soapbridge.soap.exceptions.ProxyServerException;
+import org.gxf.soapbridge.soap.exceptions.UnableToCreateHttpClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * This {@link @Component} class provides the HTTP clients used to send requests to the platform.
+ * Every organisation has its own client with a pool of persistent connections, created with the
+ * {@link SSLContext} of the organisation from the {@link SslContextCacheService}, so the TLS
+ * handshake is only done when a connection is opened.
+ *
+ * <p>The clients are non-blocking: a request waiting for the platform holds a connection, or a
+ * stream of a connection when HTTP/2 is negotiated, but no thread. Each client does run its own
+ * I/O threads, so the number of I/O threads grows with the number of organisations; see {@link
+ * PlatformClientConfigurationProperties#getIoThreads()}.
+ */
+@Component
+public class PlatformHttpClients {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(PlatformHttpClients.class);
+
+  /** The organisation of the pool used for requests without a common name, in metrics. */
+  private static final String WITHOUT_COMMON_NAME = "none";
+
+  private static final String USER_AGENT =
+      "Mozilla/5.0 (Macintosh; Intel Mac OS X 10_10_3) AppleWebKit/537.36 (KHTML, like Gecko)"
+          + " Chrome/44.0.2403.155 Safari/537.36";
+
+  private final SslContextCacheService sslContextCacheService;
+
+  private final SoapConfigurationProperties soapConfiguration;
+
+  private final PlatformClientConfigurationProperties configuration;
+
+  private final MonitoringService monitoringService;
+
+  /** Verifies the host name of the platform, shared by all pools. */
+  private final HostnameVerifier hostnameVerifier;
+
+  /** The Accept-Encoding header sent to the platform. */
+  private final String acceptEncoding;
+
+  /** The clients by common name. */
+  private final Map<String, Pool> pools = new ConcurrentHashMap<>();
+
+  public PlatformHttpClients(
+      final SslContextCacheService sslContextCacheService,
+      final HostnameVerifierFactory hostnameVerifierFactory,
+      final SoapConfigurationProperties soapConfiguration,
+      final PlatformClientConfigurationProperties configuration,
+      final CompressionConfigurationProperties compressionConfiguration,
+      final MonitoringService monitoringService)
+      throws ProxyServerException {
+    this.sslContextCacheService = sslContextCacheService;
+    this.soapConfiguration = soapConfiguration;
+    this.configuration = configuration;
+    this.monitoringService = monitoringService;
+    this.hostnameVerifier = hostnameVerifierFactory.getHostnameVerifier();
+    this.acceptEncoding =
+        compressionConfiguration.getEnabled()
+            ? ContentEncoding.GZIP.getName() + ", " + ContentEncoding.DEFLATE.getName()
+            : ContentEncoding.IDENTITY.getName();
+  }
+
+  /**
+   * Gets the client for an organisation, creating it when it is used for the first time.
+   *
+   * @param commonName The common name of the organisation, or an empty string for requests
+   *     without a common name.
+   * @throws UnableToCreateHttpClientException when there is no {@link SSLContext} for the
+   *     organisation.
+   */
+  public CloseableHttpAsyncClient clientFor(final String commonName)
+      throws UnableToCreateHttpClientException {
+    return poolFor(commonName).client();
+  }
+
+  private Pool poolFor(final String commonName) throws UnableToCreateHttpClientException {
+    final String key = StringUtils.hasText(commonName) ? commonName : "";
+    final Pool existing = pools.get(key);
+    if (existing != null) {
+      return existing;
+    }
+    final SSLContext sslContext =
+        key.isEmpty()
+            ? sslContextCacheService.getSslContext()
+            : sslContextCacheService.getSslContextForCommonName(key);
+    if (sslContext == null) {
+      throw new UnableToCreateHttpClientException(
+          "No SSLContext available for common name: " + commonName);
+    }
+    return pools.computeIfAbsent(key, k -> createPool(k, sslContext));
+  }
+
+  /**
+   * Sends an OPTIONS request to the platform, with the client used for requests without a common
+   * name.
+   *
+   * @param uri The URI to send the request to.
+   * @return A future which completes with the response, or exceptionally when the request fails.
+   * @throws UnableToCreateHttpClientException when there is no default {@link SSLContext}.
+   */
+  public CompletableFuture<SimpleHttpResponse> options(final String uri)
+      throws UnableToCreateHttpClientException {
+    return execute(clientFor(""), SimpleRequestBuilder.options(uri).build());
+  }
+
+  /**
+   * Executes a request with a client.
+   *
+   * @return A future which completes with the response, or exceptionally when the request fails.
+   */
+  static CompletableFuture<SimpleHttpResponse> execute(
+      final CloseableHttpAsyncClient client, final SimpleHttpRequest request) {
+    final CompletableFuture<SimpleHttpResponse> response = new CompletableFuture<>();
+    client.execute(
+        request,
+        new FutureCallback<>() {
+          @Override
+          public void completed(final SimpleHttpResponse result) {
+            response.complete(result);
+          }
+
+          @Override
+          public void failed(final Exception e) {
+            response.completeExceptionally(e);
+          }
+
+          @Override
+          public void cancelled() {
+            response.cancel(false);
+          }
+        });
+    return response;
+  }
+
+  /** Whether the response indicates that the service is unavailable, rather than a SOAP fault. */
+  static boolean isUnavailable(final SimpleHttpResponse response) {
+    return response.getCode() == HttpStatus.SC_BAD_GATEWAY
+        || response.getCode() == HttpStatus.SC_SERVICE_UNAVAILABLE
+        || response.getCode() == HttpStatus.SC_GATEWAY_TIMEOUT;
+  }
+
+  /** Opens the configured number of connections for each of the configured organisations. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void prewarm() {
+    for (final String commonName : configuration.getPrewarmOrganisations()) {
+      try {
+        openConnections(clientFor(commonName));
+        LOGGER.info("Opened connections to the platform for common name: {}", commonName);
+      } catch (final UnableToCreateHttpClientException | ExecutionException | TimeoutException e) {
+        LOGGER.warn(
+            "Unable to open connections to the platform for common name: {}", commonName, e);
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  @PreDestroy
+  public void preDestroy() {
+    pools.values().forEach(pool -> pool.client().close(CloseMode.GRACEFUL));
+  }
+
+  private Pool createPool(final String commonName, final SSLContext sslContext) {
+    LOGGER.debug("Creating connection pool for common name: {}", commonName);
+    final PoolingAsyncClientConnectionManager connectionManager =
+        PoolingAsyncClientConnectionManagerBuilder.create()
+            .setTlsStrategy(new DefaultClientTlsStrategy(sslContext, hostnameVerifier))
+            .setDefaultTlsConfig(
+                TlsConfig.custom()
+                    .setVersionPolicy(
+                        configuration.getHttp2()
+                            ? HttpVersionPolicy.NEGOTIATE
+                            : HttpVersionPolicy.FORCE_HTTP_1)
+                    .build())
+            .setMaxConnPerRoute(configuration.getMaxPerRoute())
+            .setMaxConnTotal(configuration.getMaxPerRoute() * soapConfiguration.endpoints().size())
+            .setDefaultConnectionConfig(
+                ConnectionConfig.custom()
+                    .setConnectTimeout(
+                        Timeout.ofMilliseconds(configuration.getConnectTimeout().toMillis()))
+                    .setSocketTimeout(Timeout.ofSeconds(maxTimeout()))
+                    .setValidateAfterInactivity(TimeValue.ofSeconds(1))
+                    .build())
+            .build();
+    final CloseableHttpAsyncClient client =
+        HttpAsyncClients.custom()
+            .setConnectionManager(connectionManager)
+            .setIOReactorConfig(
+                IOReactorConfig.custom().setIoThreadCount(configuration.getIoThreads()).build())
+            .disableCookieManagement()
+            .evictExpiredConnections()
+            .evictIdleConnections(
+                TimeValue.ofMilliseconds(configuration.getIdleTimeout().toMillis()))
+            .setUserAgent(USER_AGENT)
+            .setDefaultHeaders(
+                List.of(
+                    new BasicHeader(HttpHeaders.ACCEPT_ENCODING, acceptEncoding),
+                    new BasicHeader(HttpHeaders.ACCEPT_CHARSET, StandardCharsets.UTF_8.name())))
+            .build();
+    client.start();
+    monitoringService.monitorPlatformConnections(
+        commonName.isEmpty() ? WITHOUT_COMMON_NAME : commonName,
+        () -> connectionManager.getTotalStats().getLeased(),
+        () -> connectionManager.getTotalStats().getAvailable(),
+        () -> connectionManager.getTotalStats().getPending());
+    return new Pool(connectionManager, client);
+  }
+
+  /**
+   * Opens connections to every endpoint by sending OPTIONS requests to the platform at the same
+   * time, ignoring the responses. The connections stay in the pool as idle connections; when HTTP/2
+   * is negotiated, the requests to an endpoint share a single connection.
+   */
+  private void openConnections(final CloseableHttpAsyncClient client)
+      throws InterruptedException, ExecutionException, TimeoutException {
+    final int connections =
+        Math.min(configuration.getPrewarmConnections(), configuration.getMaxPerRoute());
+    final List<Future<SimpleHttpResponse>> responses = new ArrayList<>();
+    for (final SoapEndpointConfiguration endpoint : soapConfiguration.endpoints()) {
+      for (int i = 0; i < connections; i++) {
+        responses.add(
+            client.execute(SimpleRequestBuilder.options(endpoint.getUri()).build(), null));
+      }
+    }
+    for (final Future<SimpleHttpResponse> response : responses) {
+      response.get(soapConfiguration.getTimeout(), TimeUnit.SECONDS);
+    }
+  }
+
+  /** The longest time the platform may take to respond to any request. */
+  private int maxTimeout() {
+    return soapConfiguration.getCustomTimeouts().values().stream()
+        .reduce(soapConfiguration.getTimeout(), Math::max);
+  }
+
+  private record Pool(
+      PoolingAsyncClientConnectionManager connectionManager, CloseableHttpAsyncClient client) {}
+}
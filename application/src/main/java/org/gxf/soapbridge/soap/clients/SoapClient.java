@@ -3,21 +3,36 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.gxf.soapbridge.soap.clients;
 
+import jakarta.annotation.Nullable;
+import jakarta.annotation.PreDestroy;
 import java.io.*;
-import java.net.HttpURLConnection;
+import java.net.ConnectException;
+import java.net.UnknownHostException;
 import java.nio.charset.StandardCharsets;
-import javax.net.ssl.HttpsURLConnection;
-import org.gxf.soapbridge.application.factories.HttpsUrlConnectionFactory;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import javax.net.ssl.SSLException;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.async.methods.SimpleRequestBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
 import org.gxf.soapbridge.application.services.SigningService;
-import org.gxf.soapbridge.configuration.properties.SoapConfigurationProperties;
-import org.gxf.soapbridge.configuration.properties.SoapEndpointConfiguration;
+import org.gxf.soapbridge.configuration.properties.CompressionConfigurationProperties;
 import org.gxf.soapbridge.kafka.senders.ProxyResponseKafkaSender;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.gxf.soapbridge.soap.encoding.ContentEncoding;
 import org.gxf.soapbridge.soap.exceptions.ProxyServerException;
-import org.gxf.soapbridge.soap.exceptions.UnableToCreateHttpsURLConnectionException;
+import org.gxf.soapbridge.soap.exceptions.UnableToCreateHttpClientException;
+import org.gxf.soapbridge.valueobjects.PlatformFailure;
+import org.gxf.soapbridge.valueobjects.PlatformFailure.ErrorClass;
 import org.gxf.soapbridge.valueobjects.ProxyServerResponseMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.scheduling.annotation.Async;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
 
 /** This {@link @Component} class can send SOAP messages to the Platform. */
@@ -26,141 +41,271 @@ public class SoapClient {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SoapClient.class);
 
+  /** The number of times a response is sent to Kafka before giving up on it. */
+  private static final int RESPONSE_SEND_ATTEMPTS = 2;
+
+  private static final ContentType SOAP_CONTENT_TYPE =
+      ContentType.create("text/xml", StandardCharsets.UTF_8);
+
   /** Message sender to send messages to a queue. */
   private final ProxyResponseKafkaSender proxyReponseSender;
 
-  private final SoapConfigurationProperties soapConfiguration;
-
-  /** Factory which assist in creating {@link HttpsURLConnection} instances. */
-  private final HttpsUrlConnectionFactory httpsUrlConnectionFactory;
+  /** The clients with pooled connections to the platform, per organisation. */
+  private final PlatformHttpClients platformHttpClients;
 
   /** Service used to sign the content of a message. */
   private final SigningService signingService;
 
+  private final CompressionConfigurationProperties compressionConfiguration;
+
+  private final MonitoringService monitoringService;
+
+  /** The circuit breakers guarding the contexts of the Platform. */
+  private final CircuitBreakers circuitBreakers;
+
+  /** The endpoints of the Platform the requests are balanced over. */
+  private final PlatformEndpoints platformEndpoints;
+
+  /** Executes the handling of responses, which includes signing, off the I/O threads. */
+  private final ExecutorService responseExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
   public SoapClient(
       final ProxyResponseKafkaSender proxyResponseSender,
-      final SoapConfigurationProperties soapConfiguration,
-      final HttpsUrlConnectionFactory httpsUrlConnectionFactory,
-      final SigningService signingService) {
+      final PlatformHttpClients platformHttpClients,
+      final SigningService signingService,
+      final CompressionConfigurationProperties compressionConfiguration,
+      final MonitoringService monitoringService,
+      final CircuitBreakers circuitBreakers,
+      final PlatformEndpoints platformEndpoints) {
     this.proxyReponseSender = proxyResponseSender;
-    this.soapConfiguration = soapConfiguration;
-    this.httpsUrlConnectionFactory = httpsUrlConnectionFactory;
+    this.platformHttpClients = platformHttpClients;
     this.signingService = signingService;
+    this.compressionConfiguration = compressionConfiguration;
+    this.monitoringService = monitoringService;
+    this.circuitBreakers = circuitBreakers;
+    this.platformEndpoints = platformEndpoints;
+  }
+
+  @PreDestroy
+  public void preDestroy() {
+    responseExecutor.close();
   }
 
   /**
-   * Send a request to the Platform.
+   * Send a request to the Platform. The request is sent without blocking the calling thread; the
+   * response is signed and sent to Kafka when it arrives. When the Platform does not return a SOAP
+   * response, a {@link PlatformFailure} is sent instead, so the client application does not have
+   * to wait for the time-out.
    *
    * @param connectionId The connectionId for this connection.
    * @param context The part of the URL indicating the SOAP web-service.
    * @param commonName The common name (organisation identification).
    * @param soapPayload The SOAP message to send to the platform.
+   * @return A future which completes when the response or failure has been sent to Kafka. It never
+   *     completes exceptionally.
    */
-  @Async
-  public void sendRequest(
+  public CompletableFuture<Void> sendRequest(
       final String connectionId,
       final String context,
       final String commonName,
-      final String soapPayload) {
-
-    HttpsURLConnection connection = null;
-
+      final byte[] soapPayload) {
+    final CircuitBreakers.Permit permit = circuitBreakers.tryAcquire(context);
+    if (permit == null) {
+      LOGGER.warn("Circuit breaker of context {} is open, answering with a failure", context);
+      return sendFailure(connectionId, new PlatformFailure(ErrorClass.UNAVAILABLE));
+    }
+    final PlatformEndpoints.Lease endpoint = platformEndpoints.acquire();
+    final CompletableFuture<SimpleHttpResponse> platformResponse;
     try {
-      // Try to create a connection.
-      connection = createConnection(context, soapPayload, commonName);
-      if (connection == null) {
-        LOGGER.warn("Could not create connection for sending SOAP request.");
-        return;
-      }
-
-      // Send the SOAP payload to the server.
-      sendRequest(connection, soapPayload);
-      // Read the response.
-      LOGGER.debug("SOAP request sent, trying to read SOAP response...");
-      final String soapResponse = readResponse(connection);
-      LOGGER.debug("SOAP response: {}", soapResponse);
-      // Always disconnect the connection.
-      connection.disconnect();
-
-      // Create proxy-server response message.
-      final ProxyServerResponseMessage responseMessage =
-          createProxyServerResponseMessage(connectionId, soapResponse);
-
-      // Send queue message.
-      proxyReponseSender.send(responseMessage);
+      platformResponse = sendSoapRequest(endpoint.uri(), context, commonName, soapPayload);
+    } catch (final UnableToCreateHttpClientException e) {
+      permit.release();
+      endpoint.release();
+      LOGGER.error("Unable to send SOAP request for connectionId: {}", connectionId, e);
+      return sendFailure(connectionId, new PlatformFailure(ErrorClass.TLS));
+    }
+    return platformResponse
+        .whenComplete(
+            (response, failure) -> {
+              final boolean successful =
+                  failure == null && !PlatformHttpClients.isUnavailable(response);
+              permit.complete(successful);
+              endpoint.complete(successful);
+            })
+        // Handle the response off the I/O thread of the client, since signing may block.
+        .handleAsync(
+            (response, failure) -> answer(connectionId, response, failure), responseExecutor)
+        .thenCompose(Function.identity())
+        .exceptionally(
+            failure -> {
+              LOGGER.error("Unexpected exception while sending SOAP request", failure);
+              return null;
+            });
+  }
 
-    } catch (final Exception e) {
-      if (connection != null) {
-        connection.disconnect();
-      }
-      LOGGER.error("Unexpected exception while sending SOAP request", e);
+  /**
+   * Answers a request which is not sent to the Platform with a failure.
+   *
+   * @param connectionId The connectionId of the request.
+   * @param failure The reason the request is not sent.
+   * @return A future which completes when the failure has been sent to Kafka. It never completes
+   *     exceptionally.
+   */
+  public CompletableFuture<Void> sendFailure(
+      final String connectionId, final PlatformFailure failure) {
+    try {
+      return sendResponse(sign(ProxyServerResponseMessage.failure(connectionId, failure)), 1);
+    } catch (final ProxyServerException e) {
+      LOGGER.error("Unable to sign failure for connectionId: {}", connectionId, e);
+      return CompletableFuture.completedFuture(null);
     }
   }
 
-  private HttpsURLConnection createConnection(
-      final String context, final String soapPayload, final String commonName)
-      throws UnableToCreateHttpsURLConnectionException {
-    final String contentLength = String.format("%d", soapPayload.length());
+  /**
+   * Sends the response of the Platform to Kafka, or a failure when the request failed or the
+   * Platform did not return a SOAP response.
+   */
+  private CompletableFuture<Void> answer(
+      final String connectionId,
+      @Nullable final SimpleHttpResponse response,
+      @Nullable final Throwable failure) {
+    if (failure != null) {
+      LOGGER.error("Unable to send SOAP request for connectionId: {}", connectionId, failure);
+      return sendFailure(connectionId, new PlatformFailure(classify(failure)));
+    }
+    if (PlatformHttpClients.isUnavailable(response)) {
+      LOGGER.warn(
+          "Platform is unavailable for connectionId: {}, status: {}",
+          connectionId,
+          response.getCode());
+      return sendFailure(
+          connectionId, new PlatformFailure(ErrorClass.UNAVAILABLE, response.getCode()));
+    }
+    try {
+      return sendResponse(
+          createProxyServerResponseMessage(connectionId, readResponse(response)), 1);
+    } catch (final ProxyServerException | RuntimeException e) {
+      LOGGER.error("Unable to handle SOAP response for connectionId: {}", connectionId, e);
+      return sendFailure(connectionId, new PlatformFailure(classify(e)));
+    }
+  }
 
-    final SoapEndpointConfiguration callEndpoint = soapConfiguration.getCallEndpoint();
+  /** Determines the class of a failure, from the exception which caused it. */
+  private static ErrorClass classify(final Throwable failure) {
+    final Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+    if (cause instanceof SSLException) {
+      return ErrorClass.TLS;
+    }
+    // Connect and socket time-outs.
+    if (cause instanceof InterruptedIOException) {
+      return ErrorClass.TIMEOUT;
+    }
+    if (cause instanceof ConnectException || cause instanceof UnknownHostException) {
+      return ErrorClass.CONNECTION;
+    }
+    if (cause instanceof IOException || cause instanceof UncheckedIOException) {
+      return ErrorClass.IO;
+    }
+    if (cause instanceof ProxyServerException) {
+      return ErrorClass.SIGNING;
+    }
+    return ErrorClass.INTERNAL;
+  }
 
-    final String uri = callEndpoint.getUri().concat(context);
-    LOGGER.debug("Preparing to open connection for WEBAPP_REQUEST using URI: {}", uri);
-    return httpsUrlConnectionFactory.createConnection(
-        uri, callEndpoint.getHostAndPort(), contentLength, commonName);
+  /**
+   * Sends the response to Kafka, and sends it again when sending fails. A response which can not be
+   * sent is reported, the connection of the client application will then expire.
+   *
+   * @return A future which completes when the response is sent or given up on.
+   */
+  private CompletableFuture<Void> sendResponse(
+      final ProxyServerResponseMessage responseMessage, final int attempt) {
+    return proxyReponseSender
+        .send(responseMessage)
+        .thenApply(result -> (Void) null)
+        .exceptionallyCompose(
+            failure -> {
+              final String connectionId = responseMessage.getConnectionId();
+              if (attempt < RESPONSE_SEND_ATTEMPTS) {
+                LOGGER.warn(
+                    "Unable to send SOAP response for connectionId: {}, retrying",
+                    connectionId,
+                    failure);
+                return sendResponse(responseMessage, attempt + 1);
+              }
+              LOGGER.error(
+                  "Unable to send SOAP response for connectionId: {} after {} attempts",
+                  connectionId,
+                  attempt,
+                  failure);
+              return CompletableFuture.completedFuture(null);
+            });
   }
 
-  private void sendRequest(final HttpsURLConnection connection, final String soapPayLoad)
-      throws IOException {
-    try (final OutputStream outputStream = connection.getOutputStream();
-        final OutputStreamWriter outputStreamWriter =
-            new OutputStreamWriter(outputStream, StandardCharsets.UTF_8)) {
-      outputStreamWriter.write(soapPayLoad);
-      outputStreamWriter.flush();
-    } catch (final IOException e) {
-      LOGGER.debug("Rethrow IOException while sending SOAP request.");
-      throw e;
-    }
+  private CompletableFuture<SimpleHttpResponse> sendSoapRequest(
+      final String endpointUri,
+      final String context,
+      final String commonName,
+      final byte[] soapPayload)
+      throws UnableToCreateHttpClientException {
+    final String uri = endpointUri.concat(context);
+    LOGGER.debug("Sending SOAP request using URI: {}", uri);
+    final SimpleHttpRequest request =
+        SimpleRequestBuilder.post(uri).setBody(soapPayload, SOAP_CONTENT_TYPE).build();
+    return PlatformHttpClients.execute(platformHttpClients.clientFor(commonName), request);
   }
 
-  private String readResponse(final HttpsURLConnection connection) throws IOException {
+  private String readResponse(final SimpleHttpResponse response) {
+    final byte[] body = response.getBodyBytes();
+    if (body == null) {
+      return "";
+    }
     // Use a BufferedReader and an InputStreamReader configured with UTF-8
     // character encoding. This will ensure that the response from the
     // Platform is read correctly.
-    try (final InputStream inputStream = getInputStream(connection);
-        final InputStreamReader inputStreamReader =
-            new InputStreamReader(inputStream, StandardCharsets.UTF_8);
+    try (final InputStreamReader inputStreamReader =
+            new InputStreamReader(decode(response, body), StandardCharsets.UTF_8);
         final BufferedReader reader = new BufferedReader(inputStreamReader)) {
-      final StringBuilder response = new StringBuilder();
+      final StringBuilder soapResponse = new StringBuilder();
       String line = reader.readLine();
       while (line != null) {
-        response.append(line);
+        soapResponse.append(line);
         line = reader.readLine();
       }
-      return response.toString();
+      LOGGER.debug("SOAP response: {}", soapResponse);
+      return soapResponse.toString();
     } catch (final IOException e) {
-      LOGGER.debug("Rethrow IOException while reading SOAP response");
-      throw e;
+      throw new UncheckedIOException("Unable to read SOAP response", e);
     }
   }
 
-  private InputStream getInputStream(final HttpsURLConnection connection) throws IOException {
-    final InputStream inputStream;
-
-    if (connection.getResponseCode() == HttpURLConnection.HTTP_OK) {
-      inputStream = connection.getInputStream();
-    } else {
-      inputStream = connection.getErrorStream();
+  /** Decodes a compressed response, so the response sent to Kafka is always plain XML. */
+  private InputStream decode(final SimpleHttpResponse response, final byte[] body)
+      throws IOException {
+    final Header contentEncodingHeader = response.getFirstHeader(HttpHeaders.CONTENT_ENCODING);
+    final ContentEncoding contentEncoding =
+        ContentEncoding.fromHeader(
+            contentEncodingHeader == null ? null : contentEncodingHeader.getValue());
+    if (contentEncoding == ContentEncoding.IDENTITY) {
+      return new ByteArrayInputStream(body);
     }
-
-    return inputStream;
+    final byte[] decoded =
+        contentEncoding.decode(
+            body, (int) compressionConfiguration.getMaxDecompressedSize().toBytes());
+    monitoringService.recordCompression(
+        "platform-response", contentEncoding.getName(), decoded.length, body.length);
+    return new ByteArrayInputStream(decoded);
   }
 
   private ProxyServerResponseMessage createProxyServerResponseMessage(
       final String connectionId, final String soapResponse) throws ProxyServerException {
-    final ProxyServerResponseMessage responseMessage =
-        new ProxyServerResponseMessage(connectionId, soapResponse);
-    final String signature = signingService.signContent(responseMessage.constructString());
+    return sign(new ProxyServerResponseMessage(connectionId, soapResponse));
+  }
+
+  private ProxyServerResponseMessage sign(final ProxyServerResponseMessage responseMessage)
+      throws ProxyServerException {
+    final String signature =
+        signingService.signContent(proxyReponseSender.signedContent(responseMessage));
     responseMessage.setSignature(signature);
     return responseMessage;
   }
@@ -0,0 +1,143 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.soap.encoding;
+
+import jakarta.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/** The HTTP content encodings supported for SOAP messages. */
+public enum ContentEncoding {
+  IDENTITY("identity"),
+  GZIP("gzip"),
+  DEFLATE("deflate");
+
+  private final String name;
+
+  ContentEncoding(final String name) {
+    this.name = name;
+  }
+
+  /** The name of this encoding, as used in the Content-Encoding and Accept-Encoding headers. */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Determines the encoding of a body from its Content-Encoding header.
+   *
+   * @param contentEncoding The value of the Content-Encoding header, or null when absent.
+   * @throws IOException when the encoding is not supported.
+   */
+  public static ContentEncoding fromHeader(@Nullable final String contentEncoding)
+      throws IOException {
+    if (contentEncoding == null || contentEncoding.isBlank()) {
+      return IDENTITY;
+    }
+    final String value = contentEncoding.trim().toLowerCase(Locale.ROOT);
+    for (final ContentEncoding encoding : values()) {
+      if (encoding.name.equals(value)) {
+        return encoding;
+      }
+    }
+    throw new IOException("Unsupported content encoding: " + contentEncoding);
+  }
+
+  /**
+   * Selects the encoding for a response from the Accept-Encoding header of the request. Gzip is
+   * preferred over deflate when both are equally acceptable.
+   *
+   * @param acceptEncoding The value of the Accept-Encoding header, or null when absent.
+   * @return The encoding with the highest quality, or {@link #IDENTITY} when no compression is
+   *     accepted.
+   */
+  public static ContentEncoding negotiate(@Nullable final String acceptEncoding) {
+    if (acceptEncoding == null || acceptEncoding.isBlank()) {
+      return IDENTITY;
+    }
+    double gzipQuality = -1;
+    double deflateQuality = -1;
+    double wildcardQuality = -1;
+    for (final String element : acceptEncoding.split(",")) {
+      final String[] parts = element.split(";");
+      final String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+      final double quality = quality(parts);
+      switch (coding) {
+        case "gzip", "x-gzip" -> gzipQuality = Math.max(gzipQuality, quality);
+        case "deflate" -> deflateQuality = quality;
+        case "*" -> wildcardQuality = quality;
+        default -> {
+          // Other encodings are not supported.
+        }
+      }
+    }
+    gzipQuality = gzipQuality < 0 ? wildcardQuality : gzipQuality;
+    deflateQuality = deflateQuality < 0 ? wildcardQuality : deflateQuality;
+    if (gzipQuality > 0 && gzipQuality >= deflateQuality) {
+      return GZIP;
+    }
+    if (deflateQuality > 0) {
+      return DEFLATE;
+    }
+    return IDENTITY;
+  }
+
+  private static double quality(final String[] parts) {
+    for (int i = 1; i < parts.length; i++) {
+      final String parameter = parts[i].trim();
+      if (parameter.startsWith("q=")) {
+        try {
+          return Double.parseDouble(parameter.substring(2));
+        } catch (final NumberFormatException e) {
+          return 0;
+        }
+      }
+    }
+    return 1;
+  }
+
+  /** Encodes the bytes with this encoding. */
+  public byte[] encode(final byte[] bytes) throws IOException {
+    if (this == IDENTITY) {
+      return bytes;
+    }
+    final ByteArrayOutputStream encoded = new ByteArrayOutputStream(bytes.length / 4 + 64);
+    try (final OutputStream outputStream =
+        this == GZIP ? new GZIPOutputStream(encoded) : new DeflaterOutputStream(encoded)) {
+      outputStream.write(bytes);
+    }
+    return encoded.toByteArray();
+  }
+
+  /**
+   * Decodes bytes which were encoded with this encoding.
+   *
+   * @param bytes The encoded bytes.
+   * @param maxLength The maximum length of the decoded bytes.
+   * @throws IOException when the bytes can not be decoded or decode to more than maxLength bytes.
+   */
+  public byte[] decode(final byte[] bytes, final int maxLength) throws IOException {
+    if (this == IDENTITY) {
+      return bytes;
+    }
+    try (final InputStream inputStream =
+        this == GZIP
+            ? new GZIPInputStream(new ByteArrayInputStream(bytes))
+            : new InflaterInputStream(new ByteArrayInputStream(bytes))) {
+      final byte[] decoded = inputStream.readNBytes(maxLength);
+      if (inputStream.read() != -1) {
+        throw new IOException("Decoded body exceeds the maximum of " + maxLength + " bytes");
+      }
+      return decoded;
+    }
+  }
+}
@@ -0,0 +1,359 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.soap.endpoints;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import org.gxf.soapbridge.application.services.ConcurrencyLimiter;
+import org.gxf.soapbridge.application.services.ConnectionCacheService.CachedConnection;
+import org.gxf.soapbridge.application.services.PayloadMemoryBudget;
+import org.gxf.soapbridge.application.services.SoapOperationClassifier;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.gxf.soapbridge.soap.clients.Connection;
+import org.gxf.soapbridge.soap.encoding.ContentEncoding;
+import org.gxf.soapbridge.soap.exceptions.PlatformFailureException;
+import org.gxf.soapbridge.soap.exceptions.ProxyServerException;
+import org.gxf.soapbridge.valueobjects.ProxyServerRequestMessage;
+import org.gxf.soapbridge.valueobjects.SoapOperation;
+import org.jetbrains.annotations.NotNull;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebHandler;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * This {@link @Component} class is the reactive endpoint for incoming SOAP requests from client
+ * applications. It is the WebFlux counterpart of {@link SoapEndpoint} and is used when the
+ * application runs with {@code spring.main.web-application-type: reactive}. No thread is held
+ * while waiting for the response; the returned {@link Mono} completes when the response is
+ * delivered to the {@link Connection} or the time-out expires.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSoapEndpoint implements WebHandler {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReactiveSoapEndpoint.class);
+
+  private static final String URL_PROXY_SERVER = "/proxy-server";
+  private static final String URL_NOTIFICATIONS = "/proxy-server/notifications";
+
+  /** The steps every SOAP request goes through. */
+  private final SoapRequestPipeline pipeline;
+
+  private final MonitoringService monitoringService;
+
+  public ReactiveSoapEndpoint(
+      final SoapRequestPipeline pipeline, final MonitoringService monitoringService) {
+    this.pipeline = pipeline;
+    this.monitoringService = monitoringService;
+  }
+
+  /** Handles incoming SOAP requests. */
+  @NotNull
+  @Override
+  public Mono<Void> handle(@NotNull final ServerWebExchange exchange) {
+    final Instant startTime = Instant.now();
+    LOGGER.debug("Start of ReactiveSoapEndpoint.handle()");
+    LOGGER.debug(" headers: {}", exchange.getRequest().getHeaders());
+
+    // Get the context, which should be an GXF SOAP end-point or a
+    // NOTIFICATION SOAP end-point.
+    final String context = getContextForRequestType(exchange.getRequest());
+    LOGGER.debug("Context: {}", context);
+
+    // Shed load before doing any work when too many requests are in flight.
+    final ConcurrencyLimiter.Permit permit = pipeline.tryAcquire();
+    if (permit == null) {
+      return createOverloadedResponse(exchange.getResponse());
+    }
+
+    // Reject a body larger than the maximum size before reading it.
+    final long contentLength = exchange.getRequest().getHeaders().getContentLength();
+    if (contentLength > pipeline.getMaxBodySize()) {
+      LOGGER.error("SOAP request of {} bytes is too large, returning 413.", contentLength);
+      permit.release(ConcurrencyLimiter.Outcome.IGNORED);
+      monitoringService.recordConnectionTime(startTime, context, false);
+      return createPayloadTooLargeResponse(exchange.getResponse());
+    }
+
+    // Reserve memory for the body before it is read.
+    final PayloadMemoryBudget.Reservation reservation = pipeline.tryReserve(contentLength);
+    if (reservation == null) {
+      permit.release(ConcurrencyLimiter.Outcome.IGNORED);
+      return createOverloadedResponse(exchange.getResponse());
+    }
+
+    return Mono.zip(readSoapPayload(exchange.getRequest()), getOrganisationName(exchange))
+        .flatMap(
+            payloadAndOrganisation ->
+                handleSoapRequest(
+                    exchange,
+                    payloadAndOrganisation.getT1(),
+                    payloadAndOrganisation.getT2(),
+                    context,
+                    startTime,
+                    permit,
+                    reservation))
+        .onErrorResume(
+            DataBufferLimitException.class,
+            e -> {
+              LOGGER.error("SOAP request is too large, returning 413.", e);
+              release(permit, reservation);
+              monitoringService.recordConnectionTime(startTime, context, false);
+              return createPayloadTooLargeResponse(exchange.getResponse());
+            })
+        .onErrorResume(
+            e -> {
+              LOGGER.error("Unable to read SOAP request, returning 500.", e);
+              release(permit, reservation);
+              monitoringService.recordConnectionTime(startTime, context, false);
+              return createErrorResponse(exchange.getResponse());
+            })
+        // Releases the permit and the memory when the request is cancelled while it is being
+        // read; once it is admitted, they are owned by the pipeline and releasing them again has
+        // no effect.
+        .doOnCancel(() -> release(permit, reservation));
+  }
+
+  /** Gives back the permit and the memory of a request which is not admitted. */
+  private static void release(
+      final ConcurrencyLimiter.Permit permit, final PayloadMemoryBudget.Reservation reservation) {
+    permit.release(ConcurrencyLimiter.Outcome.IGNORED);
+    reservation.release();
+  }
+
+  /**
+   * Admits the request and completes when the response is written. Admitting is done on a bounded
+   * elastic scheduler, since signing may block.
+   */
+  private Mono<Void> handleSoapRequest(
+      final ServerWebExchange exchange,
+      final byte[] soapPayload,
+      final String organisationName,
+      final String context,
+      final Instant startTime,
+      final ConcurrencyLimiter.Permit permit,
+      final PayloadMemoryBudget.Reservation reservation) {
+    return Mono.fromCallable(
+            () ->
+                pipeline.admit(
+                    permit,
+                    reservation,
+                    exchange
+                        .getRequest()
+                        .getHeaders()
+                        .getFirst(SoapOperationClassifier.SOAP_ACTION_HEADER),
+                    soapPayload,
+                    organisationName,
+                    context))
+        .subscribeOn(Schedulers.boundedElastic())
+        .flatMap(
+            admission ->
+                switch (admission) {
+                  case SoapRequestPipeline.Admission.Overloaded() ->
+                      createOverloadedResponse(exchange.getResponse());
+                  case SoapRequestPipeline.Admission.Cached(
+                          final SoapOperation operation, final String cachedResponse) ->
+                      respond(exchange, Mono.just(cachedResponse), startTime, context, operation);
+                  case SoapRequestPipeline.Admission.Coalesced(
+                          final SoapOperation operation,
+                          final int timeout,
+                          final Connection inFlightConnection) ->
+                      respond(
+                          exchange,
+                          Mono.fromCompletionStage(inFlightConnection.getResponse()),
+                          startTime,
+                          context,
+                          operation);
+                  case SoapRequestPipeline.Admission.Proxied(
+                          final SoapOperation operation,
+                          final int timeout,
+                          final CachedConnection cachedConnection,
+                          final ProxyServerRequestMessage requestMessage) ->
+                      respond(
+                              exchange,
+                              proxyRequest(cachedConnection.getConnection(), requestMessage),
+                              startTime,
+                              context,
+                              operation)
+                          .doFinally(signal -> cachedConnection.close());
+                  case SoapRequestPipeline.Admission.Failed(
+                          final SoapOperation operation, final ProxyServerException cause) -> {
+                    LOGGER.error("Unable to sign message or set security key", cause);
+                    monitoringService.recordConnectionTime(startTime, context, false, operation);
+                    yield createErrorResponse(exchange.getResponse());
+                  }
+                });
+  }
+
+  /** Writes the SOAP response once it is available, or an error when it is not. */
+  private Mono<Void> respond(
+      final ServerWebExchange exchange,
+      final Mono<String> soapResponse,
+      final Instant startTime,
+      final String context,
+      final SoapOperation operation) {
+    return soapResponse
+        .switchIfEmpty(
+            Mono.error(() -> new ProxyServerException("Unable to read SOAP response: null")))
+        .flatMap(
+            soap -> {
+              LOGGER.debug("Request handled, trying to send response...");
+              monitoringService.recordConnectionTime(startTime, context, true, operation);
+              return createSuccessFulResponse(exchange, soap);
+            })
+        .onErrorResume(
+            PlatformFailureException.class,
+            e -> {
+              LOGGER.error("SOAP request failed on the platform side: {}", e.getMessage());
+              monitoringService.recordConnectionTime(startTime, context, false, operation);
+              return createFaultResponse(exchange, e.getSoapFault());
+            })
+        .onErrorResume(
+            e -> {
+              LOGGER.error("Unable to handle SOAP request, returning 500.", e);
+              monitoringService.recordConnectionTime(startTime, context, false, operation);
+              return createErrorResponse(exchange.getResponse());
+            });
+  }
+
+  /** Sends the request message to Kafka and completes with the SOAP response. */
+  private Mono<String> proxyRequest(
+      final Connection connection, final ProxyServerRequestMessage requestMessage) {
+    return Mono.defer(
+        () -> {
+          pipeline.send(connection, requestMessage);
+          return Mono.fromCompletionStage(connection.getResponse());
+        });
+  }
+
+  private String getContextForRequestType(final ServerHttpRequest request) {
+    return request
+        .getPath()
+        .pathWithinApplication()
+        .value()
+        .replace(URL_NOTIFICATIONS, "")
+        .replace(URL_PROXY_SERVER, "");
+  }
+
+  /**
+   * Reads the request body as bytes, without decoding it as characters. A body larger than the
+   * maximum size fails with a {@link DataBufferLimitException} before it is read completely.
+   */
+  private Mono<byte[]> readSoapPayload(final ServerHttpRequest request) {
+    return DataBufferUtils.join(request.getBody(), pipeline.getMaxBodySize())
+        .map(
+            dataBuffer -> {
+              try {
+                final byte[] soapPayload = new byte[dataBuffer.readableByteCount()];
+                dataBuffer.read(soapPayload);
+                return soapPayload;
+              } finally {
+                DataBufferUtils.release(dataBuffer);
+              }
+            })
+        .defaultIfEmpty(new byte[0])
+        .map(
+            body -> {
+              try {
+                return pipeline.decodeSoapPayload(
+                    request.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), body);
+              } catch (final IOException e) {
+                throw Exceptions.propagate(e);
+              }
+            })
+        .doOnNext(
+            soapPayload -> {
+              if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug(" payload: {}", new String(soapPayload, StandardCharsets.UTF_8));
+              }
+            });
+  }
+
+  private Mono<String> getOrganisationName(final ServerWebExchange exchange) {
+    if (!pipeline.useOrganisationFromRequest()) {
+      return Mono.just("");
+    }
+    return exchange
+        .getPrincipal()
+        .filter(Authentication.class::isInstance)
+        .map(principal -> ((Authentication) principal).getPrincipal())
+        .filter(User.class::isInstance)
+        .map(organisation -> ((User) organisation).getUsername())
+        .switchIfEmpty(
+            Mono.error(() -> new ProxyServerException("Unable to find client certificate")));
+  }
+
+  private Mono<Void> createErrorResponse(final ServerHttpResponse response) {
+    response.setStatusCode(HttpStatus.INTERNAL_SERVER_ERROR);
+    return response.setComplete();
+  }
+
+  private Mono<Void> createOverloadedResponse(final ServerHttpResponse response) {
+    response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+    response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(pipeline.getRetryAfter()));
+    return response.setComplete();
+  }
+
+  private Mono<Void> createPayloadTooLargeResponse(final ServerHttpResponse response) {
+    response.setStatusCode(HttpStatus.PAYLOAD_TOO_LARGE);
+    return response.setComplete();
+  }
+
+  private Mono<Void> createSuccessFulResponse(
+      final ServerWebExchange exchange, final String soap) {
+    LOGGER.debug("Start - creating successful response");
+    return createSoapResponse(exchange, HttpStatus.OK, soap);
+  }
+
+  /** Returns a SOAP fault, which a SOAP 1.1 client expects with status 500. */
+  private Mono<Void> createFaultResponse(final ServerWebExchange exchange, final String soapFault) {
+    return createSoapResponse(exchange, HttpStatus.INTERNAL_SERVER_ERROR, soapFault);
+  }
+
+  private Mono<Void> createSoapResponse(
+      final ServerWebExchange exchange, final HttpStatus status, final String soap) {
+    final ServerHttpResponse response = exchange.getResponse();
+    response.setStatusCode(status);
+    final HttpHeaders headers = response.getHeaders();
+    headers.add("Keep-Alive", "timeout=5, max=100");
+    headers.add(HttpHeaders.ACCEPT, "text/xml");
+    headers.add(HttpHeaders.CONNECTION, "Keep-Alive");
+    headers.setContentType(new MediaType(MediaType.TEXT_XML, StandardCharsets.UTF_8));
+
+    final SoapRequestPipeline.EncodedResponse encodedResponse;
+    try {
+      encodedResponse =
+          pipeline.encodeResponse(
+              soap, exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING));
+    } catch (final IOException e) {
+      return Mono.error(e);
+    }
+    if (encodedResponse.varyOnAcceptEncoding()) {
+      headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+    if (encodedResponse.contentEncoding() != ContentEncoding.IDENTITY) {
+      headers.set(HttpHeaders.CONTENT_ENCODING, encodedResponse.contentEncoding().getName());
+    }
+    headers.setContentLength(encodedResponse.body().length);
+    final DataBuffer buffer = response.bufferFactory().wrap(encodedResponse.body());
+    return response.writeWith(Mono.just(buffer));
+  }
+}
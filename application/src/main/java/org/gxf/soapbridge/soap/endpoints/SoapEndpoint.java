@@ -5,26 +5,39 @@ package org.gxf.soapbridge.soap.endpoints;
 
 import static org.springframework.security.web.context.RequestAttributeSecurityContextRepository.DEFAULT_REQUEST_ATTR_NAME;
 
+import jakarta.annotation.Nullable;
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
-import org.gxf.soapbridge.application.services.ConnectionCacheService;
-import org.gxf.soapbridge.application.services.SigningService;
+import org.gxf.soapbridge.application.services.ConcurrencyLimiter;
+import org.gxf.soapbridge.application.services.ConnectionCacheService.CachedConnection;
+import org.gxf.soapbridge.application.services.PayloadMemoryBudget;
+import org.gxf.soapbridge.application.services.SoapOperationClassifier;
 import org.gxf.soapbridge.configuration.properties.SoapConfigurationProperties;
-import org.gxf.soapbridge.kafka.senders.ProxyRequestKafkaSender;
 import org.gxf.soapbridge.monitoring.MonitoringService;
 import org.gxf.soapbridge.soap.clients.Connection;
+import org.gxf.soapbridge.soap.encoding.ContentEncoding;
+import org.gxf.soapbridge.soap.exceptions.PayloadTooLargeException;
+import org.gxf.soapbridge.soap.exceptions.PlatformFailureException;
 import org.gxf.soapbridge.soap.exceptions.ProxyServerException;
 import org.gxf.soapbridge.valueobjects.ProxyServerRequestMessage;
+import org.gxf.soapbridge.valueobjects.SoapOperation;
 import org.jetbrains.annotations.NotNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.userdetails.User;
@@ -36,6 +49,7 @@ import org.springframework.web.HttpRequestHandler;
  * applications.
  */
 @Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class SoapEndpoint implements HttpRequestHandler {
 
   private static final Logger LOGGER = LoggerFactory.getLogger(SoapEndpoint.class);
@@ -43,35 +57,19 @@ public class SoapEndpoint implements HttpRequestHandler {
   private static final String URL_PROXY_SERVER = "/proxy-server";
   private static final String URL_NOTIFICATIONS = "/proxy-server/notifications";
 
-  private static final int INVALID_CUSTOM_TIME_OUT = -1;
-
-  /** Service used to cache incoming connections from client applications. */
-  private final ConnectionCacheService connectionCacheService;
+  /** The steps every SOAP request goes through. */
+  private final SoapRequestPipeline pipeline;
 
   private final SoapConfigurationProperties soapConfiguration;
 
-  /** Message sender which can send a webapp request message to ActiveMQ. */
-  private final ProxyRequestKafkaSender proxyRequestsSender;
-
-  /** Service used to sign the content of a message. */
-  private final SigningService signingService;
-
-  /** Map of time-outs for specific functions. */
-  private final Map<String, Integer> customTimeOutsMap;
-
   private final MonitoringService monitoringService;
 
   public SoapEndpoint(
-      final ConnectionCacheService connectionCacheService,
+      final SoapRequestPipeline pipeline,
       final SoapConfigurationProperties soapConfiguration,
-      final ProxyRequestKafkaSender proxyRequestsSender,
-      final SigningService signingService,
       final MonitoringService monitoringService) {
-    this.connectionCacheService = connectionCacheService;
+    this.pipeline = pipeline;
     this.soapConfiguration = soapConfiguration;
-    this.proxyRequestsSender = proxyRequestsSender;
-    this.signingService = signingService;
-    customTimeOutsMap = soapConfiguration.getCustomTimeouts();
     this.monitoringService = monitoringService;
   }
 
@@ -92,17 +90,51 @@ public class SoapEndpoint implements HttpRequestHandler {
     final String context = getContextForRequestType(request);
     LOGGER.debug("Context: {}", context);
 
+    // Shed load before doing any work when too many requests are in flight.
+    final ConcurrencyLimiter.Permit permit = pipeline.tryAcquire();
+    if (permit == null) {
+      createOverloadedResponse(response);
+      return;
+    }
+
+    // Reject a body larger than the maximum size before reading it.
+    final long contentLength = request.getContentLengthLong();
+    if (contentLength > pipeline.getMaxBodySize()) {
+      LOGGER.error("SOAP request of {} bytes is too large, returning 413.", contentLength);
+      permit.release(ConcurrencyLimiter.Outcome.IGNORED);
+      monitoringService.recordConnectionTime(startTime, context, false);
+      createPayloadTooLargeResponse(response);
+      return;
+    }
+
+    // Reserve memory for the body before it is read.
+    final PayloadMemoryBudget.Reservation reservation = pipeline.tryReserve(contentLength);
+    if (reservation == null) {
+      permit.release(ConcurrencyLimiter.Outcome.IGNORED);
+      createOverloadedResponse(response);
+      return;
+    }
+
     // Try to read the SOAP request.
-    final String soapPayload = readSoapPayload(request);
-    if (soapPayload == null) {
-      LOGGER.error("Unable to read SOAP request, returning 500.");
-      monitoringService.recordConnectionTime(startTime, getContextForRequestType(request), false);
+    final byte[] soapPayload;
+    try {
+      soapPayload = readSoapPayload(request, (int) contentLength);
+    } catch (final PayloadTooLargeException e) {
+      LOGGER.error("SOAP request is too large, returning 413.", e);
+      release(permit, reservation);
+      monitoringService.recordConnectionTime(startTime, context, false);
+      createPayloadTooLargeResponse(response);
+      return;
+    } catch (final IOException | ProxyServerException e) {
+      LOGGER.error("Unable to read SOAP request, returning 500.", e);
+      release(permit, reservation);
+      monitoringService.recordConnectionTime(startTime, context, false);
       createErrorResponse(response);
       return;
     }
 
     String organisationName = null;
-    if (soapConfiguration.getUseOrganisationFromRequest()) {
+    if (pipeline.useOrganisationFromRequest()) {
       if (request.getAttribute(DEFAULT_REQUEST_ATTR_NAME)
               instanceof final SecurityContext securityContext
           && securityContext.getAuthentication().getPrincipal()
@@ -111,7 +143,8 @@ public class SoapEndpoint implements HttpRequestHandler {
       }
       if (organisationName == null) {
         LOGGER.error("Unable to find client certificate, returning 500.");
-        monitoringService.recordConnectionTime(startTime, getContextForRequestType(request), false);
+        release(permit, reservation);
+        monitoringService.recordConnectionTime(startTime, context, false);
         createErrorResponse(response);
         return;
       }
@@ -119,66 +152,185 @@ public class SoapEndpoint implements HttpRequestHandler {
       organisationName = "";
     }
 
-    // Cache the incoming connection.
-    try(final var cachedConnection = connectionCacheService.cacheConnection()) {
-      final var newConnection = cachedConnection.getConnection();
-      final String connectionId = newConnection.getConnectionId();
-
-      // Create a queue message and sign it.
-      final ProxyServerRequestMessage requestMessage =
-              new ProxyServerRequestMessage(connectionId, organisationName, context, soapPayload);
-      try {
-        final String signature = signingService.signContent(requestMessage.constructString());
-        requestMessage.setSignature(signature);
-      } catch (final ProxyServerException e) {
-        LOGGER.error("Unable to sign message or set security key", e);
-        monitoringService.recordConnectionTime(startTime, getContextForRequestType(request), false);
-        createErrorResponse(response);
-        return;
+    final SoapRequestPipeline.Admission admission =
+        pipeline.admit(
+            permit,
+            reservation,
+            request.getHeader(SoapOperationClassifier.SOAP_ACTION_HEADER),
+            soapPayload,
+            organisationName,
+            context);
+    switch (admission) {
+      case SoapRequestPipeline.Admission.Overloaded() -> createOverloadedResponse(response);
+      case SoapRequestPipeline.Admission.Cached(
+              final SoapOperation operation, final String cachedResponse) -> {
+        createSuccessFulResponse(request, response, cachedResponse);
+        monitoringService.recordConnectionTime(startTime, context, true, operation);
       }
-
-      final Integer customTimeOut = shouldUseCustomTimeOut(soapPayload);
-      final int timeout;
-      if (customTimeOut == INVALID_CUSTOM_TIME_OUT) {
-        timeout = soapConfiguration.getTimeout();
-        LOGGER.debug("Using default timeout: {} seconds", timeout);
-      } else {
-        LOGGER.debug("Using custom timeout: {} seconds", customTimeOut);
-        timeout = customTimeOut;
+      case SoapRequestPipeline.Admission.Coalesced(
+              final SoapOperation operation,
+              final int timeout,
+              final Connection inFlightConnection) -> {
+        if (soapConfiguration.getAsyncRequestHandling()) {
+          writeResponseAsynchronously(
+              request, inFlightConnection, null, timeout, startTime, context, operation);
+        } else {
+          writeResponseSynchronously(
+              request, response, inFlightConnection, timeout, startTime, context, operation);
+        }
       }
-
-      try {
-        proxyRequestsSender.send(requestMessage);
-
-        final boolean responseReceived = newConnection.waitForResponseReceived(timeout);
-        if (!responseReceived) {
-          LOGGER.error("No response received within the specified timeout of {} seconds", timeout);
-          monitoringService.recordConnectionTime(startTime, getContextForRequestType(request), false);
-          createErrorResponse(response);
-          return;
+      case SoapRequestPipeline.Admission.Proxied(
+              final SoapOperation operation,
+              final int timeout,
+              final CachedConnection cachedConnection,
+              final ProxyServerRequestMessage requestMessage) -> {
+        if (soapConfiguration.getAsyncRequestHandling()) {
+          handleRequestAsynchronously(
+              request, cachedConnection, requestMessage, timeout, startTime, context, operation);
+        } else {
+          try (cachedConnection) {
+            handleRequestSynchronously(
+                request,
+                response,
+                cachedConnection.getConnection(),
+                requestMessage,
+                timeout,
+                startTime,
+                context,
+                operation);
+          }
         }
-      } catch (final InterruptedException e) {
-        LOGGER.error("Error while waiting for response", e);
-        monitoringService.recordConnectionTime(startTime, getContextForRequestType(request), false);
-        createErrorResponse(response);
-        Thread.currentThread().interrupt();
-        return;
       }
-
-      final String soap = readResponse(connectionId);
-      if (soap == null) {
-        LOGGER.error("Unable to read SOAP response: null");
-        monitoringService.recordConnectionTime(startTime, getContextForRequestType(request), false);
+      case SoapRequestPipeline.Admission.Failed(
+              final SoapOperation operation, final ProxyServerException cause) -> {
+        LOGGER.error("Unable to sign message or set security key", cause);
+        monitoringService.recordConnectionTime(startTime, context, false, operation);
         createErrorResponse(response);
-      } else {
-        LOGGER.debug("Request handled, trying to send response...");
-        createSuccessFulResponse(response, soap);
-        monitoringService.recordConnectionTime(startTime, getContextForRequestType(request), true);
       }
+    }
+  }
+
+  /**
+   * Sends the request to Kafka and parks the current thread until the response is received or the
+   * connection expires.
+   */
+  private void handleRequestSynchronously(
+      final HttpServletRequest request,
+      final HttpServletResponse response,
+      final Connection connection,
+      final ProxyServerRequestMessage requestMessage,
+      final int timeout,
+      final Instant startTime,
+      final String context,
+      final SoapOperation operation)
+      throws IOException {
+    pipeline.send(connection, requestMessage);
+    writeResponseSynchronously(
+        request, response, connection, timeout, startTime, context, operation);
+  }
+
+  /** Parks the current thread until the connection is answered or expires, then responds. */
+  private void writeResponseSynchronously(
+      final HttpServletRequest request,
+      final HttpServletResponse response,
+      final Connection connection,
+      final int timeout,
+      final Instant startTime,
+      final String context,
+      final SoapOperation operation)
+      throws IOException {
+    final String soap;
+    try {
+      soap = connection.waitForResponse();
+    } catch (final TimeoutException e) {
+      LOGGER.error("No response received within the specified timeout of {} seconds", timeout);
+      monitoringService.recordConnectionTime(startTime, context, false, operation);
+      createErrorResponse(response);
+      return;
+    } catch (final InterruptedException e) {
+      LOGGER.error("Error while waiting for response", e);
+      monitoringService.recordConnectionTime(startTime, context, false, operation);
+      createErrorResponse(response);
+      Thread.currentThread().interrupt();
+      return;
+    } catch (final PlatformFailureException e) {
+      LOGGER.error("SOAP request failed on the platform side: {}", e.getMessage());
+      monitoringService.recordConnectionTime(startTime, context, false, operation);
+      createFaultResponse(request, response, e.getSoapFault());
+      return;
+    } catch (final ProxyServerException e) {
+      LOGGER.error("Unable to proxy SOAP request", e);
+      monitoringService.recordConnectionTime(startTime, context, false, operation);
+      createErrorResponse(response);
+      return;
+    }
+
+    if (soap == null) {
+      LOGGER.error("Unable to read SOAP response: null");
+      monitoringService.recordConnectionTime(startTime, context, false, operation);
+      createErrorResponse(response);
+    } else {
+      LOGGER.debug("Request handled, trying to send response...");
+      createSuccessFulResponse(request, response, soap);
+      monitoringService.recordConnectionTime(startTime, context, true, operation);
+    }
+
+    LOGGER.debug(
+        "End of SoapEndpoint.handleRequest() --> incoming request handled and response returned.");
+  }
 
-      LOGGER.debug(
-              "End of SoapEndpoint.handleRequest() --> incoming request handled and response returned.");
+  /**
+   * Puts the request in asynchronous mode and sends it to Kafka. The request thread is released
+   * immediately; the response is written on a container thread once the {@link Connection}
+   * completes, either with the response or on expiry.
+   */
+  private void handleRequestAsynchronously(
+      final HttpServletRequest request,
+      final CachedConnection cachedConnection,
+      final ProxyServerRequestMessage requestMessage,
+      final int timeout,
+      final Instant startTime,
+      final String context,
+      final SoapOperation operation) {
+    writeResponseAsynchronously(
+        request,
+        cachedConnection.getConnection(),
+        cachedConnection,
+        timeout,
+        startTime,
+        context,
+        operation);
+
+    pipeline.send(cachedConnection.getConnection(), requestMessage);
+    LOGGER.debug("End of SoapEndpoint.handleRequest() --> request thread released.");
+  }
+
+  /**
+   * Puts the request in asynchronous mode and writes the response when the connection completes.
+   *
+   * @param cachedConnection The cached connection to close once the response is written, or null
+   *     when the request waits for the connection of an identical request.
+   */
+  private void writeResponseAsynchronously(
+      final HttpServletRequest request,
+      final Connection connection,
+      @Nullable final CachedConnection cachedConnection,
+      final int timeout,
+      final Instant startTime,
+      final String context,
+      final SoapOperation operation) {
+    final AsyncContext asyncContext = request.startAsync();
+    // Time-outs are handled by the connection cache, not by the servlet container.
+    asyncContext.setTimeout(0);
+    if (cachedConnection != null) {
+      asyncContext.addListener(new ClientDisconnectListener(cachedConnection));
     }
+
+    connection
+        .getResponse()
+        .whenComplete(
+            new AsyncResponseWriter(
+                asyncContext, cachedConnection, timeout, startTime, context, operation));
   }
 
   private void logHeaderValues(final HttpServletRequest request) {
@@ -214,61 +366,213 @@ public class SoapEndpoint implements HttpRequestHandler {
     return request.getRequestURI().replace(URL_NOTIFICATIONS, "").replace(URL_PROXY_SERVER, "");
   }
 
-  private String readSoapPayload(final HttpServletRequest request) {
-    final StringBuilder stringBuilder = new StringBuilder();
-    String line;
-    String soapPayload = null;
-    try {
-      final BufferedReader reader = request.getReader();
-      while ((line = reader.readLine()) != null) {
-        stringBuilder.append(line);
-      }
-      soapPayload = stringBuilder.toString();
-      LOGGER.debug(" payload: {}", soapPayload);
-    } catch (final Exception e) {
-      LOGGER.error("Unexpected error while reading request body", e);
-    }
-    return soapPayload;
+  /** Gives back the permit and the memory of a request which is not admitted. */
+  private static void release(
+      final ConcurrencyLimiter.Permit permit, final PayloadMemoryBudget.Reservation reservation) {
+    permit.release(ConcurrencyLimiter.Outcome.IGNORED);
+    reservation.release();
   }
 
-  private Integer shouldUseCustomTimeOut(final String soapPayload) {
-    final Set<String> keys = customTimeOutsMap.keySet();
-    for (final String key : keys) {
-      if (soapPayload.contains(key)) {
-        return customTimeOutsMap.get(key);
+  /**
+   * Reads the request body as bytes, without decoding it as characters, and decodes its content
+   * encoding. When the content length is known the body is read into a single array of exactly
+   * that size, otherwise reading stops as soon as the body exceeds the maximum size.
+   *
+   * @param contentLength The Content-Length of the request, at most the maximum size, or -1 when it
+   *     is unknown.
+   * @throws PayloadTooLargeException when the body is larger than the maximum size.
+   */
+  private byte[] readSoapPayload(final HttpServletRequest request, final int contentLength)
+      throws IOException, ProxyServerException {
+    final int maxBodySize = pipeline.getMaxBodySize();
+    final byte[] body;
+    try (final InputStream inputStream = request.getInputStream()) {
+      if (contentLength >= 0) {
+        body = new byte[contentLength];
+        final int read = inputStream.readNBytes(body, 0, contentLength);
+        if (read != contentLength) {
+          throw new IOException(
+              "Request body ended after " + read + " of " + contentLength + " bytes");
+        }
+      } else {
+        body = inputStream.readNBytes(maxBodySize + 1);
+        if (body.length > maxBodySize) {
+          throw new PayloadTooLargeException(
+              "Request body exceeds the maximum of " + maxBodySize + " bytes");
+        }
       }
     }
-    return INVALID_CUSTOM_TIME_OUT;
+    final byte[] soapPayload =
+        pipeline.decodeSoapPayload(request.getHeader(HttpHeaders.CONTENT_ENCODING), body);
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug(" payload: {}", new String(soapPayload, StandardCharsets.UTF_8));
+    }
+    return soapPayload;
   }
 
-  private String readResponse(final String connectionId) throws ServletException {
-    final String soap;
+  private void createErrorResponse(final HttpServletResponse response) {
+    response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+  }
 
-    final Connection connection = connectionCacheService.findConnection(connectionId);
+  private void createPayloadTooLargeResponse(final HttpServletResponse response) {
+    response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+  }
 
-    if (connection == null) {
-      LOGGER.error(
-          "Unexpected error while trying to find a cached connection for id: {}", connectionId);
-      throw new ServletException("Unable to obtain response");
-    }
+  private void createOverloadedResponse(final HttpServletResponse response) {
+    response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(pipeline.getRetryAfter()));
+  }
 
-    soap = connection.getSoapResponse();
-    return soap;
+  private void createSuccessFulResponse(
+      final HttpServletRequest request, final HttpServletResponse response, final String soap)
+      throws IOException {
+    LOGGER.debug("Start - creating successful response");
+    createSoapResponse(request, response, HttpServletResponse.SC_OK, soap);
+    LOGGER.debug("End - creating successful response");
   }
 
-  private void createErrorResponse(final HttpServletResponse response) {
-    response.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+  /** Returns a SOAP fault, which a SOAP 1.1 client expects with status 500. */
+  private void createFaultResponse(
+      final HttpServletRequest request, final HttpServletResponse response, final String soapFault)
+      throws IOException {
+    createSoapResponse(request, response, HttpServletResponse.SC_INTERNAL_SERVER_ERROR, soapFault);
   }
 
-  private void createSuccessFulResponse(final HttpServletResponse response, final String soap)
+  private void createSoapResponse(
+      final HttpServletRequest request,
+      final HttpServletResponse response,
+      final int status,
+      final String soap)
       throws IOException {
-    LOGGER.debug("Start - creating successful response");
-    response.setStatus(HttpServletResponse.SC_OK);
+    response.setStatus(status);
     response.addHeader("Keep-Alive", "timeout=5, max=100");
     response.addHeader(HttpHeaders.ACCEPT, "text/xml");
     response.addHeader(HttpHeaders.CONNECTION, "Keep-Alive");
     response.setContentType("text/xml; charset=" + StandardCharsets.UTF_8.name());
-    response.getWriter().write(soap);
-    LOGGER.debug("End - creating successful response");
+
+    final SoapRequestPipeline.EncodedResponse encodedResponse =
+        pipeline.encodeResponse(soap, request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    if (encodedResponse.varyOnAcceptEncoding()) {
+      response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    }
+    if (encodedResponse.contentEncoding() != ContentEncoding.IDENTITY) {
+      response.setHeader(
+          HttpHeaders.CONTENT_ENCODING, encodedResponse.contentEncoding().getName());
+    }
+    response.setContentLength(encodedResponse.body().length);
+    response.getOutputStream().write(encodedResponse.body());
+  }
+
+  /** Writes the response of an asynchronously handled request and completes the request. */
+  private class AsyncResponseWriter implements BiConsumer<String, Throwable> {
+    private final AsyncContext asyncContext;
+    @Nullable private final CachedConnection cachedConnection;
+    private final int timeout;
+    private final Instant startTime;
+    private final String context;
+    private final SoapOperation operation;
+
+    AsyncResponseWriter(
+        final AsyncContext asyncContext,
+        @Nullable final CachedConnection cachedConnection,
+        final int timeout,
+        final Instant startTime,
+        final String context,
+        final SoapOperation operation) {
+      this.asyncContext = asyncContext;
+      this.cachedConnection = cachedConnection;
+      this.timeout = timeout;
+      this.startTime = startTime;
+      this.context = context;
+      this.operation = operation;
+    }
+
+    /**
+     * Hands writing the response to a container thread. The connection is completed by a Kafka
+     * listener or by the expiry timer, whose threads must not block on a slow client.
+     */
+    @Override
+    public void accept(final String soapResponse, final Throwable failure) {
+      try {
+        asyncContext.start(() -> write(soapResponse, failure));
+      } catch (final IllegalStateException e) {
+        LOGGER.warn("Asynchronous request ended before its response could be written", e);
+        if (cachedConnection != null) {
+          cachedConnection.close();
+        }
+        monitoringService.recordConnectionTime(startTime, context, false, operation);
+      }
+    }
+
+    private void write(final String soapResponse, final Throwable failure) {
+      final HttpServletResponse response = (HttpServletResponse) asyncContext.getResponse();
+      try (cachedConnection) {
+        final Throwable cause =
+            failure instanceof CompletionException ? failure.getCause() : failure;
+        if (cause instanceof TimeoutException) {
+          LOGGER.error(
+              "No response received within the specified timeout of {} seconds", timeout);
+          monitoringService.recordConnectionTime(startTime, context, false, operation);
+          createErrorResponse(response);
+        } else if (cause instanceof final PlatformFailureException platformFailure) {
+          LOGGER.error(
+              "SOAP request failed on the platform side: {}", platformFailure.getMessage());
+          monitoringService.recordConnectionTime(startTime, context, false, operation);
+          createFaultResponse(
+              (HttpServletRequest) asyncContext.getRequest(),
+              response,
+              platformFailure.getSoapFault());
+        } else if (cause != null) {
+          LOGGER.error("Unable to proxy SOAP request", cause);
+          monitoringService.recordConnectionTime(startTime, context, false, operation);
+          createErrorResponse(response);
+        } else if (soapResponse == null) {
+          LOGGER.error("Unable to read SOAP response: null");
+          monitoringService.recordConnectionTime(startTime, context, false, operation);
+          createErrorResponse(response);
+        } else {
+          LOGGER.debug("Request handled, trying to send response...");
+          createSuccessFulResponse(
+              (HttpServletRequest) asyncContext.getRequest(), response, soapResponse);
+          monitoringService.recordConnectionTime(startTime, context, true, operation);
+        }
+      } catch (final IOException | RuntimeException e) {
+        LOGGER.error("Unexpected error while writing SOAP response", e);
+        monitoringService.recordConnectionTime(startTime, context, false, operation);
+      } finally {
+        asyncContext.complete();
+      }
+    }
+  }
+
+  /** Removes the connection from the cache when the client goes away before it is completed. */
+  private static class ClientDisconnectListener implements AsyncListener {
+    private final CachedConnection cachedConnection;
+
+    ClientDisconnectListener(final CachedConnection cachedConnection) {
+      this.cachedConnection = cachedConnection;
+    }
+
+    @Override
+    public void onComplete(final AsyncEvent event) {
+      // Completed by AsyncResponseWriter, which already removed the connection.
+    }
+
+    @Override
+    public void onTimeout(final AsyncEvent event) {
+      cachedConnection.close();
+    }
+
+    @Override
+    public void onError(final AsyncEvent event) {
+      LOGGER.warn(
+          "Asynchronous request failed before a response was written", event.getThrowable());
+      cachedConnection.close();
+    }
+
+    @Override
+    public void onStartAsync(final AsyncEvent event) {
+      // Not used.
+    }
   }
 }
@@ -0,0 +1,317 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.soap.endpoints;
+
+import jakarta.annotation.Nullable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.gxf.soapbridge.application.services.ConcurrencyLimiter;
+import org.gxf.soapbridge.application.services.ConnectionCacheService;
+import org.gxf.soapbridge.application.services.ConnectionCacheService.CachedConnection;
+import org.gxf.soapbridge.application.services.PayloadMemoryBudget;
+import org.gxf.soapbridge.application.services.RequestCoalescer;
+import org.gxf.soapbridge.application.services.ResponseCache;
+import org.gxf.soapbridge.application.services.SigningService;
+import org.gxf.soapbridge.application.services.SoapOperationClassifier;
+import org.gxf.soapbridge.configuration.properties.CompressionConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.SoapConfigurationProperties;
+import org.gxf.soapbridge.kafka.senders.ProxyRequestKafkaSender;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.gxf.soapbridge.soap.clients.Connection;
+import org.gxf.soapbridge.soap.encoding.ContentEncoding;
+import org.gxf.soapbridge.soap.exceptions.ProxyServerException;
+import org.gxf.soapbridge.valueobjects.ProxyServerRequestMessage;
+import org.gxf.soapbridge.valueobjects.SoapOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * This {@link @Component} class holds the steps every SOAP request from a client application goes
+ * through, whichever endpoint receives it: admission by the {@link ConcurrencyLimiter} and the
+ * {@link PayloadMemoryBudget}, classification, the {@link ResponseCache}, the {@link
+ * RequestCoalescer}, signing and sending to Kafka. The endpoints only read the request and write
+ * the response.
+ */
+@Component
+public class SoapRequestPipeline {
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(SoapRequestPipeline.class);
+
+  /** Service used to cache incoming connections from client applications. */
+  private final ConnectionCacheService connectionCacheService;
+
+  private final SoapConfigurationProperties soapConfiguration;
+
+  /** Message sender which can send a webapp request message to Kafka. */
+  private final ProxyRequestKafkaSender proxyRequestsSender;
+
+  /** Service used to sign the content of a message. */
+  private final SigningService signingService;
+
+  private final MonitoringService monitoringService;
+
+  /** Determines the SOAP operation, used for time-outs and metrics. */
+  private final SoapOperationClassifier soapOperationClassifier;
+
+  /** Limits the number of requests waiting for a response. */
+  private final ConcurrencyLimiter concurrencyLimiter;
+
+  /** Limits the memory held by payloads of requests waiting for a response. */
+  private final PayloadMemoryBudget payloadMemoryBudget;
+
+  /** Answers identical requests with the response of a single request. */
+  private final RequestCoalescer requestCoalescer;
+
+  /** Answers requests of read-only operations with recent responses. */
+  private final ResponseCache responseCache;
+
+  private final CompressionConfigurationProperties compressionConfiguration;
+
+  public SoapRequestPipeline(
+      final ConnectionCacheService connectionCacheService,
+      final SoapConfigurationProperties soapConfiguration,
+      final ProxyRequestKafkaSender proxyRequestsSender,
+      final SigningService signingService,
+      final MonitoringService monitoringService,
+      final SoapOperationClassifier soapOperationClassifier,
+      final ConcurrencyLimiter concurrencyLimiter,
+      final PayloadMemoryBudget payloadMemoryBudget,
+      final RequestCoalescer requestCoalescer,
+      final ResponseCache responseCache,
+      final CompressionConfigurationProperties compressionConfiguration) {
+    this.connectionCacheService = connectionCacheService;
+    this.soapConfiguration = soapConfiguration;
+    this.proxyRequestsSender = proxyRequestsSender;
+    this.signingService = signingService;
+    this.monitoringService = monitoringService;
+    this.soapOperationClassifier = soapOperationClassifier;
+    this.concurrencyLimiter = concurrencyLimiter;
+    this.payloadMemoryBudget = payloadMemoryBudget;
+    this.requestCoalescer = requestCoalescer;
+    this.responseCache = responseCache;
+    this.compressionConfiguration = compressionConfiguration;
+  }
+
+  /**
+   * Sheds load before doing any work when too many requests are in flight.
+   *
+   * @return A permit which must be passed to {@link #admit}, or released when the request ends
+   *     before that; null when the request must be rejected.
+   */
+  @Nullable
+  public ConcurrencyLimiter.Permit tryAcquire() {
+    return concurrencyLimiter.tryAcquire();
+  }
+
+  /** Number of seconds a rejected client should wait before retrying. */
+  public int getRetryAfter() {
+    return concurrencyLimiter.getRetryAfter();
+  }
+
+  /**
+   * Reserves memory for a request body before it is read, so a request which does not fit in the
+   * memory budget is rejected before its body is held in memory.
+   *
+   * @param contentLength The Content-Length of the request, or -1 when it is unknown, in which case
+   *     the maximum body size is reserved.
+   * @return A reservation which must be passed to {@link #admit}, or released when the request ends
+   *     before that; null when the request must be rejected.
+   */
+  @Nullable
+  public PayloadMemoryBudget.Reservation tryReserve(final long contentLength) {
+    return payloadMemoryBudget.tryReserveRequest(
+        contentLength >= 0 ? (int) contentLength : getMaxBodySize());
+  }
+
+  /** The maximum size of a request body, compressed or not. */
+  public int getMaxBodySize() {
+    return (int) compressionConfiguration.getMaxDecompressedSize().toBytes();
+  }
+
+  /** Whether the organisation of the client certificate is sent along with the request. */
+  public boolean useOrganisationFromRequest() {
+    return soapConfiguration.getUseOrganisationFromRequest();
+  }
+
+  /** Decodes a compressed request body. */
+  public byte[] decodeSoapPayload(
+      @Nullable final String contentEncodingHeader, final byte[] body) throws IOException {
+    final ContentEncoding contentEncoding = ContentEncoding.fromHeader(contentEncodingHeader);
+    final byte[] soapPayload = contentEncoding.decode(body, getMaxBodySize());
+    if (contentEncoding != ContentEncoding.IDENTITY) {
+      monitoringService.recordCompression(
+          "request", contentEncoding.getName(), soapPayload.length, body.length);
+    }
+    return soapPayload;
+  }
+
+  /**
+   * Admits a request which holds a permit and a reservation. The request is answered from the
+   * {@link ResponseCache}, waits for an identical request in flight, or gets a cached connection
+   * and a signed request message. The permit and the reservation are handed over to the cached
+   * connection, the permit of a waiting request is released when it is answered, and both are
+   * released otherwise.
+   *
+   * @param permit The permit of {@link #tryAcquire()}.
+   * @param reservation The reservation of {@link #tryReserve(long)}.
+   * @param soapActionHeader The SOAPAction header of the request.
+   * @param soapPayload The decoded request body.
+   * @param organisationName The organisation of the client certificate, empty when it is not used.
+   * @param context The context of the request.
+   * @return What the endpoint has to do with the request.
+   */
+  public Admission admit(
+      final ConcurrencyLimiter.Permit permit,
+      final PayloadMemoryBudget.Reservation reservation,
+      @Nullable final String soapActionHeader,
+      final byte[] soapPayload,
+      final String organisationName,
+      final String context) {
+    // Shed load when a decoded payload larger than its body does not fit in the memory budget.
+    if (!reservation.tryResizeRequest(soapPayload.length)) {
+      permit.release(ConcurrencyLimiter.Outcome.IGNORED);
+      reservation.release();
+      return new Admission.Overloaded();
+    }
+
+    final SoapOperation operation = soapOperationClassifier.classify(soapActionHeader, soapPayload);
+    final int timeout = soapConfiguration.timeoutFor(operation);
+    LOGGER.debug("Operation: {}, using timeout: {} seconds", operation.getName(), timeout);
+
+    // Answer with a cached response to an identical request, if there is one.
+    final String responseCacheKey =
+        responseCache.keyFor(operation, organisationName, context, soapPayload);
+    if (responseCacheKey != null) {
+      final String cachedResponse = responseCache.find(operation, responseCacheKey);
+      if (cachedResponse != null) {
+        permit.release(ConcurrencyLimiter.Outcome.IGNORED);
+        reservation.release();
+        return new Admission.Cached(operation, cachedResponse);
+      }
+    }
+
+    // Wait for the response of an identical request, if one is in flight.
+    final String coalescingKey =
+        requestCoalescer.keyFor(operation, organisationName, context, soapPayload);
+    if (coalescingKey != null) {
+      final Connection inFlightConnection = requestCoalescer.findInFlight(operation, coalescingKey);
+      if (inFlightConnection != null) {
+        // The waiter still counts as in flight, so waiters can not pile up beyond the limit. Its
+        // payload is not kept, so its memory is given back right away.
+        inFlightConnection
+            .getResponse()
+            .whenComplete(
+                (response, failure) -> permit.release(ConcurrencyLimiter.Outcome.IGNORED));
+        reservation.release();
+        return new Admission.Coalesced(operation, timeout, inFlightConnection);
+      }
+    }
+
+    // Cache the incoming connection, then create a queue message and sign it.
+    final CachedConnection cachedConnection =
+        connectionCacheService.cacheConnection(timeout, permit, reservation);
+    final Connection connection = cachedConnection.getConnection();
+    final ProxyServerRequestMessage requestMessage =
+        new ProxyServerRequestMessage(
+            connection.getConnectionId(), organisationName, context, soapPayload);
+    try {
+      requestMessage.setSignature(
+          signingService.signContent(proxyRequestsSender.signedContent(requestMessage)));
+    } catch (final ProxyServerException e) {
+      cachedConnection.close();
+      return new Admission.Failed(operation, e);
+    }
+
+    if (coalescingKey != null) {
+      requestCoalescer.register(coalescingKey, connection);
+    }
+    if (responseCacheKey != null) {
+      responseCache.cacheWhenAnswered(operation, responseCacheKey, connection);
+    }
+    return new Admission.Proxied(operation, timeout, cachedConnection, requestMessage);
+  }
+
+  /**
+   * Sends the request to Kafka. When sending fails the connection fails right away, instead of
+   * waiting for a response which will never arrive.
+   */
+  public void send(final Connection connection, final ProxyServerRequestMessage requestMessage) {
+    proxyRequestsSender
+        .send(requestMessage)
+        .whenComplete(
+            (result, failure) -> {
+              if (failure != null) {
+                connection.fail(new ProxyServerException("Unable to send SOAP request", failure));
+              }
+            });
+  }
+
+  /**
+   * Encodes a SOAP response for the client application, compressing it when it accepts that.
+   *
+   * @param soap The SOAP response.
+   * @param acceptEncodingHeader The Accept-Encoding header of the request.
+   */
+  public EncodedResponse encodeResponse(
+      final String soap, @Nullable final String acceptEncodingHeader) throws IOException {
+    final byte[] body = soap.getBytes(StandardCharsets.UTF_8);
+    final ContentEncoding contentEncoding =
+        selectResponseEncoding(acceptEncodingHeader, body.length);
+    final byte[] encodedBody = contentEncoding.encode(body);
+    if (contentEncoding != ContentEncoding.IDENTITY) {
+      monitoringService.recordCompression(
+          "response", contentEncoding.getName(), body.length, encodedBody.length);
+    }
+    return new EncodedResponse(
+        encodedBody, contentEncoding, compressionConfiguration.getEnabled());
+  }
+
+  private ContentEncoding selectResponseEncoding(
+      @Nullable final String acceptEncodingHeader, final int length) {
+    if (!compressionConfiguration.getEnabled()
+        || length < compressionConfiguration.getMinResponseSize().toBytes()) {
+      return ContentEncoding.IDENTITY;
+    }
+    return ContentEncoding.negotiate(acceptEncodingHeader);
+  }
+
+  /** The outcome of {@link #admit}. */
+  public sealed interface Admission {
+
+    /** The payload does not fit in the memory budget; the request must be rejected. */
+    record Overloaded() implements Admission {}
+
+    /** The request is answered with the cached response to an identical request. */
+    record Cached(SoapOperation operation, String response) implements Admission {}
+
+    /** The request is answered with the response to the identical request of the connection. */
+    record Coalesced(SoapOperation operation, int timeout, Connection connection)
+        implements Admission {}
+
+    /**
+     * The request message must be sent, and the request answered with the response to the
+     * connection. The cached connection must be closed once the response has been written.
+     */
+    record Proxied(
+        SoapOperation operation,
+        int timeout,
+        CachedConnection cachedConnection,
+        ProxyServerRequestMessage requestMessage)
+        implements Admission {}
+
+    /** The request message could not be signed. */
+    record Failed(SoapOperation operation, ProxyServerException cause) implements Admission {}
+  }
+
+  /**
+   * A SOAP response encoded for the client application.
+   *
+   * @param body The encoded body.
+   * @param contentEncoding The encoding of the body.
+   * @param varyOnAcceptEncoding Whether the encoding depends on the Accept-Encoding header.
+   */
+  public record EncodedResponse(
+      byte[] body, ContentEncoding contentEncoding, boolean varyOnAcceptEncoding) {}
+}
@@ -0,0 +1,16 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.soap.exceptions;
+
+import java.io.Serial;
+
+/** The body of a request from a client application is larger than the maximum body size. */
+public class PayloadTooLargeException extends ProxyServerException {
+
+  @Serial private static final long serialVersionUID = -2716843095372045181L;
+
+  public PayloadTooLargeException(final String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,27 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.soap.exceptions;
+
+import java.io.Serial;
+
+/**
+ * The request got no SOAP response from the platform. Carries the SOAP fault which is returned to
+ * the client application instead.
+ */
+public class PlatformFailureException extends ProxyServerException {
+
+  @Serial private static final long serialVersionUID = 4242861383212279013L;
+
+  private final String soapFault;
+
+  public PlatformFailureException(final String message, final String soapFault) {
+    super(message);
+    this.soapFault = soapFault;
+  }
+
+  /** The SOAP envelope with the fault for the client application. */
+  public String getSoapFault() {
+    return soapFault;
+  }
+}
@@ -5,12 +5,11 @@ package org.gxf.soapbridge.soap.exceptions;
 
 import java.io.Serial;
 
-public class UnableToCreateHttpsURLConnectionException extends ProxyServerException {
+public class UnableToCreateHttpClientException extends ProxyServerException {
 
   @Serial private static final long serialVersionUID = -8807766325167125880L;
 
-  public UnableToCreateHttpsURLConnectionException(
-      final String message, final Throwable throwable) {
-    super(message, throwable);
+  public UnableToCreateHttpClientException(final String message) {
+    super(message);
   }
 }
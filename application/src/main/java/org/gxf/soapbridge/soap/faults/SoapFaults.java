@@ -0,0 +1,30 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.soap.faults;
+
+/** Creates the SOAP 1.1 faults returned when the platform can not be reached. */
+public final class SoapFaults {
+
+  private SoapFaults() {}
+
+  /**
+   * Creates a SOAP envelope with a fault indicating that the request could not be processed, which
+   * is not the fault of the client application.
+   *
+   * @param faultString The human readable explanation of the fault.
+   */
+  public static String serverFault(final String faultString) {
+    return "<soapenv:Envelope xmlns:soapenv=\"http://schemas.xmlsoap.org/soap/envelope/\">"
+        + "<soapenv:Body><soapenv:Fault>"
+        + "<faultcode>soapenv:Server</faultcode>"
+        + "<faultstring>"
+        + escape(faultString)
+        + "</faultstring>"
+        + "</soapenv:Fault></soapenv:Body></soapenv:Envelope>";
+  }
+
+  private static String escape(final String text) {
+    return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+  }
+}
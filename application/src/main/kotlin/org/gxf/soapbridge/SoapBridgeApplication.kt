@@ -6,10 +6,8 @@ package org.gxf.soapbridge
 import org.springframework.boot.autoconfigure.SpringBootApplication
 import org.springframework.boot.context.properties.ConfigurationPropertiesScan
 import org.springframework.boot.runApplication
-import org.springframework.scheduling.annotation.EnableAsync
-import org.springframework.web.servlet.config.annotation.EnableWebMvc
 
-@SpringBootApplication @EnableWebMvc @EnableAsync @ConfigurationPropertiesScan class SoapBridgeApplication
+@SpringBootApplication @ConfigurationPropertiesScan class SoapBridgeApplication
 
 fun main(args: Array<String>) {
     runApplication<SoapBridgeApplication>(*args)
@@ -0,0 +1,43 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.configuration
+
+import org.gxf.soapbridge.configuration.SecurityConfiguration.Companion.SUBJECT_PRINCIPAL_REGEX
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication
+import org.springframework.context.annotation.Bean
+import org.springframework.context.annotation.Configuration
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity
+import org.springframework.security.config.web.server.ServerHttpSecurity
+import org.springframework.security.core.userdetails.ReactiveUserDetailsService
+import org.springframework.security.core.userdetails.User
+import org.springframework.security.web.authentication.preauth.x509.SubjectDnX509PrincipalExtractor
+import org.springframework.security.web.server.SecurityWebFilterChain
+import org.springframework.security.web.server.authentication.ReactivePreAuthenticatedAuthenticationManager
+import reactor.core.publisher.Mono
+
+/** Reactive counterpart of [SecurityConfiguration], used when running on WebFlux. */
+@Configuration
+@EnableWebFluxSecurity
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+class ReactiveSecurityConfiguration {
+
+    @Bean
+    fun securityWebFilterChain(http: ServerHttpSecurity): SecurityWebFilterChain =
+        http
+            .authorizeExchange { it.pathMatchers("/actuator/**").permitAll().anyExchange().authenticated() }
+            .x509 {
+                it.principalExtractor(
+                        SubjectDnX509PrincipalExtractor().apply { setSubjectDnRegex(SUBJECT_PRINCIPAL_REGEX) }
+                    )
+                    .authenticationManager(ReactivePreAuthenticatedAuthenticationManager(reactiveUserDetailsService()))
+            }
+            .csrf { it.disable() }
+            .build()
+
+    /** Uses the CN of the client certificate as the username for Springs Principal object */
+    @Bean
+    fun reactiveUserDetailsService(): ReactiveUserDetailsService = ReactiveUserDetailsService { username ->
+        Mono.just(User(username, "", emptyList()))
+    }
+}
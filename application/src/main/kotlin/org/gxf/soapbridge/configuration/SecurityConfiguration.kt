@@ -3,6 +3,7 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.gxf.soapbridge.configuration
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication
 import org.springframework.context.annotation.Bean
 import org.springframework.context.annotation.Configuration
 import org.springframework.security.config.annotation.web.builders.HttpSecurity
@@ -11,13 +12,14 @@ import org.springframework.security.core.userdetails.UserDetailsService
 import org.springframework.security.web.SecurityFilterChain
 
 @Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 class SecurityConfiguration {
 
     @Bean
     fun filterChain(http: HttpSecurity): SecurityFilterChain =
         http
             .authorizeHttpRequests { it.requestMatchers("/actuator/**").permitAll().anyRequest().authenticated() }
-            .x509 { it.subjectPrincipalRegex("CN=(.*?)(?:,|$)").userDetailsService(userDetailsService()) }
+            .x509 { it.subjectPrincipalRegex(SUBJECT_PRINCIPAL_REGEX).userDetailsService(userDetailsService()) }
             .csrf { it.disable() }
             .build()
 
@@ -26,4 +28,9 @@ class SecurityConfiguration {
     fun userDetailsService(): UserDetailsService = UserDetailsService { username ->
         return@UserDetailsService User(username, "", emptyList())
     }
+
+    companion object {
+        /** Extracts the CN of the client certificate subject as the organisation name. */
+        const val SUBJECT_PRINCIPAL_REGEX = "CN=(.*?)(?:,|$)"
+    }
 }
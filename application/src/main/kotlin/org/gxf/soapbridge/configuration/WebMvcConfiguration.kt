@@ -0,0 +1,18 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.configuration
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication
+import org.springframework.context.annotation.Configuration
+import org.springframework.web.servlet.config.annotation.EnableWebMvc
+
+/**
+ * Enables Spring MVC when running as a servlet application (the default). When `spring.main.web-application-type` is
+ * set to `reactive`, incoming SOAP requests are handled by
+ * [org.gxf.soapbridge.soap.endpoints.ReactiveSoapEndpoint] on Netty instead.
+ */
+@Configuration
+@EnableWebMvc
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+class WebMvcConfiguration
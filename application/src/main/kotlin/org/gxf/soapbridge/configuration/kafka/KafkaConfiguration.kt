@@ -3,8 +3,19 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.gxf.soapbridge.configuration.kafka
 
+import org.apache.kafka.clients.consumer.ConsumerConfig
+import org.apache.kafka.clients.producer.ProducerConfig
+import org.apache.kafka.common.serialization.ByteArrayDeserializer
+import org.apache.kafka.common.serialization.ByteArraySerializer
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaConsumerFactoryCustomizer
+import org.springframework.boot.autoconfigure.kafka.DefaultKafkaProducerFactoryCustomizer
 import org.springframework.context.annotation.Bean
 import org.springframework.context.annotation.Configuration
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory
+import org.springframework.kafka.core.ConsumerFactory
+import org.springframework.kafka.listener.ContainerProperties
 import org.springframework.kafka.listener.DefaultErrorHandler
 import org.springframework.util.backoff.FixedBackOff
 
@@ -16,4 +27,36 @@ class KafkaConfiguration {
     fun errorHandler(): DefaultErrorHandler {
         return DefaultErrorHandler(FixedBackOff(0, 2L))
     }
+
+    /**
+     * Container factory of the keyed mode of the request listener. Records are acknowledged by the workers processing
+     * them, possibly out of order; the container only commits offsets up to the first record not acknowledged yet.
+     */
+    @Bean(KEYED_CONTAINER_FACTORY)
+    @ConditionalOnProperty(prefix = "kafka.incoming.keyed", name = ["enabled"], havingValue = "true")
+    fun keyedKafkaListenerContainerFactory(
+        configurer: ConcurrentKafkaListenerContainerFactoryConfigurer,
+        consumerFactory: ConsumerFactory<Any, Any>,
+    ) =
+        ConcurrentKafkaListenerContainerFactory<Any, Any>().apply {
+            configurer.configure(this, consumerFactory)
+            containerProperties.ackMode = ContainerProperties.AckMode.MANUAL
+            containerProperties.isAsyncAcks = true
+        }
+
+    /** Record values are bytes, so both the text and the binary wire format can be sent. */
+    @Bean
+    fun byteArrayProducerFactoryCustomizer() = DefaultKafkaProducerFactoryCustomizer {
+        it.updateConfigs(mapOf(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG to ByteArraySerializer::class.java))
+    }
+
+    /** Record values are bytes, so both the text and the binary wire format can be received. */
+    @Bean
+    fun byteArrayConsumerFactoryCustomizer() = DefaultKafkaConsumerFactoryCustomizer {
+        it.updateConfigs(mapOf(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG to ByteArrayDeserializer::class.java))
+    }
+
+    companion object {
+        const val KEYED_CONTAINER_FACTORY = "keyedKafkaListenerContainerFactory"
+    }
 }
@@ -0,0 +1,25 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.configuration.properties
+
+import java.time.Duration
+import org.springframework.boot.context.properties.ConfigurationProperties
+
+/**
+ * Configuration of batch signing. Messages signed within a short window are signed as a group: the root of a Merkle tree
+ * over the messages is signed once, and every message carries the root signature and the proof that it is part of the
+ * tree. Messages signed in either way are always accepted.
+ */
+@ConfigurationProperties("security.signing.batch")
+class BatchSigningConfigurationProperties(
+    val enabled: Boolean = false,
+    /**
+     * The time a group is collected after its first message, which is the maximum delay added to signing. Signing
+     * blocks the calling thread until its group is signed, so a caller may be held for this time; on the client-facing
+     * side that is the thread admitting the request, which for the reactive endpoint is a bounded elastic thread.
+     */
+    val window: Duration = Duration.ofMillis(2),
+    /** The maximum number of messages in a group. A full group is signed right away. */
+    val maxSize: Int = 256,
+)
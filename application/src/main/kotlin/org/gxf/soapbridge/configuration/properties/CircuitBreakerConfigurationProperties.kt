@@ -0,0 +1,33 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.configuration.properties
+
+import java.time.Duration
+import org.springframework.boot.context.properties.ConfigurationProperties
+
+/**
+ * Configuration of the circuit breakers guarding the services of the platform. Every context (the path of a service)
+ * has its own breaker. A breaker opens when too many of the recent calls failed or were slow; while it is open,
+ * requests are answered with a SOAP fault right away. After [openDuration], a few probe calls decide whether it closes
+ * again.
+ */
+@ConfigurationProperties("soap.circuit-breaker")
+class CircuitBreakerConfigurationProperties(
+    /** Enables the breakers. When disabled, all requests are sent to the platform. */
+    val enabled: Boolean = false,
+    /** The number of recent calls the rates are calculated over. */
+    val windowSize: Int = 50,
+    /** The minimum number of calls in the window before the breaker can open. */
+    val minimumCalls: Int = 20,
+    /** The percentage of failed calls at which the breaker opens. */
+    val failureRateThreshold: Int = 50,
+    /** Calls taking longer than this are slow. */
+    val slowCallDuration: Duration = Duration.ofSeconds(10),
+    /** The percentage of slow calls at which the breaker opens. */
+    val slowCallRateThreshold: Int = 80,
+    /** The time the breaker stays open before probe calls are let through. */
+    val openDuration: Duration = Duration.ofSeconds(30),
+    /** The number of probe calls which decide whether the breaker closes again. */
+    val probeCalls: Int = 3,
+)
@@ -0,0 +1,16 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.configuration.properties
+
+import org.springframework.boot.context.properties.ConfigurationProperties
+
+/**
+ * Configuration of the coalescing of identical requests. A request with the same organisation, context and payload as a
+ * request still waiting for its response is answered with that response, instead of being sent to the platform again.
+ */
+@ConfigurationProperties("soap.coalescing")
+class CoalescingConfigurationProperties(
+    /** The SOAP operations (element names of the request) for which identical requests are coalesced. */
+    val operations: Set<String> = emptySet()
+)
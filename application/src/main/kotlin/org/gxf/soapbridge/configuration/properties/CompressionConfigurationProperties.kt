@@ -0,0 +1,22 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.configuration.properties
+
+import org.springframework.boot.context.properties.ConfigurationProperties
+import org.springframework.util.unit.DataSize
+
+/**
+ * Configuration of HTTP content encoding (gzip or deflate). Compressed request bodies from client applications are
+ * always decoded; compression of responses to client applications and of responses from the platform is negotiated
+ * when enabled.
+ */
+@ConfigurationProperties("soap.compression")
+class CompressionConfigurationProperties(
+    /** Enables compression of responses to client applications and requests compressed responses from the platform. */
+    val enabled: Boolean = false,
+    /** Responses to client applications smaller than this size are not compressed. */
+    val minResponseSize: DataSize = DataSize.ofKilobytes(1),
+    /** Maximum size of a decompressed body, which protects against decompression bombs. */
+    val maxDecompressedSize: DataSize = DataSize.ofMegabytes(16),
+)
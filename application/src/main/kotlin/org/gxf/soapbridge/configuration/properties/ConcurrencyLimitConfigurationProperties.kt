@@ -0,0 +1,27 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.configuration.properties
+
+import org.springframework.boot.context.properties.ConfigurationProperties
+
+/**
+ * Configuration of the adaptive limit on the number of in-flight requests from client applications. The limit grows
+ * additively while requests are answered and shrinks multiplicatively when requests time out or fail on the platform
+ * side.
+ */
+@ConfigurationProperties("soap.concurrency-limit")
+class ConcurrencyLimitConfigurationProperties(
+    /** Enables the limit. When disabled, all requests are accepted. */
+    val enabled: Boolean = false,
+    /** The limit at startup. */
+    val initialLimit: Int = 200,
+    /** The limit never drops below this value. */
+    val minLimit: Int = 20,
+    /** The limit never grows beyond this value. */
+    val maxLimit: Int = 5000,
+    /** Factor applied to the limit when a request times out or fails on the platform side. */
+    val backoffRatio: Double = 0.9,
+    /** Number of seconds returned in the Retry-After header of rejected requests. */
+    val retryAfter: Int = 5,
+)
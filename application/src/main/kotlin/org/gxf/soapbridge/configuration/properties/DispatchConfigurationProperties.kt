@@ -0,0 +1,29 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.configuration.properties
+
+import org.springframework.boot.context.properties.ConfigurationProperties
+
+/**
+ * Configuration of the dispatch of requests to the platform. Every organisation has its own queue; requests are taken
+ * from the queues in proportion to the weights of the organisations, so an organisation sending many requests can not
+ * delay the requests of others.
+ */
+@ConfigurationProperties("soap.dispatch")
+class DispatchConfigurationProperties(
+    /** Enables the queues. When disabled, requests are sent to the platform as soon as they arrive. */
+    val enabled: Boolean = false,
+    /** The maximum number of requests waiting for the platform. */
+    val maxConcurrency: Int = 200,
+    /** The maximum number of requests of a single organisation waiting for the platform. */
+    val maxConcurrencyPerOrganisation: Int = 50,
+    /** The maximum number of queued requests per organisation. Requests beyond it are answered with a SOAP fault. */
+    val maxQueueSize: Int = 1000,
+    /** Weights by organisation. An organisation with weight 2 gets twice the share of one with weight 1. */
+    val weights: Map<String, Int> = emptyMap(),
+    /** The weight of organisations not in [weights]. */
+    val defaultWeight: Int = 1,
+) {
+    fun weightOf(organisation: String): Int = weights[organisation] ?: defaultWeight
+}
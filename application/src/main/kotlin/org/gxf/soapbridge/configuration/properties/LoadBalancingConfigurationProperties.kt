@@ -0,0 +1,43 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.configuration.properties
+
+import java.time.Duration
+import org.springframework.boot.context.properties.ConfigurationProperties
+
+/**
+ * Configuration of the load balancing over the endpoints of the platform, used when more than one endpoint is
+ * configured in `soap.call-endpoints`. Every request goes to the best endpoint according to the [strategy]; endpoints
+ * which fail health checks or fail calls repeatedly are skipped for a while.
+ */
+@ConfigurationProperties("soap.load-balancing")
+class LoadBalancingConfigurationProperties(
+    /** How the endpoint of a request is chosen. */
+    val strategy: LoadBalancingStrategy = LoadBalancingStrategy.LEAST_OUTSTANDING_REQUESTS,
+    /** The time in which the weight of a latency in the average of [LoadBalancingStrategy.EWMA] decays to 1/e. */
+    val ewmaDecay: Duration = Duration.ofSeconds(10),
+    /** The time between health checks of every endpoint. A zero duration disables health checks. */
+    val healthCheckInterval: Duration = Duration.ofSeconds(10),
+    /** The path on the endpoint which is checked with an OPTIONS request. */
+    val healthCheckPath: String = "",
+    /** The time within which an endpoint must answer a health check. */
+    val healthCheckTimeout: Duration = Duration.ofSeconds(5),
+    /** The number of consecutive failed calls after which an endpoint is ejected. */
+    val ejectionConsecutiveFailures: Int = 5,
+    /** The time an ejected endpoint is skipped. */
+    val ejectionDuration: Duration = Duration.ofSeconds(30),
+    /** The maximum percentage of the endpoints which may be ejected at the same time. */
+    val maxEjectionPercent: Int = 50,
+)
+
+enum class LoadBalancingStrategy {
+    /** The endpoint with the fewest requests waiting for a response. */
+    LEAST_OUTSTANDING_REQUESTS,
+
+    /**
+     * The endpoint with the lowest exponentially weighted moving average of the latency, multiplied by the number of
+     * requests waiting for a response plus one.
+     */
+    EWMA,
+}
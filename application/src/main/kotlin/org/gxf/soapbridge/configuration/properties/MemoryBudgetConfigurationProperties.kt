@@ -0,0 +1,16 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.configuration.properties
+
+import org.springframework.boot.context.properties.ConfigurationProperties
+import org.springframework.util.unit.DataSize
+
+/** Configuration of the budget for payloads of in-flight requests and their responses. */
+@ConfigurationProperties("soap.memory-budget")
+class MemoryBudgetConfigurationProperties(
+    /** Enables the budget. When disabled, payloads of any total size are accepted. */
+    val enabled: Boolean = false,
+    /** Maximum total size of the payloads held for pending connections. */
+    val maxSize: DataSize = DataSize.ofMegabytes(256),
+)
@@ -0,0 +1,17 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.configuration.properties
+
+import org.springframework.boot.context.properties.ConfigurationProperties
+
+/**
+ * Identity of this instance among the instances of the bridge serving client applications. The node id is part of the
+ * connection ids of this instance, so the bridge on the platform side can send the responses to the topic this instance
+ * consumes, see `kafka.outgoing.responses.per-node`.
+ */
+@ConfigurationProperties("soap.node")
+class NodeConfigurationProperties(
+    /** The id of this node, consisting of letters, digits, '_' and '-'. Empty when responses are not routed by node. */
+    val id: String = ""
+)
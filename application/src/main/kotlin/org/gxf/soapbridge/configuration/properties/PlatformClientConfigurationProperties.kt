@@ -0,0 +1,37 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.configuration.properties
+
+import java.time.Duration
+import org.springframework.boot.context.properties.ConfigurationProperties
+
+/**
+ * Configuration of the HTTPS connections to the platform. Connections are kept open and reused; every organisation has
+ * its own pool, since the client certificate of the organisation is part of the TLS session.
+ */
+@ConfigurationProperties("soap.platform-client")
+class PlatformClientConfigurationProperties(
+    /**
+     * Negotiates HTTP/2 with the platform, which multiplexes the requests of an organisation over a single connection.
+     * When disabled, or not supported by the platform, HTTP/1.1 is used with a connection per request in flight.
+     */
+    val http2: Boolean = true,
+    /** The maximum number of connections to the platform per organisation. */
+    val maxPerRoute: Int = 20,
+    /**
+     * The number of I/O threads per organisation, which only move bytes; responses are handled on other threads. Every
+     * organisation has its own client, because its client certificate is part of the TLS session, so the bridge runs
+     * this number of I/O threads for every organisation that sent a request since startup. Keep it at 1 unless a
+     * single organisation saturates its thread.
+     */
+    val ioThreads: Int = 1,
+    /** The time within which a connection to the platform must be established. */
+    val connectTimeout: Duration = Duration.ofSeconds(10),
+    /** Connections which are not used for this time are closed. */
+    val idleTimeout: Duration = Duration.ofSeconds(60),
+    /** Organisations for which connections are opened at startup, before the first request arrives. */
+    val prewarmOrganisations: List<String> = emptyList(),
+    /** The number of connections opened at startup for each of the [prewarmOrganisations]. */
+    val prewarmConnections: Int = 2,
+)
@@ -0,0 +1,20 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.configuration.properties
+
+import java.time.Duration
+import org.springframework.boot.context.properties.ConfigurationProperties
+import org.springframework.util.unit.DataSize
+
+/**
+ * Configuration of the cache of responses to read-only requests. Responses are cached per organisation, context and
+ * request payload, and are returned without sending the request to the platform until they expire.
+ */
+@ConfigurationProperties("soap.response-cache")
+class ResponseCacheConfigurationProperties(
+    /** Time to live of cached responses, by SOAP operation (element name of the request). Other operations are not cached. */
+    val timeToLive: Map<String, Duration> = emptyMap(),
+    /** Maximum total size of the cached responses. The least recently used responses are evicted first. */
+    val maxSize: DataSize = DataSize.ofMegabytes(64),
+)
@@ -24,21 +24,33 @@ class SecurityConfigurationProperties(
 class StoreConfigurationProperties(val location: String, val password: String, val type: String)
 
 class SigningConfigurationProperties(
+    /** The type of the keys: RSA, EC (for ECDSA) or Ed25519. */
     keyType: String,
     signKeyFile: String,
     verifyKeyFile: String,
-    /** Indicates which provider is used for signing and verification. */
-    val provider: String,
-    /** Indicates which signature is used for signing and verification. */
-    val signature: String,
+    /** Indicates which provider is used for signing and verification. Defaults to the JDK provider for the key type. */
+    provider: String? = null,
+    /**
+     * Indicates which signature is used for signing and verification. Defaults to a SHA-256 signature for the key type,
+     * or Ed25519.
+     */
+    signature: String? = null,
+    /** The maximum number of initialised signature instances kept for reuse, for signing and for verification each. */
+    val poolSize: Int = 2 * Runtime.getRuntime().availableProcessors(),
 ) {
     private val logger = KotlinLogging.logger {}
 
+    /** Indicates which provider is used for signing and verification. */
+    val provider: String = provider ?: defaultsFor(keyType).first
+
+    /** Indicates which signature is used for signing and verification. */
+    val signature: String = signature ?: defaultsFor(keyType).second
+
     /** Private key used for signing. */
-    val signKey = createPrivateKey(signKeyFile, keyType, provider)
+    val signKey = createPrivateKey(signKeyFile, keyType, this.provider)
 
     /** Public key used for verification. */
-    val verifyKey = createPublicKey(verifyKeyFile, keyType, provider)
+    val verifyKey = createPublicKey(verifyKeyFile, keyType, this.provider)
 
     private fun createPrivateKey(keyPath: String, keyType: String, provider: String): PrivateKey? {
         return try {
@@ -64,6 +76,15 @@ class SigningConfigurationProperties(
         }
     }
 
+    /** The provider and signature of the JDK for the key type. */
+    private fun defaultsFor(keyType: String): Pair<String, String> =
+        when (keyType.uppercase()) {
+            "RSA" -> "SunRsaSign" to "SHA256withRSA"
+            "EC" -> "SunEC" to "SHA256withECDSA"
+            "ED25519" -> "SunEC" to "Ed25519"
+            else -> throw IllegalArgumentException("Configure the provider and signature for key type $keyType")
+        }
+
     @Throws(IOException::class)
     private fun readKeyFromDisk(keyPath: String): ByteArray = Files.readAllBytes(Paths.get(keyPath))
 }
@@ -3,6 +3,7 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.gxf.soapbridge.configuration.properties
 
+import org.gxf.soapbridge.valueobjects.SoapOperation
 import org.springframework.boot.context.properties.ConfigurationProperties
 
 @ConfigurationProperties("soap")
@@ -13,7 +14,7 @@ class SoapConfigurationProperties(
      * terminating the connection with the client application.
      */
     val timeout: Int,
-    /** Timeouts for specific functions. */
+    /** Timeouts for specific operations, keyed by the local name of the first element in the SOAP Body. */
     val customTimeouts: Map<String, Int> = emptyMap(),
     /**
      * TODO Can we search for certificates on both sides
@@ -25,8 +26,31 @@ class SoapConfigurationProperties(
      * new ssl context.
      */
     val useOrganisationFromRequest: Boolean = true,
-    val callEndpoint: SoapEndpointConfiguration,
-)
+    /**
+     * When enabled, incoming SOAP requests are handled using servlet asynchronous processing. The request thread is
+     * released as soon as the request is sent to Kafka and the response is written when it arrives, instead of parking
+     * a thread per request for up to [timeout] seconds.
+     */
+    val asyncRequestHandling: Boolean = false,
+    /** The endpoint of the platform, when there is only one. */
+    val callEndpoint: SoapEndpointConfiguration? = null,
+    /** The endpoints of the platform, over which requests are balanced. Takes precedence over [callEndpoint]. */
+    val callEndpoints: List<SoapEndpointConfiguration> = emptyList(),
+) {
+    init {
+        require(endpoints().isNotEmpty()) { "Either soap.call-endpoint or soap.call-endpoints must be configured" }
+    }
+
+    /** The configured endpoints of the platform. */
+    fun endpoints(): List<SoapEndpointConfiguration> = callEndpoints.ifEmpty { listOfNotNull(callEndpoint) }
+
+    /**
+     * Determines the number of seconds to wait for a response to a request for the given operation.
+     *
+     * @return The custom timeout for the operation, or [timeout] if none is configured.
+     */
+    fun timeoutFor(operation: SoapOperation): Int = customTimeouts[operation.name] ?: timeout
+}
 
 enum class HostnameVerificationStrategy {
     ALLOW_ALL_HOSTNAMES,
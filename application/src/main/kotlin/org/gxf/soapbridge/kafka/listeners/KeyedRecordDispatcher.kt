@@ -0,0 +1,114 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.kafka.listeners
+
+import io.github.oshai.kotlinlogging.KotlinLogging
+import jakarta.annotation.PreDestroy
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executors
+import org.gxf.soapbridge.kafka.properties.KeyedListenerConfigurationProperties
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry
+import org.springframework.kafka.support.Acknowledgment
+import org.springframework.stereotype.Component
+
+/**
+ * Processes records on many workers, while records with the same key are processed one after the other, in the order
+ * in which they were dispatched.
+ *
+ * A record is acknowledged once it has been processed. The listener container of the keyed mode acknowledges
+ * asynchronously, which means it commits the offset of a record only when all records before it in the partition have
+ * been acknowledged. A record is therefore never committed before it, and every record before it, has completed.
+ *
+ * Dispatching never blocks the consumer thread, so it keeps polling within `max.poll.interval.ms`. Instead, the
+ * listener container is paused when the maximum number of records is in flight, and resumed when half of them have
+ * completed. The records of the poll in progress are still dispatched, so the number of records in flight can exceed
+ * the maximum by up to `max.poll.records`.
+ */
+@Component
+@ConditionalOnProperty(prefix = "kafka.incoming.keyed", name = ["enabled"], havingValue = "true")
+class KeyedRecordDispatcher(
+    configuration: KeyedListenerConfigurationProperties,
+    private val registry: KafkaListenerEndpointRegistry,
+) {
+    private val logger = KotlinLogging.logger {}
+
+    private val executor = Executors.newVirtualThreadPerTaskExecutor()
+
+    private val maxInFlight = configuration.maxInFlight
+
+    /** The number of records dispatched but not completed yet, guarded by `this`. */
+    private var inFlight = 0
+
+    /** Whether this dispatcher paused the listener container, guarded by `this`. */
+    private var paused = false
+
+    /** The last task dispatched for each key, which the next task with the same key runs after. */
+    private val tails = ConcurrentHashMap<String, CompletableFuture<Void>>()
+
+    /**
+     * Dispatches the processing of a record. Pauses the listener container when the maximum number of records is in
+     * flight.
+     *
+     * @param key The key of the record; records with the same key are processed in order.
+     * @param acknowledgment The acknowledgment of the record, acknowledged when it has been processed.
+     * @param task Processes the record.
+     */
+    fun dispatch(key: String, acknowledgment: Acknowledgment, task: () -> Unit) {
+        started()
+        val tail =
+            tails.compute(key) { _, previous ->
+                (previous ?: CompletableFuture.completedFuture(null)).thenRunAsync({ runWithRetries(task) }, executor)
+            }!!
+        tail.whenComplete { _, _ ->
+            tails.remove(key, tail)
+            acknowledgment.acknowledge()
+            completed()
+        }
+    }
+
+    @Synchronized
+    private fun started() {
+        inFlight++
+        if (!paused && inFlight >= maxInFlight) {
+            logger.info { "$inFlight records in flight, pausing the request listener" }
+            paused = true
+            registry.getListenerContainer(ProxyRequestKeyedKafkaListener.LISTENER_ID)?.pause()
+        }
+    }
+
+    @Synchronized
+    private fun completed() {
+        inFlight--
+        if (paused && inFlight <= maxInFlight / 2) {
+            logger.info { "$inFlight records in flight, resuming the request listener" }
+            paused = false
+            registry.getListenerContainer(ProxyRequestKeyedKafkaListener.LISTENER_ID)?.resume()
+        }
+    }
+
+    /** Retries like the error handler of a record listener does, and gives up on the record after the last attempt. */
+    private fun runWithRetries(task: () -> Unit) {
+        repeat(ATTEMPTS) { attempt ->
+            try {
+                task()
+                return
+            } catch (e: Exception) {
+                if (attempt < ATTEMPTS - 1) {
+                    logger.warn(e) { "Failed to process record, retrying" }
+                } else {
+                    logger.error(e) { "Failed to process record after $ATTEMPTS attempts, skipping it" }
+                }
+            }
+        }
+    }
+
+    @PreDestroy fun shutdown() = executor.close()
+
+    companion object {
+        /** The first attempt and the two retries of the error handler in KafkaConfiguration. */
+        private const val ATTEMPTS = 3
+    }
+}
@@ -0,0 +1,61 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.kafka.listeners
+
+import jakarta.annotation.PreDestroy
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.Executors
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.gxf.soapbridge.kafka.properties.BatchListenerConfigurationProperties
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.kafka.listener.BatchListenerFailedException
+import org.springframework.stereotype.Component
+
+/**
+ * Processes the records received by a batch listener in two steps. The records are first prepared, which means parsed
+ * and verified, in parallel on a bounded pool. The prepared records are then handled in order, as a batch.
+ *
+ * When a record can not be prepared, the records before it are handled and a [BatchListenerFailedException] is thrown
+ * for it. The [org.springframework.kafka.listener.DefaultErrorHandler] then commits the records before it and retries
+ * from the failed record, just like it does for a record listener. The records after the failed record are not handled,
+ * so they are not handled twice when they are delivered again.
+ */
+@Component
+@ConditionalOnProperty(prefix = "kafka.incoming.batch", name = ["enabled"], havingValue = "true")
+class ParallelBatchProcessor(configuration: BatchListenerConfigurationProperties) {
+
+    private val executor =
+        Executors.newFixedThreadPool(
+            configuration.parallelism,
+            Thread.ofPlatform().name("kafka-batch-", 0).daemon().factory(),
+        )
+
+    /**
+     * @param records The records received by the listener.
+     * @param prepare Prepares a record, returning null when the record is to be skipped.
+     * @param handle Handles the prepared records.
+     */
+    fun <T : Any> process(
+        records: List<ConsumerRecord<String, ByteArray>>,
+        prepare: (ConsumerRecord<String, ByteArray>) -> T?,
+        handle: (List<T>) -> Unit,
+    ) {
+        val futures = records.map { record -> CompletableFuture.supplyAsync({ prepare(record) }, executor) }
+        val prepared = ArrayList<T>(records.size)
+        for ((index, future) in futures.withIndex()) {
+            val result =
+                try {
+                    future.join()
+                } catch (e: CompletionException) {
+                    handle(prepared)
+                    throw BatchListenerFailedException("Failed to process record", e.cause, index)
+                }
+            result?.let(prepared::add)
+        }
+        handle(prepared)
+    }
+
+    @PreDestroy fun shutdown() = executor.shutdown()
+}
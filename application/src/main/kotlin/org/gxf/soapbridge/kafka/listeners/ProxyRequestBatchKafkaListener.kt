@@ -0,0 +1,37 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.kafka.listeners
+
+import io.github.oshai.kotlinlogging.KotlinLogging
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.gxf.soapbridge.application.services.PlatformCommunicationService
+import org.gxf.soapbridge.kafka.serialization.ProxyServerMessageDeserializer
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression
+import org.springframework.kafka.annotation.KafkaListener
+import org.springframework.stereotype.Component
+
+@Component
+@ConditionalOnExpression("\${kafka.incoming.batch.enabled:false} and !\${kafka.incoming.keyed.enabled:false}")
+class ProxyRequestBatchKafkaListener(
+    private val platformCommunicationService: PlatformCommunicationService,
+    private val batchProcessor: ParallelBatchProcessor,
+) {
+    private val logger = KotlinLogging.logger {}
+
+    @KafkaListener(
+        id = "gxf-request-consumer",
+        topics = ["\${kafka.incoming.requests.topic}"],
+        concurrency = "\${kafka.incoming.requests.concurrency}",
+        idIsGroup = false,
+        batch = "true",
+    )
+    fun consume(records: List<ConsumerRecord<String, ByteArray>>) {
+        logger.debug { "Received ${records.size} requests" }
+        batchProcessor.process(
+            records,
+            { platformCommunicationService.verifyIncomingRequest(ProxyServerMessageDeserializer.receiveRequest(it)) },
+            platformCommunicationService::handleIncomingRequests,
+        )
+    }
+}
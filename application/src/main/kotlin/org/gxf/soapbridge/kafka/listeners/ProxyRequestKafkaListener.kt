@@ -6,11 +6,13 @@ package org.gxf.soapbridge.kafka.listeners
 import io.github.oshai.kotlinlogging.KotlinLogging
 import org.apache.kafka.clients.consumer.ConsumerRecord
 import org.gxf.soapbridge.application.services.PlatformCommunicationService
-import org.gxf.soapbridge.valueobjects.ProxyServerRequestMessage
+import org.gxf.soapbridge.kafka.serialization.ProxyServerMessageDeserializer
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression
 import org.springframework.kafka.annotation.KafkaListener
 import org.springframework.stereotype.Component
 
 @Component
+@ConditionalOnExpression("!\${kafka.incoming.batch.enabled:false} and !\${kafka.incoming.keyed.enabled:false}")
 class ProxyRequestKafkaListener(private val platformCommunicationService: PlatformCommunicationService) {
     private val logger = KotlinLogging.logger {}
 
@@ -20,9 +22,8 @@ class ProxyRequestKafkaListener(private val platformCommunicationService: Platfo
         concurrency = "\${kafka.incoming.requests.concurrency}",
         idIsGroup = false,
     )
-    fun consume(record: ConsumerRecord<String, String>) {
-        logger.debug { "Received request: ${record.key()}, ${record.value()}" }
-        val requestMessage = ProxyServerRequestMessage.createInstanceFromString(record.value())
-        platformCommunicationService.handleIncomingRequest(requestMessage)
+    fun consume(record: ConsumerRecord<String, ByteArray>) {
+        logger.debug { "Received request: ${record.key()}, ${String(record.value())}" }
+        platformCommunicationService.handleIncomingRequest(ProxyServerMessageDeserializer.receiveRequest(record))
     }
 }
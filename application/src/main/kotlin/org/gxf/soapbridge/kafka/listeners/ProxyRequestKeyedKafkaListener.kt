@@ -0,0 +1,56 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.kafka.listeners
+
+import io.github.oshai.kotlinlogging.KotlinLogging
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.gxf.soapbridge.application.services.PlatformCommunicationService
+import org.gxf.soapbridge.configuration.kafka.KafkaConfiguration
+import org.gxf.soapbridge.kafka.properties.KeyedBy
+import org.gxf.soapbridge.kafka.properties.KeyedListenerConfigurationProperties
+import org.gxf.soapbridge.kafka.serialization.ProxyServerMessageDeserializer
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.kafka.annotation.KafkaListener
+import org.springframework.kafka.support.Acknowledgment
+import org.springframework.stereotype.Component
+
+/**
+ * Request listener of the keyed mode. Requests are sent to the platform by the workers of the [KeyedRecordDispatcher],
+ * which wait for the platform to respond, so a request is only committed once it has been handled.
+ */
+@Component
+@ConditionalOnProperty(prefix = "kafka.incoming.keyed", name = ["enabled"], havingValue = "true")
+class ProxyRequestKeyedKafkaListener(
+    private val platformCommunicationService: PlatformCommunicationService,
+    private val dispatcher: KeyedRecordDispatcher,
+    configuration: KeyedListenerConfigurationProperties,
+) {
+    private val logger = KotlinLogging.logger {}
+
+    private val keyedBy = configuration.keyedBy
+
+    @KafkaListener(
+        id = LISTENER_ID,
+        topics = ["\${kafka.incoming.requests.topic}"],
+        concurrency = "\${kafka.incoming.requests.concurrency}",
+        idIsGroup = false,
+        containerFactory = KafkaConfiguration.KEYED_CONTAINER_FACTORY,
+    )
+    fun consume(record: ConsumerRecord<String, ByteArray>, acknowledgment: Acknowledgment) {
+        logger.debug { "Received request: ${record.key()}, ${String(record.value())}" }
+        val receivedMessage = ProxyServerMessageDeserializer.receiveRequest(record)
+        val key =
+            when (keyedBy) {
+                KeyedBy.ORGANISATION -> ProxyServerMessageDeserializer.commonNameOf(record)
+                KeyedBy.CONNECTION_ID -> receivedMessage.connectionId
+            }
+        dispatcher.dispatch(key, acknowledgment) {
+            platformCommunicationService.handleIncomingRequestSynchronously(receivedMessage)
+        }
+    }
+
+    companion object {
+        const val LISTENER_ID = "gxf-request-consumer"
+    }
+}
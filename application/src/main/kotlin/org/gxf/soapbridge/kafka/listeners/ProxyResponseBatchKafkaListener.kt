@@ -0,0 +1,37 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.kafka.listeners
+
+import io.github.oshai.kotlinlogging.KotlinLogging
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.gxf.soapbridge.application.services.ClientCommunicationService
+import org.gxf.soapbridge.kafka.serialization.ProxyServerMessageDeserializer
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
+import org.springframework.kafka.annotation.KafkaListener
+import org.springframework.stereotype.Component
+
+@Component
+@ConditionalOnProperty(prefix = "kafka.incoming.batch", name = ["enabled"], havingValue = "true")
+class ProxyResponseBatchKafkaListener(
+    private val clientCommunicationService: ClientCommunicationService,
+    private val batchProcessor: ParallelBatchProcessor,
+) {
+    private val logger = KotlinLogging.logger {}
+
+    @KafkaListener(
+        id = "gxf-response-consumer",
+        topics = ["\${kafka.incoming.responses.topic}"],
+        concurrency = "\${kafka.incoming.responses.concurrency}",
+        idIsGroup = false,
+        batch = "true",
+    )
+    fun consume(records: List<ConsumerRecord<String, ByteArray>>) {
+        logger.debug { "Received ${records.size} responses" }
+        batchProcessor.process(
+            records,
+            { clientCommunicationService.verifyIncomingResponse(ProxyServerMessageDeserializer.receiveResponse(it)) },
+            clientCommunicationService::handleIncomingResponses,
+        )
+    }
+}
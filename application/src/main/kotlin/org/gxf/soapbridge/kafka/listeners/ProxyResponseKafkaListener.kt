@@ -6,11 +6,13 @@ package org.gxf.soapbridge.kafka.listeners
 import io.github.oshai.kotlinlogging.KotlinLogging
 import org.apache.kafka.clients.consumer.ConsumerRecord
 import org.gxf.soapbridge.application.services.ClientCommunicationService
-import org.gxf.soapbridge.valueobjects.ProxyServerResponseMessage
+import org.gxf.soapbridge.kafka.serialization.ProxyServerMessageDeserializer
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty
 import org.springframework.kafka.annotation.KafkaListener
 import org.springframework.stereotype.Component
 
 @Component
+@ConditionalOnProperty(prefix = "kafka.incoming.batch", name = ["enabled"], havingValue = "false", matchIfMissing = true)
 class ProxyResponseKafkaListener(private val clientCommunicationService: ClientCommunicationService) {
     private val logger = KotlinLogging.logger {}
 
@@ -20,9 +22,8 @@ class ProxyResponseKafkaListener(private val clientCommunicationService: ClientC
         concurrency = "\${kafka.incoming.responses.concurrency}",
         idIsGroup = false,
     )
-    fun consume(record: ConsumerRecord<String, String>) {
-        logger.debug { "Received response: ${record.key()}, ${record.value()}" }
-        val responseMessage = ProxyServerResponseMessage.createInstanceFromString(record.value())
-        clientCommunicationService.handleIncomingResponse(responseMessage)
+    fun consume(record: ConsumerRecord<String, ByteArray>) {
+        logger.debug { "Received response: ${record.key()}, ${String(record.value())}" }
+        clientCommunicationService.handleIncomingResponse(ProxyServerMessageDeserializer.receiveResponse(record))
     }
 }
@@ -0,0 +1,17 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.kafka.properties
+
+import org.springframework.boot.context.properties.ConfigurationProperties
+
+/**
+ * Configuration of the batch mode of the listeners. In batch mode the listeners receive all records of a poll, which
+ * are parsed and verified in parallel before they are handed to the services.
+ */
+@ConfigurationProperties("kafka.incoming.batch")
+class BatchListenerConfigurationProperties(
+    val enabled: Boolean = false,
+    /** The number of threads parsing and verifying records, shared by the request and response listeners. */
+    val parallelism: Int = Runtime.getRuntime().availableProcessors(),
+)
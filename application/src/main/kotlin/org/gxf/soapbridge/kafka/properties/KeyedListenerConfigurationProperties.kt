@@ -0,0 +1,33 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.kafka.properties
+
+import org.springframework.boot.context.properties.ConfigurationProperties
+
+/**
+ * Configuration of the keyed mode of the request listener. In keyed mode the records of a partition are processed by
+ * many workers; records with the same key are processed in order.
+ */
+@ConfigurationProperties("kafka.incoming.keyed")
+class KeyedListenerConfigurationProperties(
+    val enabled: Boolean = false,
+    /**
+     * What records are keyed by, which determines which records are processed in order. Keying by organisation keeps
+     * the requests of an organisation in order, at the cost of sending them to the platform one at a time.
+     */
+    val keyedBy: KeyedBy = KeyedBy.CONNECTION_ID,
+    /** The maximum number of records being processed. The listener is paused beyond this. */
+    val maxInFlight: Int = 256,
+)
+
+enum class KeyedBy {
+    /**
+     * Requests of one organisation are processed in order. Each request waits for the platform to respond to the
+     * previous request of its organisation, so an organisation has at most one call to the platform in flight.
+     */
+    ORGANISATION,
+
+    /** Requests are processed in any order, with as many calls to the platform in flight as records. */
+    CONNECTION_ID,
+}
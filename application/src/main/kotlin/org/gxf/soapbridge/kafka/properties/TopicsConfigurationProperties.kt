@@ -3,10 +3,24 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.gxf.soapbridge.kafka.properties
 
+import org.gxf.soapbridge.kafka.serialization.WireFormat
 import org.springframework.boot.context.properties.ConfigurationProperties
 
 @ConfigurationProperties("kafka") class TopicsConfigurationProperties(val outgoing: OutgoingTopicsConfiguration)
 
-class OutgoingTopicsConfiguration(val requests: OutgoingTopic, val responses: OutgoingTopic)
+class OutgoingTopicsConfiguration(
+    val requests: OutgoingTopic,
+    val responses: OutgoingTopic,
+    /** Format of sent messages. Incoming messages are accepted in every format. */
+    val wireFormat: WireFormat = WireFormat.V1,
+)
 
-class OutgoingTopic(val topic: String)
+class OutgoingTopic(
+    val topic: String,
+    /**
+     * Whether a response is sent to a topic per node, named after the topic and the node id in the connection id of the
+     * response, like `responses-node-1`. Responses without a node id are sent to the topic itself. Only used for
+     * responses.
+     */
+    val perNode: Boolean = false,
+)
@@ -4,22 +4,43 @@
 package org.gxf.soapbridge.kafka.senders
 
 import io.github.oshai.kotlinlogging.KotlinLogging
+import java.nio.ByteBuffer
+import java.util.concurrent.CompletableFuture
 import org.gxf.soapbridge.kafka.properties.TopicsConfigurationProperties
+import org.gxf.soapbridge.kafka.serialization.ProxyServerMessageSerializer
+import org.gxf.soapbridge.monitoring.MonitoringService
 import org.gxf.soapbridge.valueobjects.ProxyServerRequestMessage
 import org.springframework.kafka.core.KafkaTemplate
+import org.springframework.kafka.support.SendResult
 import org.springframework.stereotype.Component
 
 @Component
 class ProxyRequestKafkaSender(
-    private val kafkaTemplate: KafkaTemplate<String, String>,
+    private val kafkaTemplate: KafkaTemplate<String, ByteArray>,
     topicConfiguration: TopicsConfigurationProperties,
+    private val monitoringService: MonitoringService,
 ) {
     private val logger = KotlinLogging.logger {}
 
     private val topic = topicConfiguration.outgoing.requests.topic
 
-    fun send(requestMessage: ProxyServerRequestMessage) {
-        logger.debug { "SOAP payload: ${requestMessage.soapPayload} to $topic" }
-        kafkaTemplate.send(topic, requestMessage.constructSignedString())
+    private val serializer = ProxyServerMessageSerializer(topicConfiguration.outgoing.wireFormat)
+
+    /** The content to sign for the request message, in the wire format used for sending. */
+    fun signedContent(requestMessage: ProxyServerRequestMessage): List<ByteBuffer> =
+        serializer.signedContent(requestMessage)
+
+    /**
+     * Sends the request message to the outgoing requests topic.
+     *
+     * @return A future which completes when the message has been acknowledged by the broker, or completes exceptionally
+     *   when the broker rejected the message or did not acknowledge it in time.
+     */
+    fun send(requestMessage: ProxyServerRequestMessage): CompletableFuture<SendResult<String, ByteArray>> {
+        logger.debug { "SOAP payload: ${String(requestMessage.soapPayload)} to $topic" }
+        val startNanos = System.nanoTime()
+        return kafkaTemplate.send(serializer.serialize(topic, requestMessage)).whenComplete { _, failure ->
+            monitoringService.recordKafkaSend(topic, startNanos, failure == null)
+        }
     }
 }
@@ -4,22 +4,53 @@
 package org.gxf.soapbridge.kafka.senders
 
 import io.github.oshai.kotlinlogging.KotlinLogging
+import java.nio.ByteBuffer
+import java.util.concurrent.CompletableFuture
 import org.gxf.soapbridge.kafka.properties.TopicsConfigurationProperties
+import org.gxf.soapbridge.kafka.serialization.ProxyServerMessageSerializer
+import org.gxf.soapbridge.monitoring.MonitoringService
+import org.gxf.soapbridge.valueobjects.ConnectionIds
 import org.gxf.soapbridge.valueobjects.ProxyServerResponseMessage
 import org.springframework.kafka.core.KafkaTemplate
+import org.springframework.kafka.support.SendResult
 import org.springframework.stereotype.Component
 
 @Component
 class ProxyResponseKafkaSender(
-    private val kafkaTemplate: KafkaTemplate<String, String>,
+    private val kafkaTemplate: KafkaTemplate<String, ByteArray>,
     topicConfiguration: TopicsConfigurationProperties,
+    private val monitoringService: MonitoringService,
 ) {
     private val logger = KotlinLogging.logger {}
 
     private val topic = topicConfiguration.outgoing.responses.topic
 
-    fun send(responseMessage: ProxyServerResponseMessage) {
+    private val perNode = topicConfiguration.outgoing.responses.perNode
+
+    private val serializer = ProxyServerMessageSerializer(topicConfiguration.outgoing.wireFormat)
+
+    /** The content to sign for the response message, in the wire format used for sending. */
+    fun signedContent(responseMessage: ProxyServerResponseMessage): List<ByteBuffer> =
+        serializer.signedContent(responseMessage)
+
+    /**
+     * Sends the response message to the responses topic.
+     *
+     * @return A future which completes when the message has been acknowledged by the broker, or completes exceptionally
+     *   when the broker rejected the message or did not acknowledge it in time.
+     */
+    fun send(responseMessage: ProxyServerResponseMessage): CompletableFuture<SendResult<String, ByteArray>> {
+        val topic = topicFor(responseMessage.connectionId)
         logger.debug { "SOAP payload: ${responseMessage.soapResponse} to $topic" }
-        kafkaTemplate.send(topic, responseMessage.constructSignedString())
+        val startNanos = System.nanoTime()
+        return kafkaTemplate.send(serializer.serialize(topic, responseMessage)).whenComplete { _, failure ->
+            monitoringService.recordKafkaSend(topic, startNanos, failure == null)
+        }
+    }
+
+    /** The topic consumed by the node which sent the request, or the shared topic when responses are not routed. */
+    internal fun topicFor(connectionId: String): String {
+        val nodeId = if (perNode) ConnectionIds.nodeIdOf(connectionId) else null
+        return if (nodeId == null) topic else "$topic-$nodeId"
     }
 }
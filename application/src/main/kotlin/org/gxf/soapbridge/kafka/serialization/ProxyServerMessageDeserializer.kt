@@ -0,0 +1,135 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.kafka.serialization
+
+import java.nio.ByteBuffer
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.apache.kafka.common.header.Headers
+import org.gxf.soapbridge.exceptions.ProxyMessageException
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.COMMON_NAME_HEADER
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.CONNECTION_ID_HEADER
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.CONTEXT_HEADER
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.ERROR_CLASS_HEADER
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.FAILURE_TYPE
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.HTTP_STATUS_HEADER
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.REQUEST_TYPE
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.RESPONSE_TYPE
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.SIGNATURE_HEADER
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.V2_VERSION
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.VERSION_HEADER
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.signedFields
+import org.gxf.soapbridge.valueobjects.PlatformFailure
+import org.gxf.soapbridge.valueobjects.ProxyServerBaseMessage
+import org.gxf.soapbridge.valueobjects.ProxyServerBaseMessage.Companion.SEPARATOR
+import org.gxf.soapbridge.valueobjects.ProxyServerRequestMessage
+import org.gxf.soapbridge.valueobjects.ProxyServerResponseMessage
+import org.gxf.soapbridge.valueobjects.ReceivedMessage
+
+/**
+ * Reads proxy-server messages from Kafka records. Records with a version header are read as [WireFormat.V2], other
+ * records as [WireFormat.V1], so both formats are accepted while the bridges on both sides are upgraded.
+ *
+ * Only the connection id and signature are read up front; the signed content refers to the record value without
+ * copying it, and the message itself is decoded on demand.
+ */
+object ProxyServerMessageDeserializer {
+
+    private val SEPARATOR_BYTE = SEPARATOR[0].code.toByte()
+
+    @Throws(ProxyMessageException::class)
+    fun receiveRequest(record: ConsumerRecord<String, ByteArray>): ReceivedMessage<ProxyServerRequestMessage> {
+        val headers = record.headers()
+        val value = record.value()
+        if (!isV2(headers)) {
+            return receiveV1(value) { ProxyServerRequestMessage.createInstanceFromString(String(value)) }
+        }
+        val connectionId = requiredHeader(headers, CONNECTION_ID_HEADER)
+        val context = requiredHeader(headers, CONTEXT_HEADER)
+        val commonName = requiredHeader(headers, COMMON_NAME_HEADER)
+        val signature = requiredHeader(headers, SIGNATURE_HEADER)
+        return ReceivedMessage(
+            connectionId,
+            listOf(signedFields(REQUEST_TYPE, connectionId, context, commonName), ByteBuffer.wrap(value)),
+            signature,
+        ) {
+            ProxyServerRequestMessage(connectionId, commonName, context, value).apply { this.signature = signature }
+        }
+    }
+
+    @Throws(ProxyMessageException::class)
+    fun receiveResponse(record: ConsumerRecord<String, ByteArray>): ReceivedMessage<ProxyServerResponseMessage> {
+        val headers = record.headers()
+        val value = record.value()
+        if (!isV2(headers)) {
+            return receiveV1(value) { ProxyServerResponseMessage.createInstanceFromString(String(value)) }
+        }
+        val connectionId = requiredHeader(headers, CONNECTION_ID_HEADER)
+        val signature = requiredHeader(headers, SIGNATURE_HEADER)
+        val errorClass = optionalHeader(headers, ERROR_CLASS_HEADER)
+        if (errorClass == null) {
+            val signedContent = listOf(signedFields(RESPONSE_TYPE, connectionId), ByteBuffer.wrap(value))
+            return ReceivedMessage(connectionId, signedContent, signature) {
+                ProxyServerResponseMessage(connectionId, String(value)).apply { this.signature = signature }
+            }
+        }
+        // A failure, of which the error class and HTTP status are signed as they were received.
+        val httpStatus = optionalHeader(headers, HTTP_STATUS_HEADER).orEmpty()
+        return ReceivedMessage(
+            connectionId,
+            listOf(signedFields(FAILURE_TYPE, connectionId, errorClass, httpStatus), ByteBuffer.wrap(value)),
+            signature,
+        ) {
+            ProxyServerResponseMessage(connectionId, String(value), PlatformFailure.fromFields(errorClass, httpStatus))
+                .apply { this.signature = signature }
+        }
+    }
+
+    /**
+     * The common name of the organisation which sent a request, read without verifying or decoding the rest of the
+     * record. It may only be used to distribute work, never to trust the request. Empty when the request carries no
+     * (readable) common name.
+     */
+    fun commonNameOf(record: ConsumerRecord<String, ByteArray>): String {
+        val headers = record.headers()
+        if (isV2(headers)) {
+            return optionalHeader(headers, COMMON_NAME_HEADER).orEmpty()
+        }
+        // In V1 the common name is the fourth of five fields, the signature being the fifth.
+        val value = record.value()
+        if (value.count { it == SEPARATOR_BYTE } != 4) {
+            return ""
+        }
+        val end = value.lastIndexOf(SEPARATOR_BYTE)
+        val start = (end - 1 downTo 0).first { value[it] == SEPARATOR_BYTE } + 1
+        return try {
+            ProxyServerBaseMessage.decode(String(value, start, end - start))
+        } catch (e: IllegalArgumentException) {
+            ""
+        }
+    }
+
+    /**
+     * In [WireFormat.V1] the connection id is the first field, and the signature follows the last separator. Everything
+     * up to and including the last separator is signed.
+     */
+    private fun <T : ProxyServerBaseMessage> receiveV1(value: ByteArray, decoder: () -> T): ReceivedMessage<T> {
+        val firstSeparator = value.indexOf(SEPARATOR_BYTE)
+        val lastSeparator = value.lastIndexOf(SEPARATOR_BYTE)
+        if (firstSeparator < 0) {
+            throw ProxyMessageException("No separator found, not trying to create proxy-server message.")
+        }
+        val connectionId = String(value, 0, firstSeparator)
+        val signature = String(value, lastSeparator + 1, value.size - lastSeparator - 1)
+        return ReceivedMessage(connectionId, listOf(ByteBuffer.wrap(value, 0, lastSeparator + 1)), signature, decoder)
+    }
+
+    private fun isV2(headers: Headers) = headers.lastHeader(VERSION_HEADER)?.value()?.let { String(it) } == V2_VERSION
+
+    private fun optionalHeader(headers: Headers, key: String): String? =
+        headers.lastHeader(key)?.value()?.let { String(it) }
+
+    private fun requiredHeader(headers: Headers, key: String): String =
+        optionalHeader(headers, key)
+            ?: throw ProxyMessageException("Missing header $key, not trying to create proxy-server message.")
+}
@@ -0,0 +1,80 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.kafka.serialization
+
+import java.nio.ByteBuffer
+import org.apache.kafka.clients.producer.ProducerRecord
+import org.apache.kafka.common.header.internals.RecordHeader
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.COMMON_NAME_HEADER
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.CONNECTION_ID_HEADER
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.CONTEXT_HEADER
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.ERROR_CLASS_HEADER
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.FAILURE_TYPE
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.HTTP_STATUS_HEADER
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.REQUEST_TYPE
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.RESPONSE_TYPE
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.SIGNATURE_HEADER
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.V2_VERSION
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.VERSION_HEADER
+import org.gxf.soapbridge.kafka.serialization.WireFormat.Companion.signedFields
+import org.gxf.soapbridge.valueobjects.ProxyServerRequestMessage
+import org.gxf.soapbridge.valueobjects.ProxyServerResponseMessage
+
+/** Creates Kafka records for proxy-server messages in the configured wire format. */
+class ProxyServerMessageSerializer(private val wireFormat: WireFormat) {
+
+    /** The content to sign for the message, which is the content the receiver verifies in this wire format. */
+    fun signedContent(message: ProxyServerRequestMessage): List<ByteBuffer> =
+        when (wireFormat) {
+            WireFormat.V1 -> listOf(ByteBuffer.wrap(message.constructString().toByteArray()))
+            WireFormat.V2 ->
+                listOf(
+                    signedFields(REQUEST_TYPE, message.connectionId, message.context, message.commonName),
+                    ByteBuffer.wrap(message.soapPayload),
+                )
+        }
+
+    /** The content to sign for the message, which is the content the receiver verifies in this wire format. */
+    fun signedContent(message: ProxyServerResponseMessage): List<ByteBuffer> =
+        when (wireFormat) {
+            WireFormat.V1 -> listOf(ByteBuffer.wrap(message.constructString().toByteArray()))
+            WireFormat.V2 -> listOf(signedResponseFields(message), ByteBuffer.wrap(message.soapResponseBytes))
+        }
+
+    fun serialize(topic: String, message: ProxyServerRequestMessage): ProducerRecord<String, ByteArray> =
+        when (wireFormat) {
+            WireFormat.V1 -> ProducerRecord<String, ByteArray>(topic, message.constructSignedString().toByteArray())
+            WireFormat.V2 ->
+                ProducerRecord<String, ByteArray>(topic, message.soapPayload).apply {
+                    headers().add(header(VERSION_HEADER, V2_VERSION))
+                    headers().add(header(CONNECTION_ID_HEADER, message.connectionId))
+                    headers().add(header(CONTEXT_HEADER, message.context))
+                    headers().add(header(COMMON_NAME_HEADER, message.commonName))
+                    headers().add(header(SIGNATURE_HEADER, message.signature.orEmpty()))
+                }
+        }
+
+    fun serialize(topic: String, message: ProxyServerResponseMessage): ProducerRecord<String, ByteArray> =
+        when (wireFormat) {
+            WireFormat.V1 -> ProducerRecord<String, ByteArray>(topic, message.constructSignedString().toByteArray())
+            WireFormat.V2 ->
+                ProducerRecord<String, ByteArray>(topic, message.soapResponseBytes).apply {
+                    headers().add(header(VERSION_HEADER, V2_VERSION))
+                    headers().add(header(CONNECTION_ID_HEADER, message.connectionId))
+                    message.failure?.let { failure ->
+                        headers().add(header(ERROR_CLASS_HEADER, failure.errorClass.name))
+                        failure.httpStatus?.let { headers().add(header(HTTP_STATUS_HEADER, it.toString())) }
+                    }
+                    headers().add(header(SIGNATURE_HEADER, message.signature.orEmpty()))
+                }
+        }
+
+    /** The header fields of a response, where a failure also signs its error class and HTTP status. */
+    private fun signedResponseFields(message: ProxyServerResponseMessage): ByteBuffer =
+        message.failure?.let {
+            signedFields(FAILURE_TYPE, message.connectionId, it.errorClass.name, it.httpStatusField)
+        } ?: signedFields(RESPONSE_TYPE, message.connectionId)
+
+    private fun header(key: String, value: String) = RecordHeader(key, value.toByteArray())
+}
@@ -0,0 +1,43 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.kafka.serialization
+
+import java.nio.ByteBuffer
+
+/** Versions of the format of proxy-server messages on Kafka. */
+enum class WireFormat {
+    /** All fields Base64 encoded and separated by '~', followed by the signature, as the record value. */
+    V1,
+
+    /** Fields and signature as record headers, the SOAP message as raw bytes in the record value. */
+    V2;
+
+    companion object {
+        const val VERSION_HEADER = "gxf-wire-format"
+        const val CONNECTION_ID_HEADER = "gxf-connection-id"
+        const val CONTEXT_HEADER = "gxf-context"
+        const val COMMON_NAME_HEADER = "gxf-common-name"
+        const val SIGNATURE_HEADER = "gxf-signature"
+        const val ERROR_CLASS_HEADER = "gxf-error-class"
+        const val HTTP_STATUS_HEADER = "gxf-http-status"
+
+        internal const val V2_VERSION = "2"
+
+        /** The types of [V2] messages, signed as their first field so a message can not be taken for another type. */
+        internal const val REQUEST_TYPE = "request"
+        internal const val RESPONSE_TYPE = "response"
+        internal const val FAILURE_TYPE = "failure"
+
+        /**
+         * The header fields signed in [V2], each preceded by its length so field boundaries can not be shifted. The
+         * first field is the message type. The record value is signed after these bytes.
+         */
+        internal fun signedFields(vararg fields: String): ByteBuffer {
+            val bytes = fields.map { it.toByteArray() }
+            val buffer = ByteBuffer.allocate(bytes.sumOf { Int.SIZE_BYTES + it.size })
+            bytes.forEach { buffer.putInt(it.size).put(it) }
+            return buffer.flip()
+        }
+    }
+}
@@ -3,11 +3,15 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.gxf.soapbridge.monitoring
 
+import io.micrometer.core.instrument.Counter
 import io.micrometer.core.instrument.Gauge
 import io.micrometer.core.instrument.MeterRegistry
 import io.micrometer.core.instrument.Timer
 import java.time.Duration
 import java.time.Instant
+import java.util.concurrent.TimeUnit
+import java.util.function.Supplier
+import org.gxf.soapbridge.valueobjects.SoapOperation
 import org.springframework.stereotype.Service
 
 @Service
@@ -17,9 +21,45 @@ class MonitoringService(private val registry: MeterRegistry) {
         private const val METRIC_PREFIX = "gxf.soap.bridge"
         const val CACHE_SIZE_METRIC = "${METRIC_PREFIX}.cache.size"
         const val CONNECTION_TIMER_METRIC = "${METRIC_PREFIX}.request.timer"
+        const val LATE_RESPONSE_METRIC = "${METRIC_PREFIX}.response.late"
+        const val ORPHANED_RESPONSE_METRIC = "${METRIC_PREFIX}.response.orphaned"
+        const val FOREIGN_RESPONSE_METRIC = "${METRIC_PREFIX}.response.foreign"
+        const val CONCURRENCY_LIMIT_METRIC = "${METRIC_PREFIX}.concurrency.limit"
+        const val IN_FLIGHT_METRIC = "${METRIC_PREFIX}.concurrency.in.flight"
+        const val REJECTED_REQUEST_METRIC = "${METRIC_PREFIX}.concurrency.rejected"
+        const val PAYLOAD_BYTES_METRIC = "${METRIC_PREFIX}.cache.payload.bytes"
+        const val PAYLOAD_BYTES_MAX_METRIC = "${METRIC_PREFIX}.cache.payload.bytes.max"
+        const val REJECTED_PAYLOAD_METRIC = "${METRIC_PREFIX}.cache.payload.rejected"
+        const val COALESCING_METRIC = "${METRIC_PREFIX}.request.coalescing"
+        const val RESPONSE_CACHE_METRIC = "${METRIC_PREFIX}.response.cache"
+        const val RESPONSE_CACHE_SIZE_METRIC = "${METRIC_PREFIX}.response.cache.size"
+        const val RESPONSE_CACHE_EVICTION_METRIC = "${METRIC_PREFIX}.response.cache.evictions"
+        const val COMPRESSION_SAVED_BYTES_METRIC = "${METRIC_PREFIX}.compression.saved.bytes"
+        const val KAFKA_SEND_METRIC = "${METRIC_PREFIX}.kafka.send"
+        const val PLATFORM_CONNECTIONS_METRIC = "${METRIC_PREFIX}.platform.connections"
+        const val DISPATCH_QUEUE_METRIC = "${METRIC_PREFIX}.dispatch.queue"
+        const val DISPATCH_WAIT_METRIC = "${METRIC_PREFIX}.dispatch.wait"
+        const val DISPATCH_REJECTED_METRIC = "${METRIC_PREFIX}.dispatch.rejected"
+        const val CIRCUIT_BREAKER_STATE_METRIC = "${METRIC_PREFIX}.circuit.breaker.state"
+        const val CIRCUIT_BREAKER_REJECTED_METRIC = "${METRIC_PREFIX}.circuit.breaker.rejected"
+        const val PLATFORM_ENDPOINT_OUTSTANDING_METRIC = "${METRIC_PREFIX}.platform.endpoint.outstanding"
+        const val PLATFORM_ENDPOINT_AVAILABLE_METRIC = "${METRIC_PREFIX}.platform.endpoint.available"
+        const val PLATFORM_ENDPOINT_CALL_METRIC = "${METRIC_PREFIX}.platform.endpoint.call"
+        const val PLATFORM_ENDPOINT_EJECTION_METRIC = "${METRIC_PREFIX}.platform.endpoint.ejections"
 
         const val CONNECTION_TIMER_CONTEXT_TAG = "context"
         const val CONNECTION_TIMER_SUCCESSFUL_TAG = "successful"
+        const val CONNECTION_TIMER_OPERATION_TAG = "operation"
+        const val COALESCING_RESULT_TAG = "result"
+        const val EVICTION_CAUSE_TAG = "cause"
+        const val COMPRESSION_DIRECTION_TAG = "direction"
+        const val COMPRESSION_ENCODING_TAG = "encoding"
+        const val KAFKA_TOPIC_TAG = "topic"
+        const val KAFKA_SEND_SUCCESSFUL_TAG = "successful"
+        const val ORGANISATION_TAG = "organisation"
+        const val CONNECTION_STATE_TAG = "state"
+        const val CIRCUIT_BREAKER_STATE_TAG = "state"
+        const val ENDPOINT_TAG = "endpoint"
     }
 
     /**
@@ -39,15 +79,294 @@ class MonitoringService(private val registry: MeterRegistry) {
      * @param startTime The start time of the request.
      * @param context The context of the request.
      * @param successful Flag indicating if the request was successful.
+     * @param operation The SOAP operation of the request, if already known.
      */
-    fun recordConnectionTime(startTime: Instant, context: String, successful: Boolean) {
+    @JvmOverloads
+    fun recordConnectionTime(
+        startTime: Instant,
+        context: String,
+        successful: Boolean,
+        operation: SoapOperation = SoapOperation.UNKNOWN,
+    ) {
         val duration = Duration.between(startTime, Instant.now())
 
         Timer.builder(CONNECTION_TIMER_METRIC)
             .description("The time it takes to handle an incoming soap request")
             .tag(CONNECTION_TIMER_CONTEXT_TAG, context)
             .tag(CONNECTION_TIMER_SUCCESSFUL_TAG, successful.toString())
+            .tag(CONNECTION_TIMER_OPERATION_TAG, operation.name)
             .register(registry)
             .record(duration)
     }
+
+    /** Counts a response which arrived after its connection expired or was already completed. */
+    fun recordLateResponse() =
+        Counter.builder(LATE_RESPONSE_METRIC)
+            .description("Responses received after the connection expired")
+            .register(registry)
+            .increment()
+
+    /** Counts a response for a connection which was not created by this instance. */
+    fun recordOrphanedResponse() =
+        Counter.builder(ORPHANED_RESPONSE_METRIC)
+            .description("Responses received for unknown connections")
+            .register(registry)
+            .increment()
+
+    /** Counts a response for a connection of another node, which is dropped without verifying it. */
+    fun recordForeignResponse() =
+        Counter.builder(FOREIGN_RESPONSE_METRIC)
+            .description("Responses received for connections of other nodes")
+            .register(registry)
+            .increment()
+
+    /**
+     * Creates gauges to monitor the adaptive concurrency limit of incoming requests. There is no gauge for a queue:
+     * requests over the limit are rejected with a 503 right away, and counted by [recordRejectedRequest].
+     *
+     * @param limit Supplies the current limit.
+     * @param inFlight Supplies the current number of in-flight requests.
+     */
+    fun monitorConcurrencyLimit(limit: Supplier<Number>, inFlight: Supplier<Number>) {
+        Gauge.builder(CONCURRENCY_LIMIT_METRIC, limit)
+            .description("The current limit on in-flight requests")
+            .register(registry)
+        Gauge.builder(IN_FLIGHT_METRIC, inFlight).description("The number of in-flight requests").register(registry)
+    }
+
+    /** Counts a request which was rejected because the concurrency limit was reached. */
+    fun recordRejectedRequest() =
+        Counter.builder(REJECTED_REQUEST_METRIC)
+            .description("Requests rejected because the concurrency limit was reached")
+            .register(registry)
+            .increment()
+
+    /**
+     * Creates gauges to monitor the memory reserved for payloads of cached connections.
+     *
+     * @param reservedBytes Supplies the number of bytes currently reserved.
+     * @param maxBytes Supplies the size of the budget in bytes.
+     */
+    fun monitorPayloadMemory(reservedBytes: Supplier<Number>, maxBytes: Supplier<Number>) {
+        Gauge.builder(PAYLOAD_BYTES_METRIC, reservedBytes)
+            .description("The memory reserved for payloads of cached connections")
+            .baseUnit("bytes")
+            .register(registry)
+        Gauge.builder(PAYLOAD_BYTES_MAX_METRIC, maxBytes)
+            .description("The memory budget for payloads of cached connections")
+            .baseUnit("bytes")
+            .register(registry)
+    }
+
+    /** Counts a request or response payload which was rejected because it did not fit in the memory budget. */
+    fun recordRejectedPayload() =
+        Counter.builder(REJECTED_PAYLOAD_METRIC)
+            .description("Payloads rejected because the memory budget was exhausted")
+            .register(registry)
+            .increment()
+
+    /**
+     * Counts a request of an operation for which coalescing is enabled.
+     *
+     * @param operation The SOAP operation of the request.
+     * @param coalesced Whether the request joined an identical request waiting for its response.
+     */
+    fun recordCoalescing(operation: SoapOperation, coalesced: Boolean) =
+        Counter.builder(COALESCING_METRIC)
+            .description("Requests of coalescing operations, by whether they joined an identical in-flight request")
+            .tag(CONNECTION_TIMER_OPERATION_TAG, operation.name)
+            .tag(COALESCING_RESULT_TAG, if (coalesced) "hit" else "miss")
+            .register(registry)
+            .increment()
+
+    /**
+     * Counts a lookup in the response cache.
+     *
+     * @param operation The SOAP operation of the request.
+     * @param hit Whether a cached response was found.
+     */
+    fun recordResponseCacheLookup(operation: SoapOperation, hit: Boolean) =
+        Counter.builder(RESPONSE_CACHE_METRIC)
+            .description("Lookups in the response cache, by whether a cached response was found")
+            .tag(CONNECTION_TIMER_OPERATION_TAG, operation.name)
+            .tag(COALESCING_RESULT_TAG, if (hit) "hit" else "miss")
+            .register(registry)
+            .increment()
+
+    /**
+     * Creates a gauge to monitor the total size of the cached responses.
+     *
+     * @param size Supplies the total size of the cached responses.
+     */
+    fun monitorResponseCacheSize(size: Supplier<Number>) =
+        Gauge.builder(RESPONSE_CACHE_SIZE_METRIC, size)
+            .description("The total size of the cached responses")
+            .baseUnit("bytes")
+            .register(registry)
+
+    /**
+     * Counts a response removed from the response cache.
+     *
+     * @param cause Why the response was removed: "expired" or "size".
+     */
+    fun recordResponseCacheEviction(cause: String) =
+        Counter.builder(RESPONSE_CACHE_EVICTION_METRIC)
+            .description("Responses removed from the response cache")
+            .tag(EVICTION_CAUSE_TAG, cause)
+            .register(registry)
+            .increment()
+
+    /**
+     * Counts the bytes saved on the wire by content encoding.
+     *
+     * @param direction The body which was encoded: "request", "response" or "platform-response".
+     * @param encoding The content encoding used.
+     * @param decodedBytes The size of the body without content encoding.
+     * @param encodedBytes The size of the body on the wire.
+     */
+    fun recordCompression(direction: String, encoding: String, decodedBytes: Int, encodedBytes: Int) =
+        Counter.builder(COMPRESSION_SAVED_BYTES_METRIC)
+            .description("Bytes saved on the wire by content encoding")
+            .baseUnit("bytes")
+            .tag(COMPRESSION_DIRECTION_TAG, direction)
+            .tag(COMPRESSION_ENCODING_TAG, encoding)
+            .register(registry)
+            .increment(maxOf(0, decodedBytes - encodedBytes).toDouble())
+
+    /**
+     * Records the time it took the broker to acknowledge, or fail, a sent record.
+     *
+     * @param topic The topic the record was sent to.
+     * @param startNanos The [System.nanoTime] at which the record was sent.
+     * @param successful Flag indicating if the record was acknowledged.
+     */
+    fun recordKafkaSend(topic: String, startNanos: Long, successful: Boolean) =
+        Timer.builder(KAFKA_SEND_METRIC)
+            .description("The time it takes to send a record to Kafka")
+            .tag(KAFKA_TOPIC_TAG, topic)
+            .tag(KAFKA_SEND_SUCCESSFUL_TAG, successful.toString())
+            .register(registry)
+            .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS)
+
+    /**
+     * Creates gauges to monitor the pool of connections to the platform of an organisation.
+     *
+     * @param organisation The organisation the pool belongs to.
+     * @param leased Supplies the number of connections in use.
+     * @param available Supplies the number of idle connections.
+     * @param pending Supplies the number of requests waiting for a connection.
+     */
+    fun monitorPlatformConnections(
+        organisation: String,
+        leased: Supplier<Number>,
+        available: Supplier<Number>,
+        pending: Supplier<Number>,
+    ) {
+        mapOf("leased" to leased, "available" to available, "pending" to pending).forEach { (state, value) ->
+            Gauge.builder(PLATFORM_CONNECTIONS_METRIC, value)
+                .description("The connections to the platform per organisation")
+                .tag(ORGANISATION_TAG, organisation)
+                .tag(CONNECTION_STATE_TAG, state)
+                .register(registry)
+        }
+    }
+
+    /**
+     * Creates a gauge to monitor the number of queued requests of an organisation.
+     *
+     * @param organisation The organisation the queue belongs to.
+     * @param depth Supplies the number of queued requests.
+     */
+    fun monitorDispatchQueue(organisation: String, depth: Supplier<Number>) =
+        Gauge.builder(DISPATCH_QUEUE_METRIC, depth)
+            .description("The requests waiting to be sent to the platform per organisation")
+            .tag(ORGANISATION_TAG, organisation)
+            .register(registry)
+
+    /**
+     * Records the time a request of an organisation was queued before it was sent to the platform.
+     *
+     * @param organisation The organisation of the request.
+     * @param waitNanos The time the request was queued, in nanoseconds.
+     */
+    fun recordDispatchWait(organisation: String, waitNanos: Long) =
+        Timer.builder(DISPATCH_WAIT_METRIC)
+            .description("The time requests wait before they are sent to the platform")
+            .tag(ORGANISATION_TAG, organisation)
+            .register(registry)
+            .record(waitNanos, TimeUnit.NANOSECONDS)
+
+    /** Counts a request of an organisation which was rejected because its queue was full. */
+    fun recordDispatchRejected(organisation: String) =
+        Counter.builder(DISPATCH_REJECTED_METRIC)
+            .description("Requests rejected because the queue of the organisation was full")
+            .tag(ORGANISATION_TAG, organisation)
+            .register(registry)
+            .increment()
+
+    /**
+     * Creates gauges to monitor the state of the circuit breaker of a context. The gauge of the current state is 1, the
+     * others are 0.
+     *
+     * @param context The context the breaker guards.
+     * @param state Supplies the name of the current state.
+     * @param states The names of all states.
+     */
+    fun monitorCircuitBreaker(context: String, state: Supplier<String>, states: List<String>) =
+        states.forEach { name ->
+            Gauge.builder(CIRCUIT_BREAKER_STATE_METRIC) { if (state.get() == name) 1.0 else 0.0 }
+                .description("The state of the circuit breaker per context")
+                .tag(CONNECTION_TIMER_CONTEXT_TAG, context)
+                .tag(CIRCUIT_BREAKER_STATE_TAG, name)
+                .register(registry)
+        }
+
+    /** Counts a request which was answered with a fault because the circuit breaker of its context is open. */
+    fun recordCircuitBreakerRejected(context: String) =
+        Counter.builder(CIRCUIT_BREAKER_REJECTED_METRIC)
+            .description("Requests rejected because the circuit breaker of the context was open")
+            .tag(CONNECTION_TIMER_CONTEXT_TAG, context)
+            .register(registry)
+            .increment()
+
+    /**
+     * Creates gauges to monitor an endpoint of the platform.
+     *
+     * @param endpoint The host and port of the endpoint.
+     * @param outstanding Supplies the number of requests waiting for a response of the endpoint.
+     * @param available Supplies 1 when requests are sent to the endpoint, 0 when it is ejected or unhealthy.
+     */
+    fun monitorPlatformEndpoint(endpoint: String, outstanding: Supplier<Number>, available: Supplier<Number>) {
+        Gauge.builder(PLATFORM_ENDPOINT_OUTSTANDING_METRIC, outstanding)
+            .description("The requests waiting for a response per endpoint of the platform")
+            .tag(ENDPOINT_TAG, endpoint)
+            .register(registry)
+        Gauge.builder(PLATFORM_ENDPOINT_AVAILABLE_METRIC, available)
+            .description("Whether requests are sent to the endpoint of the platform")
+            .tag(ENDPOINT_TAG, endpoint)
+            .register(registry)
+    }
+
+    /**
+     * Records the duration of a call to an endpoint of the platform.
+     *
+     * @param endpoint The host and port of the endpoint.
+     * @param nanos The duration of the call, in nanoseconds.
+     * @param successful Whether the endpoint handled the call.
+     */
+    fun recordPlatformEndpointCall(endpoint: String, nanos: Long, successful: Boolean) =
+        Timer.builder(PLATFORM_ENDPOINT_CALL_METRIC)
+            .description("The duration of calls per endpoint of the platform")
+            .tag(ENDPOINT_TAG, endpoint)
+            .tag(CONNECTION_TIMER_SUCCESSFUL_TAG, successful.toString())
+            .register(registry)
+            .record(nanos, TimeUnit.NANOSECONDS)
+
+    /** Counts an ejection of an endpoint of the platform after consecutive failed calls. */
+    fun recordPlatformEndpointEjection(endpoint: String) =
+        Counter.builder(PLATFORM_ENDPOINT_EJECTION_METRIC)
+            .description("Ejections of the endpoint of the platform after consecutive failed calls")
+            .tag(ENDPOINT_TAG, endpoint)
+            .register(registry)
+            .increment()
 }
@@ -0,0 +1,24 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.valueobjects
+
+/**
+ * Format of connection ids. A connection id may start with the id of the node which created it, followed by
+ * [NODE_SEPARATOR], so the response to the request can be routed back to that node.
+ */
+object ConnectionIds {
+    const val NODE_SEPARATOR = '.'
+
+    /** Node ids are used in topic names, so they are restricted to characters which are valid there. */
+    private val NODE_ID_PATTERN = Regex("[A-Za-z0-9_-]{1,64}")
+
+    @JvmStatic fun isValidNodeId(nodeId: String) = NODE_ID_PATTERN.matches(nodeId)
+
+    /** The id of the node which created the connection id, or null when the connection id does not carry one. */
+    @JvmStatic
+    fun nodeIdOf(connectionId: String): String? {
+        val end = connectionId.indexOf(NODE_SEPARATOR)
+        return if (end < 0) null else connectionId.substring(0, end).takeIf(::isValidNodeId)
+    }
+}
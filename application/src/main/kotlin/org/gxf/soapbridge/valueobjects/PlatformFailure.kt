@@ -0,0 +1,61 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.valueobjects
+
+/**
+ * A negative acknowledgement for a request which did not get a SOAP response from the platform. It is sent on the
+ * responses topic in place of the SOAP response, so the client application gets a SOAP fault right away instead of
+ * waiting for the time-out.
+ *
+ * @property errorClass What went wrong.
+ * @property httpStatus The HTTP status of the platform, when it answered with an error instead of a SOAP response.
+ */
+data class PlatformFailure @JvmOverloads constructor(val errorClass: ErrorClass, val httpStatus: Int? = null) {
+
+    enum class ErrorClass(val description: String) {
+        /** No connection could be made to the platform. */
+        CONNECTION("Unable to connect to the platform"),
+
+        /** The TLS handshake failed, or there is no client certificate for the organisation. */
+        TLS("Unable to set up a secure connection to the platform"),
+
+        /** The platform did not respond in time. */
+        TIMEOUT("The platform did not respond in time"),
+
+        /** The connection failed while sending the request or reading the response. */
+        IO("Communication with the platform failed"),
+
+        /** The platform is unavailable, or its circuit breaker is open. */
+        UNAVAILABLE("Platform service unavailable"),
+
+        /** The request was not sent, because too many requests are queued for the platform. */
+        OVERLOADED("Too many requests queued for the platform"),
+
+        /** The response could not be signed. */
+        SIGNING("Unable to sign the response of the platform"),
+
+        /** Any other failure. */
+        INTERNAL("Unable to proxy the request to the platform"),
+    }
+
+    /** The fault string of the SOAP fault returned to the client application. */
+    val faultString: String
+        get() = if (httpStatus == null) errorClass.description else "${errorClass.description} (HTTP $httpStatus)"
+
+    /** The HTTP status as a message field, empty when there is none. */
+    val httpStatusField: String
+        get() = httpStatus?.toString().orEmpty()
+
+    companion object {
+        /**
+         * Reads a failure from its message fields. An error class which is not known to this version is read as
+         * [ErrorClass.INTERNAL], so newer bridges can add error classes.
+         */
+        fun fromFields(errorClass: String, httpStatus: String): PlatformFailure =
+            PlatformFailure(
+                ErrorClass.entries.find { it.name == errorClass } ?: ErrorClass.INTERNAL,
+                httpStatus.toIntOrNull(),
+            )
+    }
+}
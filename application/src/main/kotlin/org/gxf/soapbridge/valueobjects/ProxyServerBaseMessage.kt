@@ -11,8 +11,14 @@ abstract class ProxyServerBaseMessage(val connectionId: String) {
 
     protected abstract fun getFieldsForMessage(): List<String>
 
+    /**
+     * The '~' separated fields of this instance. Computed once, since the same string is used for signing and for
+     * sending the message.
+     */
+    private val fieldsString: String by lazy { getFieldsForMessage().joinToString(SEPARATOR, postfix = SEPARATOR) }
+
     /** Constructs a string separated by '~' from the fields of this instance. */
-    fun constructString() = getFieldsForMessage().joinToString(SEPARATOR, postfix = SEPARATOR)
+    fun constructString() = fieldsString
 
     // TODO possibly convert to jackson mapping
     /** Constructs a string separated by '~' from the fields of this instance followed by the signature. */
@@ -21,8 +27,12 @@ abstract class ProxyServerBaseMessage(val connectionId: String) {
     companion object {
         const val SEPARATOR = "~"
 
-        fun encode(input: String): String = Base64.getEncoder().encodeToString(input.toByteArray())
+        fun encode(input: String): String = encode(input.toByteArray())
+
+        fun encode(input: ByteArray): String = Base64.getEncoder().encodeToString(input)
+
+        fun decode(input: String?): String = String(decodeToBytes(input))
 
-        fun decode(input: String?): String = String(Base64.getDecoder().decode(input))
+        fun decodeToBytes(input: String?): ByteArray = Base64.getDecoder().decode(input)
     }
 }
@@ -11,7 +11,8 @@ class ProxyServerRequestMessage(
     connectionId: String,
     val commonName: String,
     val context: String,
-    val soapPayload: String,
+    /** The SOAP payload exactly as received from the client application. */
+    val soapPayload: ByteArray,
 ) : ProxyServerBaseMessage(connectionId) {
 
     override fun getFieldsForMessage(): List<String> =
@@ -40,7 +41,7 @@ class ProxyServerRequestMessage(
             }
             val connectionId = split[0]
             val context = decode(split[1])
-            val soapRequest = decode(split[2])
+            val soapRequest = decodeToBytes(split[2])
             val commonName: String
             val signature: String
             if (numTokens == 4) {
@@ -7,17 +7,37 @@ import io.github.oshai.kotlinlogging.KotlinLogging
 import java.util.*
 import org.gxf.soapbridge.exceptions.ProxyMessageException
 
-class ProxyServerResponseMessage(connectionId: String, val soapResponse: String) :
+/**
+ * The answer to a request: the SOAP response of the platform, or a [PlatformFailure] when the platform did not respond
+ * with one. A failure has an empty SOAP response.
+ */
+class ProxyServerResponseMessage
+@JvmOverloads
+constructor(connectionId: String, val soapResponse: String, val failure: PlatformFailure? = null) :
     ProxyServerBaseMessage(connectionId) {
 
+    /** The SOAP response encoded as UTF-8, as it is signed and sent in the binary wire format. */
+    val soapResponseBytes: ByteArray by lazy { soapResponse.toByteArray() }
+
     /** Constructs a string separated by '~' from the fields of this instance. */
-    override fun getFieldsForMessage(): List<String> = listOf(connectionId, encode(soapResponse))
+    override fun getFieldsForMessage(): List<String> =
+        if (failure == null) {
+            listOf(connectionId, encode(soapResponse))
+        } else {
+            listOf(connectionId, encode(soapResponse), failure.errorClass.name, failure.httpStatusField)
+        }
 
     companion object {
         val logger = KotlinLogging.logger {}
 
+        /** Creates the answer to a request for which the platform did not return a SOAP response. */
+        @JvmStatic
+        fun failure(connectionId: String, failure: PlatformFailure) =
+            ProxyServerResponseMessage(connectionId, "", failure)
+
         /**
-         * Constructs a ProxyServerResponseMessage instance from a string separated by '~'.
+         * Constructs a ProxyServerResponseMessage instance from a string separated by '~'. A failure has two more
+         * fields, the error class and the HTTP status, before the signature.
          *
          * @param string The input string.
          * @return A ProxyServerResponseMessage instance.
@@ -35,10 +55,11 @@ class ProxyServerResponseMessage(connectionId: String, val soapResponse: String)
                 logger.debug { "split[0] connection-id: ${split[0]}" }
                 logger.debug { "split[1] encoded soap-response length: ${split[1].length}" }
                 logger.debug { "split[1] soap-response: ${decode(split[1])}" }
-                logger.debug { "split[2] security-key : ${split[2]}" }
+                logger.debug { "split[${numTokens - 1}] security-key : ${split[numTokens - 1]}" }
             }
-            val proxyServerResponseMessage = ProxyServerResponseMessage(split[0], decode(split[1]))
-            proxyServerResponseMessage.signature = split[2]
+            val failure = if (numTokens >= 5) PlatformFailure.fromFields(split[2], split[3]) else null
+            val proxyServerResponseMessage = ProxyServerResponseMessage(split[0], decode(split[1]), failure)
+            proxyServerResponseMessage.signature = split[numTokens - 1]
             return proxyServerResponseMessage
         }
     }
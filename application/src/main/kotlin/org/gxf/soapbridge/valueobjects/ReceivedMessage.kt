@@ -0,0 +1,22 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.valueobjects
+
+import java.nio.ByteBuffer
+import org.gxf.soapbridge.exceptions.ProxyMessageException
+
+/**
+ * A proxy-server message as received from Kafka, before it is decoded. The signature is verified over the received
+ * bytes, so a message which fails verification is never decoded.
+ */
+class ReceivedMessage<T : ProxyServerBaseMessage>(
+    val connectionId: String,
+    /** The signed content, as views on the received bytes. */
+    val signedContent: List<ByteBuffer>,
+    val signature: String,
+    private val decoder: () -> T,
+) {
+    /** Decodes the message. Only call this after the signature has been verified. */
+    @Throws(ProxyMessageException::class) fun decode(): T = decoder()
+}
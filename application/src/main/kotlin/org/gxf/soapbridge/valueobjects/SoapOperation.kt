@@ -0,0 +1,15 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.valueobjects
+
+/**
+ * The operation of a SOAP request: the local name of the first child element of the SOAP Body, e.g.
+ * `GetStatusRequest`. Determined once per request and used to look up time-outs and to tag metrics.
+ */
+data class SoapOperation(val name: String) {
+    companion object {
+        /** Used when the operation cannot be determined. */
+        @JvmField val UNKNOWN = SoapOperation("unknown")
+    }
+}
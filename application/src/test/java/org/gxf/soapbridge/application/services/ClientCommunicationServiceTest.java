@@ -0,0 +1,152 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.gxf.soapbridge.application.services.ConnectionCacheService.CachedConnection;
+import org.gxf.soapbridge.configuration.properties.ConcurrencyLimitConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.NodeConfigurationProperties;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.gxf.soapbridge.soap.exceptions.PlatformFailureException;
+import org.gxf.soapbridge.valueobjects.PlatformFailure;
+import org.gxf.soapbridge.valueobjects.PlatformFailure.ErrorClass;
+import org.gxf.soapbridge.valueobjects.ProxyServerResponseMessage;
+import org.gxf.soapbridge.valueobjects.ReceivedMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+
+class ClientCommunicationServiceTest {
+
+  private final SigningService signingService = Mockito.mock(SigningService.class);
+  private MeterRegistry meterRegistry;
+  private ConnectionCacheService connectionCacheService;
+  private ClientCommunicationService clientCommunicationService;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    connectionCacheService =
+        new ConnectionCacheService(
+            new MonitoringService(meterRegistry), new NodeConfigurationProperties("node-1"));
+    clientCommunicationService =
+        new ClientCommunicationService(connectionCacheService, signingService);
+  }
+
+  @AfterEach
+  void tearDown() {
+    connectionCacheService.preDestroy();
+  }
+
+  @Test
+  void shouldSetVerifiedResponseForPendingConnection() throws Exception {
+    // arrange
+    final CachedConnection cachedConnection =
+        connectionCacheService.cacheConnection(
+            10, ConcurrencyLimiter.UNLIMITED, PayloadMemoryBudget.UNLIMITED);
+    final String connectionId = cachedConnection.getConnection().getConnectionId();
+    Mockito.when(
+            signingService.verifyContent(ArgumentMatchers.anyList(), ArgumentMatchers.anyString()))
+        .thenReturn(true);
+
+    // act
+    clientCommunicationService.handleIncomingResponse(response(connectionId));
+
+    // assert
+    assertThat(cachedConnection.getConnection().waitForResponse()).isEqualTo("response");
+    cachedConnection.close();
+  }
+
+  @Test
+  void shouldFailConnectionWithSoapFaultAndLowerLimitForFailure() throws Exception {
+    // arrange
+    final ConcurrencyLimiter concurrencyLimiter =
+        new ConcurrencyLimiter(
+            new ConcurrencyLimitConfigurationProperties(true, 10, 1, 20, 0.5, 5),
+            new MonitoringService(meterRegistry));
+    final CachedConnection cachedConnection =
+        connectionCacheService.cacheConnection(
+            10, concurrencyLimiter.tryAcquire(), PayloadMemoryBudget.UNLIMITED);
+    final String connectionId = cachedConnection.getConnection().getConnectionId();
+    Mockito.when(
+            signingService.verifyContent(ArgumentMatchers.anyList(), ArgumentMatchers.anyString()))
+        .thenReturn(true);
+
+    // act
+    clientCommunicationService.handleIncomingResponse(
+        new ReceivedMessage<>(
+            connectionId,
+            List.of(),
+            "signature",
+            () ->
+                ProxyServerResponseMessage.failure(
+                    connectionId, new PlatformFailure(ErrorClass.UNAVAILABLE, 503))));
+    cachedConnection.close();
+
+    // assert
+    assertThatThrownBy(() -> cachedConnection.getConnection().waitForResponse())
+        .isInstanceOfSatisfying(
+            PlatformFailureException.class,
+            e ->
+                assertThat(e.getSoapFault())
+                    .contains("<faultcode>soapenv:Server</faultcode>")
+                    .contains(
+                        "<faultstring>Platform service unavailable (HTTP 503)</faultstring>"));
+    assertThat(concurrencyLimiter.getLimit()).isEqualTo(5);
+  }
+
+  @Test
+  void shouldDropResponsesOfOtherNodesWithoutVerifyingThem() throws Exception {
+    // act
+    clientCommunicationService.handleIncomingResponse(response("node-2.0123456789abcdef-1"));
+
+    // assert
+    Mockito.verifyNoInteractions(signingService);
+    assertThat(meterRegistry.counter(MonitoringService.FOREIGN_RESPONSE_METRIC).count())
+        .isEqualTo(1.0);
+  }
+
+  @Test
+  void shouldDropResponsesOfExpiredConnectionsWithoutVerifyingThem() throws Exception {
+    // arrange
+    final CachedConnection cachedConnection =
+        connectionCacheService.cacheConnection(
+            10, ConcurrencyLimiter.UNLIMITED, PayloadMemoryBudget.UNLIMITED);
+    cachedConnection.close();
+
+    // act
+    clientCommunicationService.handleIncomingResponse(
+        response(cachedConnection.getConnection().getConnectionId()));
+
+    // assert
+    Mockito.verifyNoInteractions(signingService);
+    assertThat(meterRegistry.counter(MonitoringService.LATE_RESPONSE_METRIC).count())
+        .isEqualTo(1.0);
+  }
+
+  @Test
+  void shouldMeasureResponseAsEncodedBytes() {
+    assertThat(ClientCommunicationService.utf8Length("response")).isEqualTo(8);
+    assertThat(ClientCommunicationService.utf8Length("caf\u00e9")).isEqualTo(5);
+    assertThat(ClientCommunicationService.utf8Length("\u20ac")).isEqualTo(3);
+    assertThat(ClientCommunicationService.utf8Length("\ud83d\ude00"))
+        .isEqualTo("\ud83d\ude00".getBytes(StandardCharsets.UTF_8).length);
+  }
+
+  private static ReceivedMessage<ProxyServerResponseMessage> response(final String connectionId) {
+    return new ReceivedMessage<>(
+        connectionId,
+        List.of(),
+        "signature",
+        () -> new ProxyServerResponseMessage(connectionId, "response"));
+  }
+}
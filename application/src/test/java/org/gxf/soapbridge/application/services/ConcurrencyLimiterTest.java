@@ -0,0 +1,66 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.gxf.soapbridge.configuration.properties.ConcurrencyLimitConfigurationProperties;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimiterTest {
+
+  private MeterRegistry meterRegistry;
+  private ConcurrencyLimiter concurrencyLimiter;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    concurrencyLimiter =
+        new ConcurrencyLimiter(
+            new ConcurrencyLimitConfigurationProperties(true, 2, 1, 4, 0.5, 7),
+            new MonitoringService(meterRegistry));
+  }
+
+  @Test
+  void shouldRejectRequestsAboveLimit() {
+    final ConcurrencyLimiter.Permit first = concurrencyLimiter.tryAcquire();
+    final ConcurrencyLimiter.Permit second = concurrencyLimiter.tryAcquire();
+
+    assertThat(first).isNotNull();
+    assertThat(second).isNotNull();
+    assertThat(concurrencyLimiter.tryAcquire()).isNull();
+    assertThat(meterRegistry.counter(MonitoringService.REJECTED_REQUEST_METRIC).count())
+        .isEqualTo(1.0);
+
+    first.release(ConcurrencyLimiter.Outcome.IGNORED);
+    assertThat(concurrencyLimiter.tryAcquire()).isNotNull();
+  }
+
+  @Test
+  void shouldLowerLimitOnTimeoutAndRaiseItWhenAnswered() {
+    concurrencyLimiter.tryAcquire().release(ConcurrencyLimiter.Outcome.TIMED_OUT);
+    assertThat(concurrencyLimiter.getLimit()).isEqualTo(1);
+
+    final ConcurrencyLimiter.Permit permit = concurrencyLimiter.tryAcquire();
+    permit.release(ConcurrencyLimiter.Outcome.ANSWERED);
+    // Releasing twice has no effect.
+    permit.release(ConcurrencyLimiter.Outcome.TIMED_OUT);
+    assertThat(concurrencyLimiter.getLimit()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldAcceptEverythingWhenDisabled() {
+    final ConcurrencyLimiter disabled =
+        new ConcurrencyLimiter(
+            new ConcurrencyLimitConfigurationProperties(false, 1, 1, 1, 0.5, 7),
+            new MonitoringService(meterRegistry));
+
+    assertThat(disabled.tryAcquire()).isSameAs(ConcurrencyLimiter.UNLIMITED);
+    assertThat(disabled.tryAcquire()).isSameAs(ConcurrencyLimiter.UNLIMITED);
+  }
+}
@@ -0,0 +1,103 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeoutException;
+import org.gxf.soapbridge.application.services.ConnectionCacheService.CachedConnection;
+import org.gxf.soapbridge.configuration.properties.NodeConfigurationProperties;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.gxf.soapbridge.soap.clients.Connection;
+import org.gxf.soapbridge.valueobjects.ConnectionIds;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ConnectionCacheServiceTest {
+
+  private MeterRegistry meterRegistry;
+  private ConnectionCacheService connectionCacheService;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    connectionCacheService =
+        new ConnectionCacheService(
+            new MonitoringService(meterRegistry), new NodeConfigurationProperties("node-1"));
+  }
+
+  @AfterEach
+  void tearDown() {
+    connectionCacheService.preDestroy();
+  }
+
+  @Test
+  void shouldCompleteCachedConnectionWithResponse() throws Exception {
+    // arrange
+    final CachedConnection cachedConnection =
+        connectionCacheService.cacheConnection(
+            10, ConcurrencyLimiter.UNLIMITED, PayloadMemoryBudget.UNLIMITED);
+    final String connectionId = cachedConnection.getConnection().getConnectionId();
+
+    // act
+    final Connection connection = connectionCacheService.findConnection(connectionId);
+    final boolean completed = connection.setSoapResponse("response");
+
+    // assert
+    assertThat(completed).isTrue();
+    assertThat(cachedConnection.getConnection().waitForResponse()).isEqualTo("response");
+    cachedConnection.close();
+    assertThat(connectionCacheService.findConnection(connectionId)).isNull();
+  }
+
+  @Test
+  void shouldIncludeNodeIdInConnectionId() {
+    final CachedConnection cachedConnection =
+        connectionCacheService.cacheConnection(
+            10, ConcurrencyLimiter.UNLIMITED, PayloadMemoryBudget.UNLIMITED);
+
+    assertThat(ConnectionIds.nodeIdOf(cachedConnection.getConnection().getConnectionId()))
+        .isEqualTo("node-1");
+    assertThat(ConnectionIds.nodeIdOf("0123456789abcdef-1")).isNull();
+    cachedConnection.close();
+  }
+
+  @Test
+  void shouldExpireConnectionAfterTimeout() {
+    // arrange
+    final CachedConnection cachedConnection =
+        connectionCacheService.cacheConnection(
+            1, ConcurrencyLimiter.UNLIMITED, PayloadMemoryBudget.UNLIMITED);
+    final Connection connection = cachedConnection.getConnection();
+
+    // act & assert
+    assertThatThrownBy(connection::waitForResponse).isInstanceOf(TimeoutException.class);
+    assertThat(connectionCacheService.findConnection(connection.getConnectionId())).isNull();
+    assertThat(connection.setSoapResponse("too late")).isFalse();
+  }
+
+  @Test
+  void shouldDistinguishLateAndOrphanedResponses() {
+    // arrange
+    final CachedConnection cachedConnection =
+        connectionCacheService.cacheConnection(
+            10, ConcurrencyLimiter.UNLIMITED, PayloadMemoryBudget.UNLIMITED);
+    final String connectionId = cachedConnection.getConnection().getConnectionId();
+    cachedConnection.close();
+
+    // act
+    connectionCacheService.registerUnmatchedResponse(connectionId);
+    connectionCacheService.registerUnmatchedResponse("0123456789abcdef-1");
+
+    // assert
+    assertThat(meterRegistry.counter(MonitoringService.LATE_RESPONSE_METRIC).count())
+        .isEqualTo(1.0);
+    assertThat(meterRegistry.counter(MonitoringService.ORPHANED_RESPONSE_METRIC).count())
+        .isEqualTo(1.0);
+  }
+}
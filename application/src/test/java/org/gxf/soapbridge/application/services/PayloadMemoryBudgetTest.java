@@ -0,0 +1,96 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.gxf.soapbridge.configuration.properties.MemoryBudgetConfigurationProperties;
+import org.gxf.soapbridge.kafka.serialization.WireFormat;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+class PayloadMemoryBudgetTest {
+
+  private MeterRegistry meterRegistry;
+  private PayloadMemoryBudget payloadMemoryBudget;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    payloadMemoryBudget =
+        new PayloadMemoryBudget(
+            new MemoryBudgetConfigurationProperties(true, DataSize.ofBytes(100)),
+            WireFormat.V1,
+            new MonitoringService(meterRegistry));
+    payloadMemoryBudget.postConstructor();
+  }
+
+  @Test
+  void shouldRejectPayloadsAboveBudget() {
+    // 30 bytes of payload and 40 bytes of Base64 encoded payload
+    final PayloadMemoryBudget.Reservation reservation = payloadMemoryBudget.tryReserveRequest(30);
+
+    assertThat(reservation).isNotNull();
+    assertThat(reservedBytes()).isEqualTo(70.0);
+    assertThat(payloadMemoryBudget.tryReserveRequest(30)).isNull();
+    assertThat(meterRegistry.counter(MonitoringService.REJECTED_PAYLOAD_METRIC).count())
+        .isEqualTo(1.0);
+
+    reservation.release();
+    assertThat(reservedBytes()).isZero();
+    assertThat(payloadMemoryBudget.tryReserveRequest(30)).isNotNull();
+  }
+
+  @Test
+  void shouldNotReserveBase64CopyInBinaryWireFormat() {
+    payloadMemoryBudget =
+        new PayloadMemoryBudget(
+            new MemoryBudgetConfigurationProperties(true, DataSize.ofBytes(100)),
+            WireFormat.V2,
+            new MonitoringService(meterRegistry));
+
+    // The record value of the queue message is the payload itself.
+    final PayloadMemoryBudget.Reservation reservation = payloadMemoryBudget.tryReserveRequest(30);
+
+    assertThat(reservation).isNotNull();
+    assertThat(payloadMemoryBudget.tryReserveRequest(70)).isNotNull();
+    assertThat(payloadMemoryBudget.tryReserveRequest(1)).isNull();
+  }
+
+  @Test
+  void shouldResizeReservationOfBodyToDecodedPayload() {
+    // Reserved for a body of 30 bytes before it is read.
+    final PayloadMemoryBudget.Reservation reservation = payloadMemoryBudget.tryReserveRequest(30);
+
+    // 3 bytes of payload and 4 bytes of Base64 encoded payload
+    assertThat(reservation.tryResizeRequest(3)).isTrue();
+    assertThat(reservedBytes()).isEqualTo(7.0);
+    assertThat(reservation.tryResizeRequest(60)).isFalse();
+    assertThat(reservedBytes()).isEqualTo(7.0);
+
+    reservation.release();
+    assertThat(reservedBytes()).isZero();
+  }
+
+  @Test
+  void shouldExtendReservationForResponseWithinBudget() {
+    final PayloadMemoryBudget.Reservation reservation = payloadMemoryBudget.tryReserveRequest(30);
+
+    assertThat(reservation.tryExtend(30)).isTrue();
+    assertThat(reservation.tryExtend(1)).isFalse();
+    assertThat(reservedBytes()).isEqualTo(100.0);
+
+    reservation.release();
+    reservation.release();
+    assertThat(reservedBytes()).isZero();
+  }
+
+  private double reservedBytes() {
+    return meterRegistry.get(MonitoringService.PAYLOAD_BYTES_METRIC).gauge().value();
+  }
+}
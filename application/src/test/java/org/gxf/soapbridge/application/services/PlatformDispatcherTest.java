@@ -0,0 +1,125 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.gxf.soapbridge.configuration.properties.DispatchConfigurationProperties;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.junit.jupiter.api.Test;
+
+class PlatformDispatcherTest {
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  /** The organisations of the sent requests, in the order in which they were sent. */
+  private final List<String> sent = new ArrayList<>();
+
+  /** The futures of the sent requests which have not finished. */
+  private final List<CompletableFuture<Void>> inFlight = new ArrayList<>();
+
+  @Test
+  void shouldShareThePlatformInProportionToTheWeights() {
+    // arrange
+    final PlatformDispatcher dispatcher = dispatcher(1, 1, 10, Map.of("bulk", 1, "interactive", 2));
+    dispatcher.dispatch("bulk", request("bulk"));
+    for (int i = 0; i < 4; i++) {
+      dispatcher.dispatch("bulk", request("bulk"));
+    }
+    for (int i = 0; i < 6; i++) {
+      dispatcher.dispatch("interactive", request("interactive"));
+    }
+
+    // act
+    for (int i = 0; i < 5; i++) {
+      finishFirst();
+    }
+
+    // assert
+    assertThat(sent.subList(1, 6))
+        .containsExactlyInAnyOrder(
+            "bulk", "interactive", "interactive", "interactive", "interactive");
+    assertThat(queueDepth("bulk")).isEqualTo(3.0);
+    assertThat(queueDepth("interactive")).isEqualTo(2.0);
+  }
+
+  @Test
+  void shouldLimitRequestsPerOrganisation() {
+    // arrange
+    final PlatformDispatcher dispatcher = dispatcher(10, 1, 10, Map.of());
+
+    // act
+    final CompletableFuture<Void> first = dispatcher.dispatch("org", request("org"));
+    final CompletableFuture<Void> second = dispatcher.dispatch("org", request("org"));
+    dispatcher.dispatch("other-org", request("other-org"));
+
+    // assert
+    assertThat(sent).containsExactly("org", "other-org");
+    finishFirst();
+    assertThat(first).isDone();
+    assertThat(second).isNotDone();
+    assertThat(sent).containsExactly("org", "other-org", "org");
+  }
+
+  @Test
+  void shouldRejectRequestsWhenTheQueueIsFull() {
+    // arrange
+    final PlatformDispatcher dispatcher = dispatcher(1, 1, 1, Map.of());
+    dispatcher.dispatch("org", request("org"));
+    dispatcher.dispatch("org", request("org"));
+
+    // act
+    final CompletableFuture<Void> rejected = dispatcher.dispatch("org", request("org"));
+
+    // assert
+    assertThat(rejected).isNull();
+    assertThat(
+            meterRegistry
+                .counter(
+                    MonitoringService.DISPATCH_REJECTED_METRIC,
+                    MonitoringService.ORGANISATION_TAG,
+                    "org")
+                .count())
+        .isEqualTo(1.0);
+  }
+
+  private PlatformDispatcher dispatcher(
+      final int maxConcurrency,
+      final int maxConcurrencyPerOrganisation,
+      final int maxQueueSize,
+      final Map<String, Integer> weights) {
+    return new PlatformDispatcher(
+        new DispatchConfigurationProperties(
+            true, maxConcurrency, maxConcurrencyPerOrganisation, maxQueueSize, weights, 1),
+        new MonitoringService(meterRegistry));
+  }
+
+  private Supplier<CompletableFuture<Void>> request(final String organisation) {
+    return () -> {
+      final CompletableFuture<Void> finished = new CompletableFuture<>();
+      sent.add(organisation);
+      inFlight.add(finished);
+      return finished;
+    };
+  }
+
+  private void finishFirst() {
+    inFlight.removeFirst().complete(null);
+  }
+
+  private double queueDepth(final String organisation) {
+    return meterRegistry
+        .get(MonitoringService.DISPATCH_QUEUE_METRIC)
+        .tag(MonitoringService.ORGANISATION_TAG, organisation)
+        .gauge()
+        .value();
+  }
+}
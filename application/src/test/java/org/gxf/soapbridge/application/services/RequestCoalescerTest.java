@@ -0,0 +1,74 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import org.gxf.soapbridge.configuration.properties.CoalescingConfigurationProperties;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.gxf.soapbridge.soap.clients.Connection;
+import org.gxf.soapbridge.valueobjects.SoapOperation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class RequestCoalescerTest {
+
+  private static final SoapOperation OPERATION = new SoapOperation("GetStatusRequest");
+  private static final byte[] PAYLOAD = "<GetStatusRequest/>".getBytes(StandardCharsets.UTF_8);
+
+  private MeterRegistry meterRegistry;
+  private RequestCoalescer requestCoalescer;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    requestCoalescer =
+        new RequestCoalescer(
+            new CoalescingConfigurationProperties(Set.of(OPERATION.getName())),
+            new MonitoringService(meterRegistry));
+  }
+
+  @Test
+  void shouldOnlyCoalesceConfiguredOperations() {
+    assertThat(requestCoalescer.keyFor(SoapOperation.UNKNOWN, "org", "/context", PAYLOAD))
+        .isNull();
+    assertThat(requestCoalescer.keyFor(OPERATION, "org", "/context", PAYLOAD))
+        .isEqualTo(requestCoalescer.keyFor(OPERATION, "org", "/context", PAYLOAD))
+        .isNotEqualTo(requestCoalescer.keyFor(OPERATION, "other-org", "/context", PAYLOAD))
+        .isNotEqualTo(requestCoalescer.keyFor(OPERATION, "org", "/other-context", PAYLOAD));
+  }
+
+  @Test
+  void shouldFindInFlightConnectionUntilItIsAnswered() {
+    // arrange
+    final String key = requestCoalescer.keyFor(OPERATION, "org", "/context", PAYLOAD);
+    final Connection connection = new Connection("connection-id", PayloadMemoryBudget.UNLIMITED);
+
+    // act & assert
+    assertThat(requestCoalescer.findInFlight(OPERATION, key)).isNull();
+    requestCoalescer.register(key, connection);
+    assertThat(requestCoalescer.findInFlight(OPERATION, key)).isSameAs(connection);
+
+    connection.setSoapResponse("response");
+    assertThat(requestCoalescer.findInFlight(OPERATION, key)).isNull();
+
+    assertThat(counter("hit")).isEqualTo(1.0);
+    assertThat(counter("miss")).isEqualTo(2.0);
+  }
+
+  private double counter(final String result) {
+    return meterRegistry
+        .counter(
+            MonitoringService.COALESCING_METRIC,
+            MonitoringService.CONNECTION_TIMER_OPERATION_TAG,
+            OPERATION.getName(),
+            MonitoringService.COALESCING_RESULT_TAG,
+            result)
+        .count();
+  }
+}
@@ -0,0 +1,112 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.gxf.soapbridge.configuration.properties.ResponseCacheConfigurationProperties;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.gxf.soapbridge.soap.clients.Connection;
+import org.gxf.soapbridge.valueobjects.SoapOperation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+class ResponseCacheTest {
+
+  private static final SoapOperation OPERATION = new SoapOperation("GetStatusRequest");
+  private static final String RESPONSE = "<Envelope><Body><GetStatusResponse/></Body></Envelope>";
+
+  private final AtomicLong nanoTime = new AtomicLong();
+  private MeterRegistry meterRegistry;
+  private ResponseCache responseCache;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    responseCache =
+        new ResponseCache(
+            new ResponseCacheConfigurationProperties(
+                Map.of(OPERATION.getName(), Duration.ofSeconds(5)),
+                DataSize.ofBytes(RESPONSE.length() * 2L)),
+            new MonitoringService(meterRegistry),
+            nanoTime::get);
+  }
+
+  @Test
+  void shouldIgnoreWhitespaceBetweenElementsInKey() {
+    assertThat(keyFor("<Envelope>\n  <Body>\n    <GetStatusRequest/>\n  </Body>\n</Envelope>"))
+        .isEqualTo(keyFor("<Envelope><Body><GetStatusRequest/></Body></Envelope>"))
+        .isNotEqualTo(keyFor("<Envelope><Body><GetStatusRequest> a</GetStatusRequest></Body>"));
+    final byte[] payload = "<Envelope/>".getBytes(StandardCharsets.UTF_8);
+    assertThat(responseCache.keyFor(SoapOperation.UNKNOWN, "org", "/context", payload)).isNull();
+  }
+
+  @Test
+  void shouldReturnCachedResponseUntilItExpires() {
+    // arrange
+    final String key = keyFor("<GetStatusRequest/>");
+    answer(key, RESPONSE);
+
+    // act & assert
+    assertThat(responseCache.find(OPERATION, key)).isEqualTo(RESPONSE);
+    nanoTime.addAndGet(Duration.ofSeconds(5).toNanos());
+    assertThat(responseCache.find(OPERATION, key)).isNull();
+    assertThat(evictions("expired")).isEqualTo(1.0);
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedResponsesWhenFull() {
+    // arrange
+    final String first = keyFor("<GetStatusRequest>1</GetStatusRequest>");
+    final String second = keyFor("<GetStatusRequest>2</GetStatusRequest>");
+    final String third = keyFor("<GetStatusRequest>3</GetStatusRequest>");
+    answer(first, RESPONSE);
+    answer(second, RESPONSE);
+    responseCache.find(OPERATION, first);
+
+    // act
+    answer(third, RESPONSE);
+
+    // assert
+    assertThat(responseCache.find(OPERATION, first)).isEqualTo(RESPONSE);
+    assertThat(responseCache.find(OPERATION, second)).isNull();
+    assertThat(responseCache.find(OPERATION, third)).isEqualTo(RESPONSE);
+    assertThat(evictions("size")).isEqualTo(1.0);
+  }
+
+  @Test
+  void shouldNotCacheFaults() {
+    final String key = keyFor("<GetStatusRequest/>");
+    answer(key, "<Envelope><Body><Fault></Fault></Body></Envelope>");
+
+    assertThat(responseCache.find(OPERATION, key)).isNull();
+  }
+
+  private String keyFor(final String payload) {
+    return responseCache.keyFor(
+        OPERATION, "org", "/context", payload.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void answer(final String key, final String response) {
+    final Connection connection = new Connection(key, PayloadMemoryBudget.UNLIMITED);
+    responseCache.cacheWhenAnswered(OPERATION, key, connection);
+    connection.setSoapResponse(response);
+  }
+
+  private double evictions(final String cause) {
+    return meterRegistry
+        .counter(
+            MonitoringService.RESPONSE_CACHE_EVICTION_METRIC,
+            MonitoringService.EVICTION_CAUSE_TAG,
+            cause)
+        .count();
+  }
+}
@@ -0,0 +1,99 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+import org.gxf.soapbridge.application.signing.BatchSigner;
+import org.gxf.soapbridge.application.signing.MerkleProof;
+import org.gxf.soapbridge.application.signing.PooledSigningEngine;
+import org.gxf.soapbridge.application.signing.SigningEngine;
+import org.gxf.soapbridge.configuration.properties.BatchSigningConfigurationProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class SigningServiceTest {
+
+  private SigningEngine signingEngine;
+  private BatchSigner batchSigner;
+  private SigningService signingService;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    final KeyPair keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+    signingEngine =
+        spy(
+            new PooledSigningEngine(
+                "Ed25519", "SunEC", keyPair.getPrivate(), keyPair.getPublic(), 4));
+    batchSigner =
+        new BatchSigner(
+            signingEngine, new BatchSigningConfigurationProperties(true, Duration.ofSeconds(1), 4));
+    signingService = new SigningService(signingEngine, batchSigner);
+  }
+
+  @AfterEach
+  void tearDown() {
+    batchSigner.preDestroy();
+  }
+
+  @Test
+  void shouldSignFullGroupOnceAndVerifyRootOnce() throws Exception {
+    // Every signer needs its own thread, since they wait until the group is full.
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      // act
+      final List<CompletableFuture<String>> signatures =
+          IntStream.range(0, 4)
+              .mapToObj(i -> CompletableFuture.supplyAsync(() -> sign("message-" + i), executor))
+              .toList();
+
+      // assert
+      for (int i = 0; i < 4; i++) {
+        final String signature = signatures.get(i).get();
+        assertThat(MerkleProof.isMerkleProof(signature)).isTrue();
+        assertThat(signingService.verifyContent("message-" + i, signature)).isTrue();
+      }
+      verify(signingEngine, times(1)).sign(any());
+      verify(signingEngine, times(1)).verify(any(), any());
+      assertThat(signingService.verifyContent("message-4", signatures.getFirst().get()))
+          .isFalse();
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void shouldVerifySignatureOfSingleMessage() throws Exception {
+    final byte[] content = "message".getBytes(StandardCharsets.UTF_8);
+    final String signature =
+        HexFormat.of().formatHex(signingEngine.sign(List.of(ByteBuffer.wrap(content))));
+
+    assertThat(signingService.verifyContent("message", signature)).isTrue();
+    assertThat(signingService.verifyContent("message", "mk1.invalid")).isFalse();
+  }
+
+  private String sign(final String content) {
+    try {
+      return signingService.signContent(content);
+    } catch (final Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,74 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.gxf.soapbridge.configuration.properties.HostnameVerificationStrategy;
+import org.gxf.soapbridge.configuration.properties.SoapConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.SoapEndpointConfiguration;
+import org.gxf.soapbridge.valueobjects.SoapOperation;
+import org.junit.jupiter.api.Test;
+
+class SoapOperationClassifierTest {
+
+  private static final String SOAP_REQUEST =
+      """
+      <soap:Envelope xmlns:soap="http://www.w3.org/2003/05/soap-envelope" xmlns:m="http://www.example.org">
+        <soap:Header>
+          <m:OrganisationIdentification>GetStatusRequest</m:OrganisationIdentification>
+        </soap:Header>
+        <soap:Body>
+          <m:SetScheduleRequest>
+            <m:DeviceIdentification>device-1</m:DeviceIdentification>
+          </m:SetScheduleRequest>
+        </soap:Body>
+      </soap:Envelope>
+      """;
+
+  private final SoapConfigurationProperties soapConfigurationProperties =
+      new SoapConfigurationProperties(
+          HostnameVerificationStrategy.BROWSER_COMPATIBLE_HOSTNAMES,
+          45,
+          Map.of("SetScheduleRequest", 180, "GetStatusRequest", 120),
+          true,
+          false,
+          new SoapEndpointConfiguration("localhost", 443, "https"),
+          List.of());
+
+  private final SoapOperationClassifier classifier =
+      new SoapOperationClassifier(soapConfigurationProperties);
+
+  @Test
+  void shouldUseFirstBodyElementAsOperation() {
+    final SoapOperation operation =
+        classifier.classify(null, SOAP_REQUEST.getBytes(StandardCharsets.UTF_8));
+
+    assertThat(operation.getName()).isEqualTo("SetScheduleRequest");
+    assertThat(soapConfigurationProperties.timeoutFor(operation)).isEqualTo(180);
+  }
+
+  @Test
+  void shouldFallBackToSoapActionHeader() {
+    final SoapOperation operation =
+        classifier.classify(
+            "\"http://www.example.org/GetStatusRequest\"",
+            "not xml".getBytes(StandardCharsets.UTF_8));
+
+    assertThat(operation.getName()).isEqualTo("GetStatusRequest");
+    assertThat(soapConfigurationProperties.timeoutFor(operation)).isEqualTo(120);
+  }
+
+  @Test
+  void shouldReturnUnknownWhenOperationCannotBeDetermined() {
+    final SoapOperation operation =
+        classifier.classify(null, "not xml".getBytes(StandardCharsets.UTF_8));
+
+    assertThat(operation).isEqualTo(SoapOperation.UNKNOWN);
+    assertThat(soapConfigurationProperties.timeoutFor(operation)).isEqualTo(45);
+  }
+}
@@ -0,0 +1,52 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.signing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class MerkleTreeTest {
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 3, 4, 5, 6, 7, 8, 9})
+  void shouldComputeRootFromPathOfEveryLeaf(final int size) {
+    // arrange
+    final List<byte[]> leaves = IntStream.range(0, size).mapToObj(MerkleTreeTest::leaf).toList();
+    final MerkleTree tree = MerkleTree.of(leaves);
+
+    // act & assert
+    for (int i = 0; i < size; i++) {
+      final MerkleProof proof =
+          MerkleProof.decode(new MerkleProof(new byte[] {1}, i, size, tree.path(i)).encode());
+      assertThat(MerkleTree.rootFromPath(leaves.get(i), proof.index(), proof.size(), proof.path()))
+          .isEqualTo(tree.root());
+      assertThat(MerkleTree.rootFromPath(leaf(size), i, size, tree.path(i)))
+          .isNotEqualTo(tree.root());
+    }
+  }
+
+  @Test
+  void shouldRejectPathWhichDoesNotFitTheTree() {
+    final List<byte[]> leaves = IntStream.range(0, 5).mapToObj(MerkleTreeTest::leaf).toList();
+    final MerkleTree tree = MerkleTree.of(leaves);
+
+    assertThat(MerkleTree.rootFromPath(leaves.get(1), 1, 9, tree.path(1))).isNull();
+    assertThat(MerkleTree.rootFromPath(leaves.get(1), 5, 5, tree.path(1))).isNull();
+    assertThatIllegalArgumentException().isThrownBy(() -> MerkleProof.decode("mk1.00.0.1"));
+    assertThatIllegalArgumentException().isThrownBy(() -> MerkleProof.decode("mk1.00.0.1.0a"));
+  }
+
+  private static byte[] leaf(final int number) {
+    return MerkleTree.leafHash(
+        List.of(ByteBuffer.wrap(("message-" + number).getBytes(StandardCharsets.UTF_8))));
+  }
+}
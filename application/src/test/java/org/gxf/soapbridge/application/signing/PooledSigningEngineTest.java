@@ -0,0 +1,46 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.application.signing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.List;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+class PooledSigningEngineTest {
+
+  private static final List<ByteBuffer> CONTENT =
+      List.of(
+          ByteBuffer.wrap("connection-id~".getBytes(StandardCharsets.UTF_8)),
+          ByteBuffer.wrap("<Envelope/>".getBytes(StandardCharsets.UTF_8)));
+
+  @ParameterizedTest
+  @CsvSource({
+    "RSA, SHA256withRSA, SunRsaSign",
+    "EC, SHA256withECDSA, SunEC",
+    "Ed25519, Ed25519, SunEC"
+  })
+  void shouldVerifyOwnSignatureWithReusedInstances(
+      final String keyType, final String algorithm, final String provider) throws Exception {
+    // arrange
+    final KeyPair keyPair = KeyPairGenerator.getInstance(keyType).generateKeyPair();
+    final PooledSigningEngine engine =
+        new PooledSigningEngine(algorithm, provider, keyPair.getPrivate(), keyPair.getPublic(), 1);
+
+    // act
+    final byte[] first = engine.sign(CONTENT);
+    final byte[] second = engine.sign(CONTENT);
+
+    // assert
+    assertThat(engine.verify(CONTENT, first)).isTrue();
+    assertThat(engine.verify(CONTENT, second)).isTrue();
+    assertThat(engine.verify(List.of(ByteBuffer.wrap(new byte[] {1})), first)).isFalse();
+    assertThat(CONTENT).allSatisfy(part -> assertThat(part.position()).isZero());
+  }
+}
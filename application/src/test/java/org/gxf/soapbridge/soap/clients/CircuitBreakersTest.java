@@ -0,0 +1,137 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.soap.clients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.gxf.soapbridge.configuration.properties.CircuitBreakerConfigurationProperties;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.gxf.soapbridge.soap.clients.CircuitBreakers.State;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CircuitBreakersTest {
+
+  private static final String CONTEXT = "/services/DeviceManagement";
+
+  private final AtomicLong nanoTime = new AtomicLong();
+  private MeterRegistry meterRegistry;
+  private CircuitBreakers circuitBreakers;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    circuitBreakers =
+        new CircuitBreakers(
+            new CircuitBreakerConfigurationProperties(
+                true, 10, 4, 50, Duration.ofSeconds(5), 80, Duration.ofSeconds(30), 2),
+            new MonitoringService(meterRegistry),
+            nanoTime::get);
+  }
+
+  @Test
+  void shouldOpenWhenFailureRateIsReached() {
+    // act
+    call(true);
+    call(false);
+    call(true);
+    assertThat(circuitBreakers.stateOf(CONTEXT)).isEqualTo(State.CLOSED);
+    call(false);
+
+    // assert
+    assertThat(circuitBreakers.stateOf(CONTEXT)).isEqualTo(State.OPEN);
+    assertThat(circuitBreakers.tryAcquire(CONTEXT)).isNull();
+    assertThat(circuitBreakers.tryAcquire("/services/Other")).isNotNull();
+    assertThat(stateGauge(State.OPEN)).isEqualTo(1.0);
+    assertThat(stateGauge(State.CLOSED)).isEqualTo(0.0);
+  }
+
+  @Test
+  void shouldOpenWhenSlowCallRateIsReached() {
+    for (int i = 0; i < 4; i++) {
+      final CircuitBreakers.Permit permit = circuitBreakers.tryAcquire(CONTEXT);
+      nanoTime.addAndGet(Duration.ofSeconds(6).toNanos());
+      permit.complete(true);
+    }
+
+    assertThat(circuitBreakers.stateOf(CONTEXT)).isEqualTo(State.OPEN);
+  }
+
+  @Test
+  void shouldCloseWhenProbesSucceed() {
+    // arrange
+    openBreaker();
+    nanoTime.addAndGet(Duration.ofSeconds(30).toNanos());
+
+    // act
+    final CircuitBreakers.Permit first = circuitBreakers.tryAcquire(CONTEXT);
+    final CircuitBreakers.Permit second = circuitBreakers.tryAcquire(CONTEXT);
+
+    // assert
+    assertThat(circuitBreakers.stateOf(CONTEXT)).isEqualTo(State.HALF_OPEN);
+    assertThat(circuitBreakers.tryAcquire(CONTEXT)).isNull();
+    first.complete(true);
+    second.complete(true);
+    assertThat(circuitBreakers.stateOf(CONTEXT)).isEqualTo(State.CLOSED);
+  }
+
+  @Test
+  void shouldOpenAgainWhenProbeFails() {
+    // arrange
+    openBreaker();
+    nanoTime.addAndGet(Duration.ofSeconds(30).toNanos());
+
+    // act
+    circuitBreakers.tryAcquire(CONTEXT).complete(false);
+
+    // assert
+    assertThat(circuitBreakers.stateOf(CONTEXT)).isEqualTo(State.OPEN);
+    assertThat(circuitBreakers.tryAcquire(CONTEXT)).isNull();
+  }
+
+  @Test
+  void shouldIgnoreCallStartedBeforeBreakerOpened() {
+    // arrange
+    final CircuitBreakers.Permit longCall = circuitBreakers.tryAcquire(CONTEXT);
+    openBreaker();
+    nanoTime.addAndGet(Duration.ofSeconds(30).toNanos());
+    final CircuitBreakers.Permit first = circuitBreakers.tryAcquire(CONTEXT);
+    final CircuitBreakers.Permit second = circuitBreakers.tryAcquire(CONTEXT);
+
+    // act
+    longCall.complete(false);
+    longCall.release();
+
+    // assert
+    assertThat(circuitBreakers.stateOf(CONTEXT)).isEqualTo(State.HALF_OPEN);
+    assertThat(circuitBreakers.tryAcquire(CONTEXT)).isNull();
+    first.complete(true);
+    second.complete(true);
+    assertThat(circuitBreakers.stateOf(CONTEXT)).isEqualTo(State.CLOSED);
+  }
+
+  private void openBreaker() {
+    for (int i = 0; i < 4; i++) {
+      call(false);
+    }
+    assertThat(circuitBreakers.stateOf(CONTEXT)).isEqualTo(State.OPEN);
+  }
+
+  private void call(final boolean successful) {
+    circuitBreakers.tryAcquire(CONTEXT).complete(successful);
+  }
+
+  private double stateGauge(final State state) {
+    return meterRegistry
+        .get(MonitoringService.CIRCUIT_BREAKER_STATE_METRIC)
+        .tag(MonitoringService.CONNECTION_TIMER_CONTEXT_TAG, CONTEXT)
+        .tag(MonitoringService.CIRCUIT_BREAKER_STATE_TAG, state.name())
+        .gauge()
+        .value();
+  }
+}
@@ -0,0 +1,195 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.soap.clients;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.core5.http.HttpStatus;
+import org.gxf.soapbridge.configuration.properties.HostnameVerificationStrategy;
+import org.gxf.soapbridge.configuration.properties.LoadBalancingConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.LoadBalancingStrategy;
+import org.gxf.soapbridge.configuration.properties.SoapConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.SoapEndpointConfiguration;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class PlatformEndpointsTest {
+
+  private static final String FIRST = "https://platform-1:443";
+  private static final String SECOND = "https://platform-2:443";
+
+  private final AtomicLong nanoTime = new AtomicLong();
+  private final PlatformHttpClients platformHttpClients = Mockito.mock(PlatformHttpClients.class);
+  private MeterRegistry meterRegistry;
+
+  @BeforeEach
+  void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+  }
+
+  @Test
+  void shouldPreferEndpointWithFewestOutstandingRequests() {
+    // arrange
+    final PlatformEndpoints platformEndpoints =
+        platformEndpoints(LoadBalancingStrategy.LEAST_OUTSTANDING_REQUESTS);
+    final PlatformEndpoints.Lease first = platformEndpoints.acquire();
+
+    // act
+    final PlatformEndpoints.Lease second = platformEndpoints.acquire();
+    second.complete(true);
+    final PlatformEndpoints.Lease third = platformEndpoints.acquire();
+
+    // assert
+    assertThat(second.uri()).isNotEqualTo(first.uri());
+    assertThat(third.uri()).isEqualTo(second.uri());
+    assertThat(outstanding(first.uri())).isEqualTo(1.0);
+    assertThat(outstanding(second.uri())).isEqualTo(1.0);
+  }
+
+  @Test
+  void shouldPreferEndpointWithLowestLatency() {
+    // arrange
+    final PlatformEndpoints platformEndpoints = platformEndpoints(LoadBalancingStrategy.EWMA);
+    final PlatformEndpoints.Lease slow = platformEndpoints.acquire();
+    nanoTime.addAndGet(Duration.ofMillis(100).toNanos());
+    slow.complete(true);
+    final PlatformEndpoints.Lease fast = platformEndpoints.acquire();
+    nanoTime.addAndGet(Duration.ofMillis(10).toNanos());
+    fast.complete(true);
+
+    // act
+    final PlatformEndpoints.Lease first = platformEndpoints.acquire();
+    final PlatformEndpoints.Lease second = platformEndpoints.acquire();
+
+    // assert
+    assertThat(fast.uri()).isNotEqualTo(slow.uri());
+    assertThat(first.uri()).isEqualTo(fast.uri());
+    assertThat(second.uri()).isEqualTo(fast.uri());
+  }
+
+  @Test
+  void shouldEjectEndpointAfterConsecutiveFailures() {
+    // arrange
+    final PlatformEndpoints platformEndpoints =
+        platformEndpoints(LoadBalancingStrategy.LEAST_OUTSTANDING_REQUESTS);
+
+    // act
+    failOnce(platformEndpoints, FIRST);
+    failOnce(platformEndpoints, FIRST);
+
+    // assert
+    assertThat(platformEndpoints.acquire().uri()).isEqualTo(SECOND);
+    assertThat(platformEndpoints.acquire().uri()).isEqualTo(SECOND);
+    assertThat(available(FIRST)).isEqualTo(0.0);
+    assertThat(ejections(FIRST)).isEqualTo(1.0);
+
+    // Ejecting the second endpoint as well would exceed the maximum percentage.
+    for (int i = 0; i < 2; i++) {
+      platformEndpoints.acquire().complete(false);
+    }
+    assertThat(ejections(SECOND)).isEqualTo(0.0);
+
+    nanoTime.addAndGet(Duration.ofSeconds(30).toNanos());
+    assertThat(available(FIRST)).isEqualTo(1.0);
+  }
+
+  @Test
+  void shouldSkipUnhealthyEndpoints() throws Exception {
+    // arrange
+    final PlatformEndpoints platformEndpoints =
+        platformEndpoints(LoadBalancingStrategy.LEAST_OUTSTANDING_REQUESTS);
+    Mockito.when(platformHttpClients.options(FIRST))
+        .thenReturn(CompletableFuture.failedFuture(new ConnectException("Connection refused")));
+    Mockito.when(platformHttpClients.options(SECOND))
+        .thenReturn(CompletableFuture.completedFuture(new SimpleHttpResponse(HttpStatus.SC_OK)));
+
+    // act
+    platformEndpoints.checkHealth();
+
+    // assert
+    assertThat(platformEndpoints.acquire().uri()).isEqualTo(SECOND);
+    assertThat(platformEndpoints.acquire().uri()).isEqualTo(SECOND);
+    assertThat(available(FIRST)).isEqualTo(0.0);
+    assertThat(available(SECOND)).isEqualTo(1.0);
+  }
+
+  private PlatformEndpoints platformEndpoints(final LoadBalancingStrategy strategy) {
+    return new PlatformEndpoints(
+        new SoapConfigurationProperties(
+            HostnameVerificationStrategy.BROWSER_COMPATIBLE_HOSTNAMES,
+            45,
+            Map.of(),
+            true,
+            false,
+            null,
+            List.of(
+                new SoapEndpointConfiguration("platform-1", 443, "https"),
+                new SoapEndpointConfiguration("platform-2", 443, "https"))),
+        new LoadBalancingConfigurationProperties(
+            strategy,
+            Duration.ofSeconds(10),
+            Duration.ofSeconds(10),
+            "",
+            Duration.ofSeconds(5),
+            2,
+            Duration.ofSeconds(30),
+            50),
+        platformHttpClients,
+        new MonitoringService(meterRegistry),
+        nanoTime::get);
+  }
+
+  /** Fails a call to the endpoint, taking a lease on each endpoint so both are used once. */
+  private static void failOnce(final PlatformEndpoints platformEndpoints, final String uri) {
+    final PlatformEndpoints.Lease first = platformEndpoints.acquire();
+    final PlatformEndpoints.Lease second = platformEndpoints.acquire();
+    for (final PlatformEndpoints.Lease lease : List.of(first, second)) {
+      if (lease.uri().equals(uri)) {
+        lease.complete(false);
+      } else {
+        lease.release();
+      }
+    }
+  }
+
+  private double outstanding(final String uri) {
+    return gauge(MonitoringService.PLATFORM_ENDPOINT_OUTSTANDING_METRIC, uri);
+  }
+
+  private double available(final String uri) {
+    return gauge(MonitoringService.PLATFORM_ENDPOINT_AVAILABLE_METRIC, uri);
+  }
+
+  private double gauge(final String name, final String uri) {
+    return meterRegistry
+        .get(name)
+        .tag(MonitoringService.ENDPOINT_TAG, hostAndPort(uri))
+        .gauge()
+        .value();
+  }
+
+  private double ejections(final String uri) {
+    return meterRegistry
+        .counter(
+            MonitoringService.PLATFORM_ENDPOINT_EJECTION_METRIC,
+            MonitoringService.ENDPOINT_TAG,
+            hostAndPort(uri))
+        .count();
+  }
+
+  private static String hostAndPort(final String uri) {
+    return uri.substring("https://".length());
+  }
+}
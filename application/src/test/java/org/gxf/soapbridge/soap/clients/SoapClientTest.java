@@ -3,20 +3,34 @@
 // SPDX-License-Identifier: Apache-2.0
 package org.gxf.soapbridge.soap.clients;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.io.OutputStream;
+import static org.assertj.core.api.Assertions.assertThat;
+
 import java.net.ConnectException;
-import java.net.HttpURLConnection;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
-import javax.net.ssl.HttpsURLConnection;
-import org.gxf.soapbridge.application.factories.HttpsUrlConnectionFactory;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
 import org.gxf.soapbridge.application.services.SigningService;
+import org.gxf.soapbridge.configuration.properties.CompressionConfigurationProperties;
 import org.gxf.soapbridge.configuration.properties.HostnameVerificationStrategy;
+import org.gxf.soapbridge.configuration.properties.LoadBalancingConfigurationProperties;
 import org.gxf.soapbridge.configuration.properties.SoapConfigurationProperties;
 import org.gxf.soapbridge.configuration.properties.SoapEndpointConfiguration;
 import org.gxf.soapbridge.kafka.senders.ProxyResponseKafkaSender;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.gxf.soapbridge.soap.encoding.ContentEncoding;
+import org.gxf.soapbridge.valueobjects.PlatformFailure;
+import org.gxf.soapbridge.valueobjects.PlatformFailure.ErrorClass;
+import org.gxf.soapbridge.valueobjects.ProxyServerResponseMessage;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.*;
@@ -26,73 +40,179 @@ import org.mockito.junit.jupiter.MockitoExtension;
 class SoapClientTest {
 
   @Mock ProxyResponseKafkaSender proxyResponseKafkaSender;
-  @Mock HttpsUrlConnectionFactory httpsUrlConnectionFactory;
+  @Mock PlatformHttpClients platformHttpClients;
+  @Mock CloseableHttpAsyncClient httpClient;
+  @Mock CircuitBreakers circuitBreakers;
+  @Mock PlatformEndpoints platformEndpoints;
   @Mock SigningService signingService;
+  @Mock MonitoringService monitoringService;
 
   private final byte[] testContent = "test content".getBytes(StandardCharsets.UTF_8);
 
-  @Spy
-  SoapConfigurationProperties soapConfigurationProperties =
+  private final SoapConfigurationProperties soapConfigurationProperties =
       new SoapConfigurationProperties(
           HostnameVerificationStrategy.BROWSER_COMPATIBLE_HOSTNAMES,
           45,
           new HashMap<>(),
           true,
-          new SoapEndpointConfiguration("localhost", 443, "https"));
+          false,
+          new SoapEndpointConfiguration("localhost", 443, "https"),
+          List.of());
+
+  @Spy
+  CompressionConfigurationProperties compressionConfigurationProperties =
+      new CompressionConfigurationProperties();
 
   @InjectMocks SoapClient soapClient;
 
+  @BeforeEach
+  void setUp() {
+    Mockito.lenient()
+        .when(circuitBreakers.tryAcquire(ArgumentMatchers.anyString()))
+        .thenReturn(CircuitBreakers.UNGUARDED);
+    final PlatformEndpoints endpoints =
+        new PlatformEndpoints(
+            soapConfigurationProperties,
+            new LoadBalancingConfigurationProperties(),
+            platformHttpClients,
+            monitoringService);
+    Mockito.lenient()
+        .when(platformEndpoints.acquire())
+        .thenAnswer(invocation -> endpoints.acquire());
+  }
+
   @Test
   void shouldSendSoapRequestAndKafkaResponse() throws Exception {
     // arrange
-    final HttpsURLConnection connection = setupConnectionMock();
-    Mockito.when(
-            httpsUrlConnectionFactory.createConnection(
-                ArgumentMatchers.anyString(),
-                ArgumentMatchers.anyString(),
-                ArgumentMatchers.anyString(),
-                ArgumentMatchers.anyString()))
-        .thenReturn(connection);
+    setupResponse(null, testContent);
+    Mockito.when(proxyResponseKafkaSender.send(ArgumentMatchers.any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    // act
+    soapClient.sendRequest("connectionId", "/context", "commonName", testContent).join();
+
+    // assert
+    final ArgumentCaptor<SimpleHttpRequest> request =
+        ArgumentCaptor.forClass(SimpleHttpRequest.class);
+    Mockito.verify(httpClient).execute(request.capture(), ArgumentMatchers.any());
+    assertThat(request.getValue().getUri()).hasToString("https://localhost:443/context");
+    assertThat(request.getValue().getBodyBytes()).isEqualTo(testContent);
+    Mockito.verify(proxyResponseKafkaSender).send(ArgumentMatchers.any());
+  }
+
+  @Test
+  void shouldSendKafkaResponseAgainWhenSendingFails() throws Exception {
+    // arrange
+    setupResponse(null, testContent);
+    Mockito.when(proxyResponseKafkaSender.send(ArgumentMatchers.any()))
+        .thenReturn(CompletableFuture.failedFuture(new TimeoutException("Broker unavailable")))
+        .thenReturn(CompletableFuture.completedFuture(null));
 
     // act
-    soapClient.sendRequest("connectionId", "context", "commonName", "payload");
+    soapClient.sendRequest("connectionId", "/context", "commonName", testContent).join();
 
     // assert
-    Mockito.verify(connection).disconnect();
+    Mockito.verify(proxyResponseKafkaSender, Mockito.times(2)).send(ArgumentMatchers.any());
   }
 
   @Test
-  void shouldDisconnectWhenSoapRequestFails() throws Exception {
+  void shouldSendFailureWhenSoapRequestFails() throws Exception {
     // arrange
-    final HttpsURLConnection connection = setupFailingConnectionMock();
+    final ArgumentCaptor<ProxyServerResponseMessage> responseMessage =
+        ArgumentCaptor.forClass(ProxyServerResponseMessage.class);
+    Mockito.when(proxyResponseKafkaSender.send(responseMessage.capture()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    Mockito.when(platformHttpClients.clientFor("commonName")).thenReturn(httpClient);
     Mockito.when(
-            httpsUrlConnectionFactory.createConnection(
-                ArgumentMatchers.anyString(),
-                ArgumentMatchers.anyString(),
-                ArgumentMatchers.anyString(),
-                ArgumentMatchers.anyString()))
-        .thenReturn(connection);
+            httpClient.execute(
+                ArgumentMatchers.any(SimpleHttpRequest.class), ArgumentMatchers.any()))
+        .thenAnswer(
+            invocation -> {
+              invocation
+                  .<FutureCallback<SimpleHttpResponse>>getArgument(1)
+                  .failed(new ConnectException("Connection refused"));
+              return null;
+            });
+
+    // act
+    soapClient.sendRequest("connectionId", "/context", "commonName", testContent).join();
+
+    // assert
+    assertThat(responseMessage.getValue().getFailure())
+        .isEqualTo(new PlatformFailure(ErrorClass.CONNECTION));
+    assertThat(responseMessage.getValue().getSoapResponse()).isEmpty();
+  }
+
+  @Test
+  void shouldSendFailureWithStatusWhenPlatformIsUnavailable() throws Exception {
+    // arrange
+    setupResponse(HttpStatus.SC_SERVICE_UNAVAILABLE, null, testContent);
+    final ArgumentCaptor<ProxyServerResponseMessage> responseMessage =
+        ArgumentCaptor.forClass(ProxyServerResponseMessage.class);
+    Mockito.when(proxyResponseKafkaSender.send(responseMessage.capture()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    // act
+    soapClient.sendRequest("connectionId", "/context", "commonName", testContent).join();
+
+    // assert
+    assertThat(responseMessage.getValue().getFailure())
+        .isEqualTo(new PlatformFailure(ErrorClass.UNAVAILABLE, HttpStatus.SC_SERVICE_UNAVAILABLE));
+  }
+
+  @Test
+  void shouldSendFailureWithoutCallingPlatformWhenCircuitBreakerIsOpen() throws Exception {
+    // arrange
+    Mockito.when(circuitBreakers.tryAcquire("/context")).thenReturn(null);
+    final ArgumentCaptor<ProxyServerResponseMessage> responseMessage =
+        ArgumentCaptor.forClass(ProxyServerResponseMessage.class);
+    Mockito.when(proxyResponseKafkaSender.send(responseMessage.capture()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+
+    // act
+    soapClient.sendRequest("connectionId", "/context", "commonName", testContent).join();
+
+    // assert
+    Mockito.verifyNoInteractions(platformHttpClients);
+    assertThat(responseMessage.getValue().getFailure())
+        .isEqualTo(new PlatformFailure(ErrorClass.UNAVAILABLE));
+  }
+
+  @Test
+  void shouldDecodeCompressedSoapResponse() throws Exception {
+    // arrange
+    setupResponse("gzip", ContentEncoding.GZIP.encode(testContent));
+    final ArgumentCaptor<ProxyServerResponseMessage> responseMessage =
+        ArgumentCaptor.forClass(ProxyServerResponseMessage.class);
+    Mockito.when(proxyResponseKafkaSender.send(responseMessage.capture()))
+        .thenReturn(CompletableFuture.completedFuture(null));
 
     // act
-    soapClient.sendRequest("connectionId", "context", "commonName", "payload");
+    soapClient.sendRequest("connectionId", "/context", "commonName", testContent).join();
 
     // assert
-    Mockito.verify(connection).disconnect();
-    Mockito.verifyNoInteractions(proxyResponseKafkaSender);
+    assertThat(responseMessage.getValue().getSoapResponse()).isEqualTo("test content");
   }
 
-  private HttpsURLConnection setupConnectionMock() throws Exception {
-    final HttpsURLConnection connection = Mockito.mock(HttpsURLConnection.class);
-    final InputStream inputStream = new ByteArrayInputStream(testContent);
-    Mockito.when(connection.getOutputStream()).thenReturn(Mockito.mock(OutputStream.class));
-    Mockito.when(connection.getResponseCode()).thenReturn(HttpURLConnection.HTTP_OK);
-    Mockito.when(connection.getInputStream()).thenReturn(inputStream);
-    return connection;
+  private void setupResponse(final String contentEncoding, final byte[] body) throws Exception {
+    setupResponse(HttpStatus.SC_OK, contentEncoding, body);
   }
 
-  private HttpsURLConnection setupFailingConnectionMock() throws Exception {
-    final HttpsURLConnection connection = Mockito.mock(HttpsURLConnection.class);
-    Mockito.when(connection.getOutputStream()).thenThrow(ConnectException.class);
-    return connection;
+  private void setupResponse(final int status, final String contentEncoding, final byte[] body)
+      throws Exception {
+    Mockito.when(platformHttpClients.clientFor("commonName")).thenReturn(httpClient);
+    Mockito.when(
+            httpClient.execute(
+                ArgumentMatchers.any(SimpleHttpRequest.class), ArgumentMatchers.any()))
+        .thenAnswer(
+            invocation -> {
+              final SimpleHttpResponse response =
+                  SimpleHttpResponse.create(status, body, ContentType.TEXT_XML);
+              if (contentEncoding != null) {
+                response.setHeader(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+              }
+              invocation.<FutureCallback<SimpleHttpResponse>>getArgument(1).completed(response);
+              return null;
+            });
   }
 }
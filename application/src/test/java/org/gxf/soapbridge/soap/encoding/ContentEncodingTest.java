@@ -0,0 +1,56 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.soap.encoding;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
+
+class ContentEncodingTest {
+
+  private static final byte[] SOAP =
+      "<Envelope><Body><GetStatusRequest/></Body></Envelope>".getBytes(StandardCharsets.UTF_8);
+
+  @ParameterizedTest
+  @CsvSource(
+      nullValues = "null",
+      value = {
+        "null, IDENTITY",
+        "identity, IDENTITY",
+        "'gzip, deflate', GZIP",
+        "'deflate, gzip;q=0.5', DEFLATE",
+        "'gzip;q=0, deflate;q=0', IDENTITY",
+        "'*', GZIP",
+        "'br', IDENTITY"
+      })
+  void shouldNegotiateEncoding(final String acceptEncoding, final ContentEncoding expected) {
+    assertThat(ContentEncoding.negotiate(acceptEncoding)).isEqualTo(expected);
+  }
+
+  @ParameterizedTest
+  @EnumSource(ContentEncoding.class)
+  void shouldDecodeEncodedBytes(final ContentEncoding contentEncoding) throws IOException {
+    final byte[] encoded = contentEncoding.encode(SOAP);
+
+    assertThat(contentEncoding.decode(encoded, SOAP.length)).isEqualTo(SOAP);
+    assertThat(ContentEncoding.fromHeader(contentEncoding.getName())).isEqualTo(contentEncoding);
+  }
+
+  @ParameterizedTest
+  @EnumSource(
+      value = ContentEncoding.class,
+      names = {"GZIP", "DEFLATE"})
+  void shouldRejectBodiesDecodingBeyondMaximum(final ContentEncoding contentEncoding)
+      throws IOException {
+    final byte[] encoded = contentEncoding.encode(SOAP);
+
+    assertThatThrownBy(() -> contentEncoding.decode(encoded, SOAP.length - 1))
+        .isInstanceOf(IOException.class);
+  }
+}
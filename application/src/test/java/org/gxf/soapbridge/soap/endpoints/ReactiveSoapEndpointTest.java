@@ -0,0 +1,194 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.soap.endpoints;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import org.gxf.soapbridge.application.services.ConcurrencyLimiter;
+import org.gxf.soapbridge.application.services.ConnectionCacheService;
+import org.gxf.soapbridge.application.services.PayloadMemoryBudget;
+import org.gxf.soapbridge.application.services.RequestCoalescer;
+import org.gxf.soapbridge.application.services.ResponseCache;
+import org.gxf.soapbridge.application.services.SigningService;
+import org.gxf.soapbridge.application.services.SoapOperationClassifier;
+import org.gxf.soapbridge.configuration.properties.CoalescingConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.CompressionConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.ConcurrencyLimitConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.HostnameVerificationStrategy;
+import org.gxf.soapbridge.configuration.properties.MemoryBudgetConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.NodeConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.ResponseCacheConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.SoapConfigurationProperties;
+import org.gxf.soapbridge.kafka.senders.ProxyRequestKafkaSender;
+import org.gxf.soapbridge.kafka.serialization.WireFormat;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.gxf.soapbridge.valueobjects.ProxyServerRequestMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.unit.DataSize;
+
+class ReactiveSoapEndpointTest {
+
+  private static final String REQUEST = "<Envelope><Body><GetStatusRequest/></Body></Envelope>";
+  private static final String RESPONSE = "<Envelope><Body><GetStatusResponse/></Body></Envelope>";
+
+  private final ProxyRequestKafkaSender proxyRequestsSender =
+      Mockito.mock(ProxyRequestKafkaSender.class);
+  private final SigningService signingService = Mockito.mock(SigningService.class);
+
+  private MonitoringService monitoringService;
+  private ConnectionCacheService connectionCacheService;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    monitoringService = new MonitoringService(new SimpleMeterRegistry());
+    connectionCacheService =
+        new ConnectionCacheService(monitoringService, new NodeConfigurationProperties("node-1"));
+    Mockito.when(signingService.signContent(anyList())).thenReturn("signature");
+  }
+
+  @AfterEach
+  void tearDown() {
+    connectionCacheService.preDestroy();
+  }
+
+  @Test
+  void shouldRespondWithResponseOfPlatform() {
+    // arrange
+    Mockito.when(proxyRequestsSender.send(any()))
+        .thenAnswer(
+            invocation -> {
+              final ProxyServerRequestMessage requestMessage = invocation.getArgument(0);
+              connectionCacheService
+                  .findConnection(requestMessage.getConnectionId())
+                  .setSoapResponse(RESPONSE);
+              return CompletableFuture.completedFuture(null);
+            });
+    final WebTestClient client =
+        client(
+            new ConcurrencyLimitConfigurationProperties(),
+            new MemoryBudgetConfigurationProperties());
+
+    // act & assert
+    client
+        .post()
+        .uri("/proxy-server/context")
+        .bodyValue(REQUEST)
+        .exchange()
+        .expectStatus()
+        .isOk()
+        .expectBody(String.class)
+        .isEqualTo(RESPONSE);
+    Mockito.verify(proxyRequestsSender).send(any());
+  }
+
+  @Test
+  void shouldRejectRequestOverConcurrencyLimit() {
+    // arrange
+    final WebTestClient client =
+        client(
+            new ConcurrencyLimitConfigurationProperties(true, 0, 0, 0, 0.9, 5),
+            new MemoryBudgetConfigurationProperties());
+
+    // act & assert
+    client
+        .post()
+        .uri("/proxy-server/context")
+        .bodyValue(REQUEST)
+        .exchange()
+        .expectStatus()
+        .isEqualTo(503)
+        .expectHeader()
+        .valueEquals(HttpHeaders.RETRY_AFTER, "5");
+    Mockito.verifyNoInteractions(proxyRequestsSender);
+  }
+
+  @Test
+  void shouldRejectRequestOverMemoryBudget() {
+    // arrange
+    final WebTestClient client =
+        client(
+            new ConcurrencyLimitConfigurationProperties(),
+            new MemoryBudgetConfigurationProperties(true, DataSize.ofBytes(10)));
+
+    // act & assert
+    client
+        .post()
+        .uri("/proxy-server/context")
+        .bodyValue(REQUEST)
+        .exchange()
+        .expectStatus()
+        .isEqualTo(503);
+    Mockito.verifyNoInteractions(proxyRequestsSender);
+  }
+
+  @Test
+  void shouldRejectRequestOverMaximumBodySize() {
+    // arrange
+    final WebTestClient client =
+        client(
+            new ConcurrencyLimitConfigurationProperties(),
+            new MemoryBudgetConfigurationProperties(),
+            new CompressionConfigurationProperties(
+                false, DataSize.ofKilobytes(1), DataSize.ofBytes(10)));
+
+    // act & assert
+    client
+        .post()
+        .uri("/proxy-server/context")
+        .bodyValue(REQUEST)
+        .exchange()
+        .expectStatus()
+        .isEqualTo(413);
+    Mockito.verifyNoInteractions(proxyRequestsSender);
+  }
+
+  private WebTestClient client(
+      final ConcurrencyLimitConfigurationProperties concurrencyLimitConfiguration,
+      final MemoryBudgetConfigurationProperties memoryBudgetConfiguration) {
+    return client(
+        concurrencyLimitConfiguration,
+        memoryBudgetConfiguration,
+        new CompressionConfigurationProperties());
+  }
+
+  private WebTestClient client(
+      final ConcurrencyLimitConfigurationProperties concurrencyLimitConfiguration,
+      final MemoryBudgetConfigurationProperties memoryBudgetConfiguration,
+      final CompressionConfigurationProperties compressionConfiguration) {
+    final SoapConfigurationProperties soapConfiguration =
+        new SoapConfigurationProperties(
+            HostnameVerificationStrategy.BROWSER_COMPATIBLE_HOSTNAMES,
+            45,
+            Map.of(),
+            false,
+            false,
+            null,
+            List.of());
+    final SoapRequestPipeline pipeline =
+        new SoapRequestPipeline(
+            connectionCacheService,
+            soapConfiguration,
+            proxyRequestsSender,
+            signingService,
+            monitoringService,
+            new SoapOperationClassifier(soapConfiguration),
+            new ConcurrencyLimiter(concurrencyLimitConfiguration, monitoringService),
+            new PayloadMemoryBudget(memoryBudgetConfiguration, WireFormat.V1, monitoringService),
+            new RequestCoalescer(new CoalescingConfigurationProperties(), monitoringService),
+            new ResponseCache(new ResponseCacheConfigurationProperties(), monitoringService),
+            compressionConfiguration);
+    return WebTestClient.bindToWebHandler(new ReactiveSoapEndpoint(pipeline, monitoringService))
+        .build();
+  }
+}
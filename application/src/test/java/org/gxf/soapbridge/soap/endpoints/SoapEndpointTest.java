@@ -0,0 +1,284 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.soap.endpoints;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import org.gxf.soapbridge.application.services.ConcurrencyLimiter;
+import org.gxf.soapbridge.application.services.ConnectionCacheService;
+import org.gxf.soapbridge.application.services.PayloadMemoryBudget;
+import org.gxf.soapbridge.application.services.RequestCoalescer;
+import org.gxf.soapbridge.application.services.ResponseCache;
+import org.gxf.soapbridge.application.services.SigningService;
+import org.gxf.soapbridge.application.services.SoapOperationClassifier;
+import org.gxf.soapbridge.configuration.properties.CoalescingConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.CompressionConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.ConcurrencyLimitConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.HostnameVerificationStrategy;
+import org.gxf.soapbridge.configuration.properties.MemoryBudgetConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.NodeConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.ResponseCacheConfigurationProperties;
+import org.gxf.soapbridge.configuration.properties.SoapConfigurationProperties;
+import org.gxf.soapbridge.kafka.senders.ProxyRequestKafkaSender;
+import org.gxf.soapbridge.kafka.serialization.WireFormat;
+import org.gxf.soapbridge.monitoring.MonitoringService;
+import org.gxf.soapbridge.soap.exceptions.PlatformFailureException;
+import org.gxf.soapbridge.valueobjects.ProxyServerRequestMessage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.kafka.KafkaException;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+class SoapEndpointTest {
+
+  private static final String REQUEST = "<Envelope><Body><GetStatusRequest/></Body></Envelope>";
+  private static final String RESPONSE = "<Envelope><Body><GetStatusResponse/></Body></Envelope>";
+  private static final String FAULT = "<Envelope><Body><Fault/></Body></Envelope>";
+
+  private final ProxyRequestKafkaSender proxyRequestsSender =
+      Mockito.mock(ProxyRequestKafkaSender.class);
+  private final SigningService signingService = Mockito.mock(SigningService.class);
+
+  private MonitoringService monitoringService;
+  private ConnectionCacheService connectionCacheService;
+  private ConcurrencyLimiter concurrencyLimiter;
+  private SoapEndpoint soapEndpoint;
+
+  private MockHttpServletRequest request;
+  private MockHttpServletResponse response;
+  private MockAsyncContext asyncContext;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    monitoringService = new MonitoringService(new SimpleMeterRegistry());
+    connectionCacheService =
+        new ConnectionCacheService(monitoringService, new NodeConfigurationProperties("node-1"));
+    Mockito.when(signingService.signContent(anyList())).thenReturn("signature");
+    concurrencyLimiter =
+        new ConcurrencyLimiter(
+            new ConcurrencyLimitConfigurationProperties(true, 10, 1, 20, 0.5, 5),
+            monitoringService);
+    soapEndpoint =
+        asyncSoapEndpoint(
+            new CompressionConfigurationProperties(), new CoalescingConfigurationProperties());
+
+    final MockHttpServletRequest servletRequest =
+        new MockHttpServletRequest("POST", "/proxy-server/context");
+    servletRequest.setContent(REQUEST.getBytes(StandardCharsets.UTF_8));
+    servletRequest.setAsyncSupported(true);
+    response = new MockHttpServletResponse();
+    asyncContext = Mockito.spy(new MockAsyncContext(servletRequest, response));
+    request = Mockito.spy(servletRequest);
+    Mockito.doReturn(asyncContext).when(request).startAsync();
+  }
+
+  @AfterEach
+  void tearDown() {
+    connectionCacheService.preDestroy();
+  }
+
+  @Test
+  void shouldWriteResponseOfPlatformAsynchronously() throws Exception {
+    // arrange
+    Mockito.when(proxyRequestsSender.send(any()))
+        .thenAnswer(
+            invocation -> {
+              final ProxyServerRequestMessage requestMessage = invocation.getArgument(0);
+              connectionCacheService
+                  .findConnection(requestMessage.getConnectionId())
+                  .setSoapResponse(RESPONSE);
+              return CompletableFuture.completedFuture(null);
+            });
+
+    // act
+    soapEndpoint.handleRequest(request, response);
+
+    // assert
+    Mockito.verify(asyncContext).start(any());
+    Mockito.verify(asyncContext).complete();
+    assertThat(response.getStatus()).isEqualTo(200);
+    assertThat(response.getContentAsString()).isEqualTo(RESPONSE);
+  }
+
+  @Test
+  void shouldWriteErrorWhenConnectionExpires() throws Exception {
+    // arrange
+    Mockito.when(proxyRequestsSender.send(any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    soapEndpoint.handleRequest(request, response);
+    final ArgumentCaptor<ProxyServerRequestMessage> requestMessage =
+        ArgumentCaptor.forClass(ProxyServerRequestMessage.class);
+    Mockito.verify(proxyRequestsSender).send(requestMessage.capture());
+    Mockito.verify(asyncContext, Mockito.never()).complete();
+
+    // act
+    connectionCacheService.findConnection(requestMessage.getValue().getConnectionId()).expire();
+
+    // assert
+    Mockito.verify(asyncContext).start(any());
+    Mockito.verify(asyncContext).complete();
+    assertThat(response.getStatus()).isEqualTo(500);
+    assertThat(connectionCacheService.findConnection(requestMessage.getValue().getConnectionId()))
+        .isNull();
+  }
+
+  @Test
+  void shouldWriteErrorWhenRequestCanNotBeSent() throws Exception {
+    // arrange
+    Mockito.when(proxyRequestsSender.send(any()))
+        .thenReturn(CompletableFuture.failedFuture(new KafkaException("Broker unavailable")));
+
+    // act
+    soapEndpoint.handleRequest(request, response);
+
+    // assert
+    Mockito.verify(asyncContext).start(any());
+    Mockito.verify(asyncContext).complete();
+    assertThat(response.getStatus()).isEqualTo(500);
+  }
+
+  @Test
+  void shouldWriteSoapFaultAndLowerLimitWhenPlatformFails() throws Exception {
+    // arrange
+    Mockito.when(proxyRequestsSender.send(any()))
+        .thenAnswer(
+            invocation -> {
+              final ProxyServerRequestMessage requestMessage = invocation.getArgument(0);
+              connectionCacheService
+                  .findConnection(requestMessage.getConnectionId())
+                  .fail(new PlatformFailureException("Platform service unavailable", FAULT));
+              return CompletableFuture.completedFuture(null);
+            });
+
+    // act
+    soapEndpoint.handleRequest(request, response);
+
+    // assert
+    Mockito.verify(asyncContext).complete();
+    assertThat(response.getStatus()).isEqualTo(500);
+    assertThat(response.getContentAsString()).isEqualTo(FAULT);
+    assertThat(concurrencyLimiter.getLimit()).isEqualTo(5);
+  }
+
+  @Test
+  void shouldRejectContentLengthOverMaximumBodySize() throws Exception {
+    // arrange
+    soapEndpoint = asyncSoapEndpoint(smallBodySize(), new CoalescingConfigurationProperties());
+
+    // act
+    soapEndpoint.handleRequest(request, response);
+
+    // assert
+    assertThat(response.getStatus()).isEqualTo(413);
+    Mockito.verifyNoInteractions(proxyRequestsSender);
+  }
+
+  @Test
+  void shouldStopReadingChunkedBodyAtMaximumBodySize() throws Exception {
+    // arrange
+    soapEndpoint = asyncSoapEndpoint(smallBodySize(), new CoalescingConfigurationProperties());
+    Mockito.doReturn(-1L).when(request).getContentLengthLong();
+
+    // act
+    soapEndpoint.handleRequest(request, response);
+
+    // assert
+    assertThat(response.getStatus()).isEqualTo(413);
+    Mockito.verifyNoInteractions(proxyRequestsSender);
+  }
+
+  @Test
+  void shouldKeepPermitOfCoalescedRequestUntilItIsAnswered() throws Exception {
+    // arrange
+    concurrencyLimiter =
+        new ConcurrencyLimiter(
+            new ConcurrencyLimitConfigurationProperties(true, 2, 1, 20, 0.5, 5),
+            monitoringService);
+    soapEndpoint =
+        asyncSoapEndpoint(
+            new CompressionConfigurationProperties(),
+            new CoalescingConfigurationProperties(Set.of("GetStatusRequest")));
+    Mockito.when(proxyRequestsSender.send(any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    soapEndpoint.handleRequest(request, response);
+    final MockHttpServletResponse coalescedResponse = new MockHttpServletResponse();
+    soapEndpoint.handleRequest(asyncRequest(coalescedResponse), coalescedResponse);
+    final ArgumentCaptor<ProxyServerRequestMessage> requestMessage =
+        ArgumentCaptor.forClass(ProxyServerRequestMessage.class);
+    Mockito.verify(proxyRequestsSender).send(requestMessage.capture());
+
+    // act
+    final MockHttpServletResponse rejectedResponse = new MockHttpServletResponse();
+    soapEndpoint.handleRequest(asyncRequest(rejectedResponse), rejectedResponse);
+    connectionCacheService
+        .findConnection(requestMessage.getValue().getConnectionId())
+        .setSoapResponse(RESPONSE);
+
+    // assert
+    assertThat(rejectedResponse.getStatus()).isEqualTo(503);
+    assertThat(coalescedResponse.getContentAsString()).isEqualTo(RESPONSE);
+    assertThat(concurrencyLimiter.tryAcquire()).isNotNull();
+    assertThat(concurrencyLimiter.tryAcquire()).isNotNull();
+  }
+
+  private MockHttpServletRequest asyncRequest(final MockHttpServletResponse response) {
+    final MockHttpServletRequest servletRequest =
+        new MockHttpServletRequest("POST", "/proxy-server/context");
+    servletRequest.setContent(REQUEST.getBytes(StandardCharsets.UTF_8));
+    servletRequest.setAsyncSupported(true);
+    final MockHttpServletRequest spiedRequest = Mockito.spy(servletRequest);
+    Mockito.doReturn(new MockAsyncContext(servletRequest, response))
+        .when(spiedRequest)
+        .startAsync();
+    return spiedRequest;
+  }
+
+  private static CompressionConfigurationProperties smallBodySize() {
+    return new CompressionConfigurationProperties(
+        false, DataSize.ofKilobytes(1), DataSize.ofBytes(10));
+  }
+
+  private SoapEndpoint asyncSoapEndpoint(
+      final CompressionConfigurationProperties compressionConfiguration,
+      final CoalescingConfigurationProperties coalescingConfiguration) {
+    final SoapConfigurationProperties soapConfiguration =
+        new SoapConfigurationProperties(
+            HostnameVerificationStrategy.BROWSER_COMPATIBLE_HOSTNAMES,
+            45,
+            Map.of(),
+            false,
+            true,
+            null,
+            List.of());
+    final SoapRequestPipeline pipeline =
+        new SoapRequestPipeline(
+            connectionCacheService,
+            soapConfiguration,
+            proxyRequestsSender,
+            signingService,
+            monitoringService,
+            new SoapOperationClassifier(soapConfiguration),
+            concurrencyLimiter,
+            new PayloadMemoryBudget(
+                new MemoryBudgetConfigurationProperties(), WireFormat.V1, monitoringService),
+            new RequestCoalescer(coalescingConfiguration, monitoringService),
+            new ResponseCache(new ResponseCacheConfigurationProperties(), monitoringService),
+            compressionConfiguration);
+    return new SoapEndpoint(pipeline, soapConfiguration, monitoringService);
+  }
+}
@@ -0,0 +1,99 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.kafka.listeners
+
+import java.util.concurrent.CountDownLatch
+import java.util.concurrent.TimeUnit
+import org.assertj.core.api.Assertions.assertThat
+import org.gxf.soapbridge.kafka.properties.KeyedBy
+import org.gxf.soapbridge.kafka.properties.KeyedListenerConfigurationProperties
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import org.mockito.Mockito.`when`
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.timeout
+import org.mockito.Mockito.times
+import org.mockito.Mockito.verify
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry
+import org.springframework.kafka.listener.MessageListenerContainer
+import org.springframework.kafka.support.Acknowledgment
+
+class KeyedRecordDispatcherTest {
+
+    private val container = mock(MessageListenerContainer::class.java)
+
+    private val registry =
+        mock(KafkaListenerEndpointRegistry::class.java).also {
+            `when`(it.getListenerContainer(ProxyRequestKeyedKafkaListener.LISTENER_ID)).thenReturn(container)
+        }
+
+    private val dispatcher =
+        KeyedRecordDispatcher(KeyedListenerConfigurationProperties(true, KeyedBy.ORGANISATION, 4), registry)
+
+    @AfterEach
+    fun tearDown() {
+        dispatcher.shutdown()
+    }
+
+    @Test
+    fun `records with another key do not wait for a blocked key`() {
+        val blocked = CountDownLatch(1)
+        val processed = CountDownLatch(1)
+        val blockedAcknowledgment = mock(Acknowledgment::class.java)
+        val acknowledgment = mock(Acknowledgment::class.java)
+
+        dispatcher.dispatch("organisation-1", blockedAcknowledgment) { blocked.await() }
+        dispatcher.dispatch("organisation-2", acknowledgment) { processed.countDown() }
+
+        assertThat(processed.await(5, TimeUnit.SECONDS)).isTrue()
+        verify(acknowledgment, timeout(5000)).acknowledge()
+        verify(blockedAcknowledgment, times(0)).acknowledge()
+        blocked.countDown()
+        verify(blockedAcknowledgment, timeout(5000)).acknowledge()
+    }
+
+    @Test
+    fun `records with the same key are processed in order`() {
+        val order = mutableListOf<Int>()
+        val acknowledgment = mock(Acknowledgment::class.java)
+
+        (1..10).forEach { i ->
+            dispatcher.dispatch("organisation", acknowledgment) { synchronized(order) { order += i } }
+        }
+
+        verify(acknowledgment, timeout(5000).times(10)).acknowledge()
+        assertThat(order).containsExactlyElementsOf(1..10)
+    }
+
+    @Test
+    fun `failing record is retried and acknowledged`() {
+        var attempts = 0
+        val acknowledgment = mock(Acknowledgment::class.java)
+
+        dispatcher.dispatch("organisation", acknowledgment) {
+            attempts++
+            throw IllegalStateException("Failure")
+        }
+
+        verify(acknowledgment, timeout(5000)).acknowledge()
+        assertThat(attempts).isEqualTo(3)
+    }
+
+    @Test
+    fun `listener is paused at the maximum in flight and resumed when half have completed`() {
+        val blocked = (1..4).map { CountDownLatch(1) }
+        val acknowledgment = mock(Acknowledgment::class.java)
+
+        blocked.forEachIndexed { i, latch -> dispatcher.dispatch("organisation-$i", acknowledgment) { latch.await() } }
+
+        verify(container).pause()
+        blocked[0].countDown()
+        verify(acknowledgment, timeout(5000)).acknowledge()
+        verify(container, times(0)).resume()
+        blocked[1].countDown()
+        verify(container, timeout(5000)).resume()
+        blocked.forEach { it.countDown() }
+        verify(acknowledgment, timeout(5000).times(4)).acknowledge()
+    }
+}
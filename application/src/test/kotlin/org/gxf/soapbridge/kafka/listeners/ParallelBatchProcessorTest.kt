@@ -0,0 +1,61 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.kafka.listeners
+
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.assertj.core.api.Assertions.assertThat
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.gxf.soapbridge.exceptions.ProxyMessageException
+import org.gxf.soapbridge.kafka.properties.BatchListenerConfigurationProperties
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.Test
+import org.springframework.kafka.listener.BatchListenerFailedException
+
+class ParallelBatchProcessorTest {
+
+    private val processor = ParallelBatchProcessor(BatchListenerConfigurationProperties(true, 4))
+
+    @AfterEach
+    fun tearDown() {
+        processor.shutdown()
+    }
+
+    @Test
+    fun `prepared records are handled in order`() {
+        val handled = mutableListOf<String>()
+
+        processor.process(
+            records("a", "skip", "b", "c"),
+            { record -> String(record.value()).takeIf { it != "skip" } },
+            handled::addAll,
+        )
+
+        assertThat(handled).containsExactly("a", "b", "c")
+    }
+
+    @Test
+    fun `records before a failed record are handled`() {
+        val handled = mutableListOf<String>()
+
+        assertThatThrownBy {
+                processor.process(
+                    records("a", "b", "fail", "c"),
+                    {
+                        val value = String(it.value())
+                        if (value == "fail") throw ProxyMessageException("Invalid record")
+                        value
+                    },
+                    handled::addAll,
+                )
+            }
+            .isInstanceOfSatisfying(BatchListenerFailedException::class.java) {
+                assertThat(it.index).isEqualTo(2)
+                assertThat(it.cause).isInstanceOf(ProxyMessageException::class.java)
+            }
+        assertThat(handled).containsExactly("a", "b")
+    }
+
+    private fun records(vararg values: String) =
+        values.mapIndexed { offset, value -> ConsumerRecord("topic", 0, offset.toLong(), "key", value.toByteArray()) }
+}
@@ -0,0 +1,40 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.kafka.senders
+
+import org.assertj.core.api.Assertions.assertThat
+import org.gxf.soapbridge.kafka.properties.OutgoingTopic
+import org.gxf.soapbridge.kafka.properties.OutgoingTopicsConfiguration
+import org.gxf.soapbridge.kafka.properties.TopicsConfigurationProperties
+import org.gxf.soapbridge.monitoring.MonitoringService
+import org.junit.jupiter.api.Test
+import org.mockito.Mockito.mock
+import org.springframework.kafka.core.KafkaTemplate
+
+class ProxyResponseKafkaSenderTest {
+
+    @Test
+    fun `response is sent to the topic of the node in its connection id`() {
+        val sender = sender(perNode = true)
+
+        assertThat(sender.topicFor("node-1.0123456789abcdef-1")).isEqualTo("responses-node-1")
+        assertThat(sender.topicFor("0123456789abcdef-1")).isEqualTo("responses")
+        assertThat(sender.topicFor("../other.0123456789abcdef-1")).isEqualTo("responses")
+    }
+
+    @Test
+    fun `response is sent to the shared topic when not routed by node`() {
+        assertThat(sender(perNode = false).topicFor("node-1.0123456789abcdef-1")).isEqualTo("responses")
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    private fun sender(perNode: Boolean) =
+        ProxyResponseKafkaSender(
+            mock(KafkaTemplate::class.java) as KafkaTemplate<String, ByteArray>,
+            TopicsConfigurationProperties(
+                OutgoingTopicsConfiguration(OutgoingTopic("requests"), OutgoingTopic("responses", perNode))
+            ),
+            mock(MonitoringService::class.java),
+        )
+}
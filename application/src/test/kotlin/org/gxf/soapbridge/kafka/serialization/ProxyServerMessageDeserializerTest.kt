@@ -0,0 +1,142 @@
+// SPDX-FileCopyrightText: Copyright Contributors to the GXF project
+//
+// SPDX-License-Identifier: Apache-2.0
+package org.gxf.soapbridge.kafka.serialization
+
+import java.io.ByteArrayOutputStream
+import java.nio.ByteBuffer
+import java.util.Optional
+import org.apache.kafka.clients.consumer.ConsumerRecord
+import org.apache.kafka.clients.producer.ProducerRecord
+import org.apache.kafka.common.header.internals.RecordHeaders
+import org.apache.kafka.common.record.TimestampType
+import org.assertj.core.api.Assertions.assertThat
+import org.gxf.soapbridge.valueobjects.PlatformFailure
+import org.gxf.soapbridge.valueobjects.ProxyServerRequestMessage
+import org.gxf.soapbridge.valueobjects.ProxyServerResponseMessage
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.EnumSource
+
+class ProxyServerMessageDeserializerTest {
+
+    @ParameterizedTest
+    @EnumSource(WireFormat::class)
+    fun `request message survives a round trip`(wireFormat: WireFormat) {
+        val message =
+            ProxyServerRequestMessage("connection-id", "organisation", "/context", "<soap/>".toByteArray()).apply {
+                signature = "0a1b2c"
+            }
+
+        val serializer = ProxyServerMessageSerializer(wireFormat)
+        val record = serializer.serialize("requests", message)
+        val received = ProxyServerMessageDeserializer.receiveRequest(toConsumerRecord(record))
+        val result = received.decode()
+
+        assertThat(received.connectionId).isEqualTo("connection-id")
+        assertThat(received.signature).isEqualTo("0a1b2c")
+        assertThat(bytes(received.signedContent)).isEqualTo(bytes(serializer.signedContent(message)))
+
+        assertThat(result.connectionId).isEqualTo("connection-id")
+        assertThat(result.commonName).isEqualTo("organisation")
+        assertThat(result.context).isEqualTo("/context")
+        assertThat(result.soapPayload).isEqualTo("<soap/>".toByteArray())
+        assertThat(result.signature).isEqualTo("0a1b2c")
+    }
+
+    @ParameterizedTest
+    @EnumSource(WireFormat::class)
+    fun `response message survives a round trip`(wireFormat: WireFormat) {
+        val message = ProxyServerResponseMessage("connection-id", "<soap/>").apply { signature = "0a1b2c" }
+
+        val serializer = ProxyServerMessageSerializer(wireFormat)
+        val record = serializer.serialize("responses", message)
+        val received = ProxyServerMessageDeserializer.receiveResponse(toConsumerRecord(record))
+        val result = received.decode()
+
+        assertThat(received.connectionId).isEqualTo("connection-id")
+        assertThat(received.signature).isEqualTo("0a1b2c")
+        assertThat(bytes(received.signedContent)).isEqualTo(bytes(serializer.signedContent(message)))
+
+        assertThat(result.connectionId).isEqualTo("connection-id")
+        assertThat(result.soapResponse).isEqualTo("<soap/>")
+        assertThat(result.failure).isNull()
+        assertThat(result.signature).isEqualTo("0a1b2c")
+    }
+
+    @ParameterizedTest
+    @EnumSource(WireFormat::class)
+    fun `failure survives a round trip`(wireFormat: WireFormat) {
+        val failure = PlatformFailure(PlatformFailure.ErrorClass.UNAVAILABLE, 503)
+        val message = ProxyServerResponseMessage.failure("connection-id", failure).apply { signature = "0a1b2c" }
+
+        val serializer = ProxyServerMessageSerializer(wireFormat)
+        val record = serializer.serialize("responses", message)
+        val received = ProxyServerMessageDeserializer.receiveResponse(toConsumerRecord(record))
+        val result = received.decode()
+
+        assertThat(received.connectionId).isEqualTo("connection-id")
+        assertThat(received.signature).isEqualTo("0a1b2c")
+        assertThat(bytes(received.signedContent)).isEqualTo(bytes(serializer.signedContent(message)))
+        assertThat(bytes(received.signedContent))
+            .isNotEqualTo(bytes(serializer.signedContent(ProxyServerResponseMessage("connection-id", ""))))
+
+        assertThat(result.failure).isEqualTo(failure)
+        assertThat(result.soapResponse).isEmpty()
+    }
+
+    @Test
+    fun `v2 signed content starts with the message type`() {
+        val serializer = ProxyServerMessageSerializer(WireFormat.V2)
+        val request = ProxyServerRequestMessage("connection-id", "organisation", "/context", "<soap/>".toByteArray())
+        val response = ProxyServerResponseMessage("connection-id", "<soap/>")
+        val failure =
+            ProxyServerResponseMessage.failure("connection-id", PlatformFailure(PlatformFailure.ErrorClass.UNAVAILABLE))
+
+        assertThat(bytes(serializer.signedContent(request)))
+            .startsWith(*bytes(listOf(WireFormat.signedFields(WireFormat.REQUEST_TYPE))))
+        assertThat(bytes(serializer.signedContent(response)))
+            .startsWith(*bytes(listOf(WireFormat.signedFields(WireFormat.RESPONSE_TYPE))))
+        assertThat(bytes(serializer.signedContent(failure)))
+            .startsWith(*bytes(listOf(WireFormat.signedFields(WireFormat.FAILURE_TYPE))))
+    }
+
+    @ParameterizedTest
+    @EnumSource(WireFormat::class)
+    fun `common name is read without decoding the request`(wireFormat: WireFormat) {
+        val message =
+            ProxyServerRequestMessage("connection-id", "organisation", "/context", "<soap/>".toByteArray()).apply {
+                signature = "0a1b2c"
+            }
+
+        val record = ProxyServerMessageSerializer(wireFormat).serialize("requests", message)
+
+        assertThat(ProxyServerMessageDeserializer.commonNameOf(toConsumerRecord(record))).isEqualTo("organisation")
+    }
+
+    private fun bytes(content: List<ByteBuffer>): ByteArray {
+        val result = ByteArrayOutputStream()
+        content.forEach { part ->
+            val copy = part.duplicate()
+            val chunk = ByteArray(copy.remaining())
+            copy.get(chunk)
+            result.write(chunk)
+        }
+        return result.toByteArray()
+    }
+
+    private fun toConsumerRecord(record: ProducerRecord<String, ByteArray>) =
+        ConsumerRecord(
+            record.topic(),
+            0,
+            0L,
+            0L,
+            TimestampType.CREATE_TIME,
+            0,
+            record.value().size,
+            record.key(),
+            record.value(),
+            RecordHeaders(record.headers().toArray()),
+            Optional.empty(),
+        )
+}
@@ -12,6 +12,7 @@ plugins {
     alias(libs.plugins.kotlin) apply false
     alias(libs.plugins.spring) apply false
     alias(libs.plugins.jpa) apply false
+    alias(libs.plugins.jmh) apply false
     alias(libs.plugins.spotless)
     alias(libs.plugins.sonarqube)
     alias(libs.plugins.eclipse)